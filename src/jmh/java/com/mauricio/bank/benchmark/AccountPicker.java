@@ -0,0 +1,42 @@
+package com.mauricio.bank.benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks account numbers for a benchmark thread. With probability {@code hotRatio}
+ * the pick lands on the first ("hot") account, otherwise it is uniform over all accounts.
+ */
+final class AccountPicker {
+    private final String[] accountNumbers;
+    private final double hotRatio;
+    private final SplittableRandom random;
+
+    AccountPicker(String[] accountNumbers, double hotRatio, long seed) {
+        this.accountNumbers = accountNumbers;
+        this.hotRatio = hotRatio;
+        this.random = new SplittableRandom(seed);
+    }
+
+    String next() {
+        if (hotRatio > 0 && random.nextDouble() < hotRatio) {
+            return accountNumbers[0];
+        }
+        return accountNumbers[random.nextInt(accountNumbers.length)];
+    }
+
+    String nextOtherThan(String accountNumber) {
+        String next = next();
+        while (next.equals(accountNumber)) {
+            next = accountNumbers[random.nextInt(accountNumbers.length)];
+        }
+        return next;
+    }
+
+    static String[] accountNumbers(int count) {
+        String[] numbers = new String[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = String.format("%06d", i + 1);
+        }
+        return numbers;
+    }
+}
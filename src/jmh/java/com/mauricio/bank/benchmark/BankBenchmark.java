@@ -0,0 +1,121 @@
+package com.mauricio.bank.benchmark;
+
+import com.mauricio.bank.Bank;
+import com.mauricio.bank.ConcurrentLedgerEngine;
+import com.mauricio.bank.JournaledLedgerEngine;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.OffHeapHistory;
+import com.mauricio.bank.PartitionedLedgerEngine;
+import com.mauricio.bank.SequencedLedgerEngine;
+import com.mauricio.bank.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Hot paths of the in-memory {@link Bank}. Thread count comes from the JMH command line
+ * ({@code -Djmh.threads=N} in the benchmark profile). {@code engine=journaled} adds the
+ * write-ahead journal in a temp directory (use {@code -bm sample} for append latency);
+ * {@code engine=offheap} keeps the history in {@link OffHeapHistory}; {@code engine=sequenced} runs
+ * every command on the single business thread of {@link SequencedLedgerEngine};
+ * {@code engine=partitioned} on one executor per partition ({@link PartitionedLedgerEngine}, one
+ * partition per core).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BankBenchmark {
+
+    private static final Money INITIAL_BALANCE = Money.of("1000000000.00");
+    private static final Money AMOUNT = Money.of("1.00");
+
+    @Param({"16", "10000"})
+    int accountCount;
+
+    @Param({"0.0", "0.9"})
+    double hotRatio;
+
+    @Param({"concurrent", "journaled", "offheap", "sequenced", "partitioned"})
+    String engine;
+
+    Bank bank;
+    String[] accountNumbers;
+    Path journalDir;
+    JournaledLedgerEngine journaled;
+    SequencedLedgerEngine sequenced;
+    PartitionedLedgerEngine partitioned;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        switch (engine) {
+            case "journaled" -> {
+                journalDir = Files.createTempDirectory("bank-journal");
+                journaled = JournaledLedgerEngine.open(journalDir);
+                bank = new Bank(journaled);
+            }
+            case "offheap" -> bank = new Bank(new ConcurrentLedgerEngine(new OffHeapHistory()));
+            case "sequenced" -> {
+                sequenced = new SequencedLedgerEngine();
+                bank = new Bank(sequenced);
+            }
+            case "partitioned" -> {
+                partitioned = new PartitionedLedgerEngine(Runtime.getRuntime().availableProcessors());
+                bank = new Bank(partitioned);
+            }
+            default -> bank = new Bank();
+        }
+        accountNumbers = AccountPicker.accountNumbers(accountCount);
+        for (String number : accountNumbers) {
+            bank.createAccount(number, "Bench " + number, INITIAL_BALANCE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (sequenced != null) sequenced.close();
+        if (partitioned != null) partitioned.close();
+        if (journaled == null) return;
+
+        journaled.close();
+        try (Stream<Path> files = Files.walk(journalDir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        AccountPicker picker;
+
+        @Setup(Level.Trial)
+        public void setUp(BankBenchmark benchmark) {
+            picker = new AccountPicker(benchmark.accountNumbers, benchmark.hotRatio, Thread.currentThread().threadId());
+        }
+    }
+
+    @Benchmark
+    public void deposit(ThreadState state) {
+        bank.deposit(state.picker.next(), AMOUNT);
+    }
+
+    @Benchmark
+    public void transfer(ThreadState state) {
+        String from = state.picker.next();
+        bank.transfer(from, state.picker.nextOtherThan(from), AMOUNT);
+    }
+
+    @Benchmark
+    public List<Transaction> getTransactions(ThreadState state) {
+        return bank.getTransactions(state.picker.next());
+    }
+}
@@ -0,0 +1,77 @@
+package com.mauricio.bank.benchmark;
+
+import com.mauricio.bank.BankApplication;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.service.BankService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BankService#transfer} against an in-memory H2 database (test profile). The schema comes from the
+ * Flyway migrations in {@code db/migration/h2} with {@code ddl-auto=none}, as in the application, not from
+ * the profile's create-drop. Every trial boots a fresh context on a new database, so it starts empty.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BankServiceBenchmark {
+
+    private static final Money INITIAL_BALANCE = Money.of("1000000000.00");
+    private static final Money AMOUNT = Money.of("1.00");
+
+    @Param({"16", "1000"})
+    int accountCount;
+
+    @Param({"0.0", "0.9"})
+    double hotRatio;
+
+    ConfigurableApplicationContext context;
+    BankService bankService;
+    String[] accountNumbers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .logStartupInfo(false)
+                // Argumentos: pisan a application-test.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:bench" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                     "--spring.flyway.enabled=true",
+                     "--spring.jpa.hibernate.ddl-auto=none");
+        bankService = context.getBean(BankService.class);
+
+        accountNumbers = AccountPicker.accountNumbers(accountCount);
+        for (String number : accountNumbers) {
+            bankService.createAccount(number, "Bench " + number, INITIAL_BALANCE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        AccountPicker picker;
+
+        @Setup(Level.Trial)
+        public void setUp(BankServiceBenchmark benchmark) {
+            picker = new AccountPicker(benchmark.accountNumbers, benchmark.hotRatio, Thread.currentThread().threadId());
+        }
+    }
+
+    @Benchmark
+    public void transfer(ThreadState state) {
+        String from = state.picker.next();
+        bankService.transfer(from, state.picker.nextOtherThan(from), AMOUNT);
+    }
+}
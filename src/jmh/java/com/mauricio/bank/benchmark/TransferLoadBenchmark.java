@@ -0,0 +1,121 @@
+package com.mauricio.bank.benchmark;
+
+import com.mauricio.bank.BankApplication;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.service.BankService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test over HTTP: every invocation fires {@code concurrency} transfers at once against a real
+ * Tomcat (H2 from application-test.properties) and waits for all of them. Compare
+ * {@code virtualThreads=false} (Tomcat platform pool) with {@code true}; the {@code rejected}
+ * counter reports 503s from the DB concurrency limiter.
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.include=TransferLoadBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferLoadBenchmark {
+
+    private static final Money INITIAL_BALANCE = Money.of("1000000000.00");
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param({"1000"})
+    int concurrency;
+
+    @Param({"100"})
+    int accountCount;
+
+    @Param({"0.5"})
+    double hotRatio;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    ExecutorService clients;
+    URI transfersUri;
+    String[] accountNumbers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankApplication.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "logging.level.root=WARN")
+                .logStartupInfo(false)
+                .run();
+
+        BankService bankService = context.getBean(BankService.class);
+        accountNumbers = AccountPicker.accountNumbers(accountCount);
+        for (String number : accountNumbers) {
+            bankService.createAccount(number, "Load " + number, INITIAL_BALANCE);
+        }
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        transfersUri = URI.create("http://localhost:" + port + "/api/transfers");
+        // El cliente siempre usa virtual threads: lo que se compara es el servidor
+        clients = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        clients.close();
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long rejected;
+        public long failed;
+        AccountPicker picker;
+
+        @Setup(Level.Trial)
+        public void setUp(TransferLoadBenchmark benchmark) {
+            picker = new AccountPicker(benchmark.accountNumbers, benchmark.hotRatio, Thread.currentThread().threadId());
+        }
+    }
+
+    @Benchmark
+    public void burst(Counters counters) throws Exception {
+        List<Future<HttpResponse<Void>>> responses = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            String from = counters.picker.next();
+            String body = "{\"fromAccountNumber\":\"" + from + "\",\"toAccountNumber\":\""
+                    + counters.picker.nextOtherThan(from) + "\",\"amount\":1.00}";
+            HttpRequest request = HttpRequest.newBuilder(transfersUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            responses.add(clients.submit(() -> client.send(request, HttpResponse.BodyHandlers.discarding())));
+        }
+
+        for (Future<HttpResponse<Void>> response : responses) {
+            int status = response.get().statusCode();
+            if (status == 503) counters.rejected++;
+            else if (status != 204) counters.failed++;
+        }
+    }
+}
@@ -1,48 +1,85 @@
 package com.mauricio.bank;
 
-import java.math.BigDecimal;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Objects;
 
 public class Account {
+    private static final VarHandle BALANCE;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Account.class, "balance", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final String accountNumber;
     private final String ownerName;
-    private BigDecimal balance;
+    // Saldo en unidades menores (centavos), actualizado solo con CAS: deposit/withdraw no toman locks
+    private volatile long balance;
 
-    public Account(String accountNumber, String ownerName, BigDecimal initialBalance) {
+    public Account(String accountNumber, String ownerName, Money initialBalance) {
         if (accountNumber == null || accountNumber.isBlank()) {
             throw new IllegalArgumentException("accountNumber is required");
         }
         if (ownerName == null || ownerName.isBlank()) {
             throw new IllegalArgumentException("ownerName is required");
         }
-        if (initialBalance == null || initialBalance.compareTo(BigDecimal.ZERO) < 0) {
+        if (initialBalance == null || initialBalance.isNegative()) {
             throw new IllegalArgumentException("initialBalance must be >= 0");
         }
 
         this.accountNumber = accountNumber;
         this.ownerName = ownerName;
-        this.balance = initialBalance;
+        this.balance = initialBalance.minorUnits();
     }
 
     public String getAccountNumber() { return accountNumber; }
     public String getOwnerName() { return ownerName; }
-    public BigDecimal getBalance() { return balance; }
+    public Money getBalance() { return Money.ofMinor(balance); }
 
-    public void deposit(BigDecimal amount) {
+    public void deposit(Money amount) {
         validatePositiveAmount(amount);
-        balance = balance.add(amount);
+        credit(amount.minorUnits());
     }
 
-    public void withdraw(BigDecimal amount) {
+    public void withdraw(Money amount) {
         validatePositiveAmount(amount);
-        if (balance.compareTo(amount) < 0) {
-            throw new InsufficientFundsException("Insufficient funds. Balance=" + balance + ", amount=" + amount);
+        debit(amount.minorUnits());
+    }
+
+    /** Adds {@code amount} minor units and returns the balance before the credit. */
+    long credit(long amount) {
+        while (true) {
+            long current = balance;
+            if (BALANCE.compareAndSet(this, current, Math.addExact(current, amount))) {
+                return current;
+            }
         }
-        balance = balance.subtract(amount);
     }
 
-    private void validatePositiveAmount(BigDecimal amount) {
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+    /** Subtracts {@code amount} minor units and returns the balance before the debit. */
+    long debit(long amount) {
+        while (true) {
+            long current = balance;
+            if (current < amount) {
+                throw insufficientFunds(current, amount);
+            }
+            if (BALANCE.compareAndSet(this, current, current - amount)) {
+                return current;
+            }
+        }
+    }
+
+    static InsufficientFundsException insufficientFunds(long balance, long amount) {
+        return new InsufficientFundsException("Insufficient funds. Balance=" + Money.ofMinor(balance)
+                + ", amount=" + Money.ofMinor(amount));
+    }
+
+    private void validatePositiveAmount(Money amount) {
+        if (amount == null || !amount.isPositive()) {
             throw new IllegalArgumentException("amount must be > 0");
         }
     }
@@ -1,137 +1,155 @@
 package com.mauricio.bank;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDateTime;
-import java.util.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
-import java.util.UUID;
 
+/**
+ * In-memory bank over a {@link LedgerEngine}. Operations are timed in {@code bank.ledger.operations}
+ * (tags {@code operation}, {@code outcome}) and failed withdrawals/transfers counted in
+ * {@code bank.ledger.insufficient.funds}; without a registry the meters go to Micrometer's global
+ * registry, a no-op until something is added to it. Per-operation logs are at {@code FINE}.
+ */
 public class Bank {
     private static final Logger log = Logger.getLogger(Bank.class.getName());
 
-    private final Map<String, Account> accountsByNumber = new HashMap<>();
-    private final Map<String, List<Transaction>> transactionsByAccount = new HashMap<>();
-    private final Map<String, Object> accountLocks = new HashMap<>();
-    private final Object accountsLock = new Object();
+    private final LedgerEngine engine;
+    private final MeterRegistry registry;
+    private final Timer depositTimer;
+    private final Timer withdrawTimer;
+    private final Timer transferTimer;
+    private final Timer transactionsTimer;
 
-    public Account createAccount(String accountNumber, String ownerName, BigDecimal initialBalance) {
-        validateAccountNumber(accountNumber);
-        validateOwnerName(ownerName);
+    public Bank() {
+        this(new ConcurrentLedgerEngine());
+    }
 
-        BigDecimal normalizeInitial = normalizeInitialBalance(initialBalance);
+    public Bank(LedgerEngine engine) {
+        this(engine, Metrics.globalRegistry);
+    }
+
+    public Bank(LedgerEngine engine, MeterRegistry registry) {
+        this.engine = engine;
+        this.registry = registry;
+        // Los timers de exito se resuelven una vez: el camino feliz no busca en el registry
+        this.depositTimer = timer("deposit", "success");
+        this.withdrawTimer = timer("withdraw", "success");
+        this.transferTimer = timer("transfer", "success");
+        this.transactionsTimer = timer("transactions", "success");
+    }
 
-        synchronized (accountsLock) {
-            if (accountsByNumber.containsKey(accountNumber)) {
-                throw new IllegalArgumentException("Account already exists: " + accountNumber);
-            }
+    public Account createAccount(String accountNumber, String ownerName, BigDecimal initialBalance) {
+        return createAccount(accountNumber, ownerName, normalizeInitialBalance(initialBalance));
+    }
 
-            Account account = new Account(accountNumber, ownerName, normalizeInitial);
-            accountsByNumber.put(accountNumber, account);
-            accountLocks.put(accountNumber, new Object());
-            transactionsByAccount.put(accountNumber, new ArrayList<>());
+    public Account createAccount(String accountNumber, String ownerName, Money initialBalance) {
+        validateAccountNumber(accountNumber);
+        validateOwnerName(ownerName);
 
-            record(accountNumber, TransactionType.ACCOUNT_CREATED, normalizeInitial, new BigDecimal("0.00"), normalizeInitial,"Account created");
+        Money normalizeInitial = normalizeInitialBalance(initialBalance);
 
-            log.info(() -> "ACCOUNT_CREATED account=" + accountNumber + ", owner=" + ownerName + ", initialBalance=" + normalizeInitial);
+        Account account = engine.createAccount(accountNumber, ownerName, normalizeInitial);
 
-            return account;
-        }
+        log.info(() -> "ACCOUNT_CREATED account=" + accountNumber + ", owner=" + ownerName + ", initialBalance=" + normalizeInitial);
 
+        return account;
     }
 
     public Account getAccount(String accountNumber) {
-        Account account = accountsByNumber.get(accountNumber);
-        if (account == null) {
-            throw new IllegalArgumentException("Account not found: " + accountNumber);
-        }
-        return account;
+        return engine.getAccount(accountNumber);
     }
 
     public void deposit(String accountNumber, BigDecimal amount){
-        BigDecimal normalized = normalizeMoney(amount);
-
-        synchronized (lockFor(accountNumber)){
-            Account account = getAccount(accountNumber);
+        deposit(accountNumber, normalizeMoney(amount));
+    }
 
-            BigDecimal before = account.getBalance();
-            account.deposit(normalized);
-            BigDecimal after = account.getBalance();
+    public void deposit(String accountNumber, Money amount){
+        Money normalized = normalizeMoney(amount);
 
-            record(accountNumber, TransactionType.DEPOSIT, normalized, before, after,"Deposit");
-            log.info(() -> "DEPOSIT account=" + accountNumber + " amount=" + normalized);
-        }
+        timed("deposit", depositTimer, () -> {
+            engine.deposit(accountNumber, normalized);
+            return null;
+        });
+        log.fine(() -> "DEPOSIT account=" + accountNumber + " amount=" + normalized);
     }
 
     public void withdraw(String accountNumber, BigDecimal amount){
-        BigDecimal normalized = normalizeMoney(amount);
-
-        synchronized (lockFor(accountNumber)){
-            Account account = getAccount(accountNumber);
+        withdraw(accountNumber, normalizeMoney(amount));
+    }
 
-            BigDecimal before = account.getBalance();
-            account.withdraw(normalized);
-            BigDecimal after = account.getBalance();
+    public void withdraw(String accountNumber, Money amount){
+        Money normalized = normalizeMoney(amount);
 
-            record(accountNumber, TransactionType.WITHDRAW, normalized, before, after,"Withdraw");
-            log.info(() -> "WITHDRAW account=" + accountNumber + " amount=" + normalized);
-        }
+        timed("withdraw", withdrawTimer, () -> {
+            engine.withdraw(accountNumber, normalized);
+            return null;
+        });
+        log.fine(() -> "WITHDRAW account=" + accountNumber + " amount=" + normalized);
     }
 
     public void transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount) {
+        transfer(fromAccountNumber, toAccountNumber, normalizeMoney(amount));
+    }
+
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount) {
         if (fromAccountNumber.equals(toAccountNumber)) {
             throw new IllegalArgumentException("from and to accounts must be different");
         }
 
-        BigDecimal normalized = normalizeMoney(amount);
-
-        String first  = fromAccountNumber.compareTo(toAccountNumber) < 0 ? fromAccountNumber : toAccountNumber;
-        String second = fromAccountNumber.compareTo(toAccountNumber) < 0 ? toAccountNumber : fromAccountNumber;
-
-
-        synchronized (lockFor(first)){
-            synchronized (lockFor(second)){
-
-                Account from = getAccount(fromAccountNumber);
-                Account to = getAccount(toAccountNumber);
-
-                // Primero retiramos, si falla por fondos insuficientes no depositamos.
-
-                BigDecimal fromBefore = from.getBalance();
-                from.withdraw(normalized);
-                BigDecimal fromAfter = from.getBalance();
+        Money normalized = normalizeMoney(amount);
 
-                BigDecimal toBefore = to.getBalance();
-                to.deposit(normalized);
-                BigDecimal toAfter = to.getBalance();
+        timed("transfer", transferTimer, () -> {
+            engine.transfer(fromAccountNumber, toAccountNumber, normalized);
+            return null;
+        });
 
-                record(fromAccountNumber, TransactionType.TRANSFER_OUT, normalized, fromBefore, fromAfter,"Transfer to " + toAccountNumber);
-                record(toAccountNumber, TransactionType.TRANSFER_IN, normalized, toBefore, toAfter,"Transfer from " + fromAccountNumber);
-
-                log.info(() -> "TRANSFER from=" + fromAccountNumber + ", to=" + toAccountNumber + ", amount=" + normalized);
-            }
-        }
+        log.fine(() -> "TRANSFER from=" + fromAccountNumber + ", to=" + toAccountNumber + ", amount=" + normalized);
     }
 
     public List<Transaction> getTransactions(String accountNumber) {
-        getAccount(accountNumber);
-        return Collections.unmodifiableList(transactionsByAccount.get(accountNumber));
+        return timed("transactions", transactionsTimer, () -> engine.getTransactions(accountNumber));
+    }
+
+    /** Contention seen by the engine, or {@code null} if it does not track it. */
+    public ContentionTracker contention() {
+        return engine instanceof ConcurrentLedgerEngine concurrent ? concurrent.contention() : null;
     }
 
     // --Helpers
 
-    private void record(String accountNumber, TransactionType type,  BigDecimal amount, BigDecimal balanceBefore, BigDecimal balanceAfter, String description){
-        transactionsByAccount.get(accountNumber).add(
-          new Transaction(UUID.randomUUID(),
-                          accountNumber,
-                          type,
-                          amount,
-                          balanceBefore,
-                          balanceAfter,
-                          description,
-                          LocalDateTime.now()
-          )
-        );
+    private <T> T timed(String operation, Timer success, Supplier<T> work) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } catch (InsufficientFundsException e) {
+            outcome = "insufficient_funds";
+            Counter.builder("bank.ledger.insufficient.funds").tag("operation", operation).register(registry).increment();
+            throw e;
+        } catch (IllegalArgumentException e) {
+            outcome = "invalid";
+            throw e;
+        } finally {
+            Timer timer = "success".equals(outcome) ? success : timer(operation, outcome);
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return Timer.builder("bank.ledger.operations")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
     }
 
     private void validateAccountNumber(String accountNumber) {
@@ -146,22 +164,27 @@ public class Bank {
         }
     }
 
-    private BigDecimal normalizeMoney(BigDecimal value){
+    // BigDecimal solo en la entrada; adentro todo es Money
+    private Money normalizeMoney(BigDecimal value){
         if (value == null) throw new IllegalArgumentException("Amount is required");
-        if (value.compareTo(BigDecimal.ZERO) <= 0) throw new IllegalArgumentException("amount must be > 0");
+        return Money.of(value);
+    }
 
-        return value.setScale(2, RoundingMode.HALF_UP);
+    private Money normalizeMoney(Money value){
+        if (value == null) throw new IllegalArgumentException("Amount is required");
+        if (!value.isPositive()) throw new IllegalArgumentException("amount must be > 0");
+        return value;
     }
 
-    private BigDecimal normalizeInitialBalance(BigDecimal value){
+    private Money normalizeInitialBalance(BigDecimal value){
         if (value == null) throw  new IllegalArgumentException("InitialBalance is required");
-        if (value.compareTo(BigDecimal.ZERO) < 0) throw new IllegalArgumentException("Initial balance must be greater or equal than 0");
-        return value.setScale(2, RoundingMode.HALF_UP);
+        if (value.signum() < 0) throw new IllegalArgumentException("Initial balance must be greater or equal than 0");
+        return Money.of(value);
     }
 
-    private Object lockFor(String accountNumber) {
-        Object lock = accountLocks.get(accountNumber);
-        if (lock == null) throw new IllegalArgumentException("Account not found: " + accountNumber);
-        return lock;
+    private Money normalizeInitialBalance(Money value){
+        if (value == null) throw  new IllegalArgumentException("InitialBalance is required");
+        if (value.isNegative()) throw new IllegalArgumentException("Initial balance must be greater or equal than 0");
+        return value;
     }
 }
@@ -0,0 +1,297 @@
+package com.mauricio.bank;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Concurrent engine: accounts live in concurrent maps, so creating accounts never serializes and
+ * operations on different accounts never contend.
+ * <p>
+ * Each operation holds a short per-account lock while it computes the new balance, journals the
+ * entry, changes the balance and appends the entry, so an account's history is a before/after chain
+ * in the order the balance changed. A transfer locks its two accounts in account-number order and
+ * checks funds and the credit's overflow ({@code addExact}) before touching either balance, so it
+ * is atomic for every other operation on them. In single-writer mode (see
+ * {@link SequencedLedgerEngine}) no locks are taken. {@link Account} still updates its balance
+ * with a CAS: its public {@code deposit}/{@code withdraw} can run outside any engine; under the
+ * engine's lock the CAS never retries.
+ * <p>
+ * Subclasses can make the entries durable through {@link #journal}, called once per operation
+ * before any balance changes (write-ahead). Once it throws, the engine is fail-stop: every later
+ * write is refused with an {@link IllegalStateException}, so memory never runs ahead of the journal.
+ * History lives on heap unless an {@link OffHeapHistory} is given. With a {@link ContentionTracker},
+ * waits for an account's lock are reported to it as contention on that account.
+ */
+public class ConcurrentLedgerEngine implements LedgerEngine {
+
+    private final ConcurrentMap<String, Account> accountsByNumber = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TransactionLog> transactionsByAccount = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ReentrantLock> locksByAccount = new ConcurrentHashMap<>();
+    // Historial anterior al snapshot de la recuperacion: se lee del journal la primera vez que se pide
+    private final ConcurrentMap<String, List<Transaction>> earlierByAccount = new ConcurrentHashMap<>();
+    private volatile Function<String, List<Transaction>> earlierHistory;
+    private final Function<String, TransactionLog> newLog;
+    private final ContentionTracker contention;
+    private final boolean singleWriter;
+    private volatile RuntimeException journalFailure;
+
+    public ConcurrentLedgerEngine() {
+        this(null);
+    }
+
+    /** {@code history == null} keeps the history on heap. */
+    public ConcurrentLedgerEngine(OffHeapHistory history) {
+        this(history, null);
+    }
+
+    /** {@code contention == null} does not track contention. */
+    public ConcurrentLedgerEngine(OffHeapHistory history, ContentionTracker contention) {
+        this(history, contention, false);
+    }
+
+    /**
+     * {@code singleWriter}: every write comes from one thread (see {@link SequencedLedgerEngine}), so
+     * no account locks are taken; reads do not lock either way.
+     */
+    protected ConcurrentLedgerEngine(OffHeapHistory history, ContentionTracker contention, boolean singleWriter) {
+        this.newLog = history == null ? n -> new HeapTransactionLog() : history::newLog;
+        this.contention = contention;
+        this.singleWriter = singleWriter;
+    }
+
+    @Override
+    public Account createAccount(String accountNumber, String ownerName, Money initialBalance) {
+        TransactionLog log = newLog.apply(accountNumber);
+        if (transactionsByAccount.putIfAbsent(accountNumber, log) != null) {
+            throw new IllegalArgumentException("Account already exists: " + accountNumber);
+        }
+
+        Account account = new Account(accountNumber, ownerName, initialBalance);
+        Transaction created = entry(accountNumber, TransactionType.ACCOUNT_CREATED, initialBalance.minorUnits(), 0, initialBalance.minorUnits(), "Account created");
+        try {
+            journalAhead(ownerName, created);
+        } catch (RuntimeException e) {
+            transactionsByAccount.remove(accountNumber, log);
+            throw e;
+        }
+        log.append(created);
+        if (!singleWriter) locksByAccount.put(accountNumber, new ReentrantLock());
+
+        // Se publica al final: nadie puede operar la cuenta antes de que exista su historial
+        accountsByNumber.put(accountNumber, account);
+        return account;
+    }
+
+    @Override
+    public Account getAccount(String accountNumber) {
+        Account account = accountsByNumber.get(accountNumber);
+        if (account == null) {
+            throw new IllegalArgumentException("Account not found: " + accountNumber);
+        }
+        return account;
+    }
+
+    @Override
+    public void deposit(String accountNumber, Money amount) {
+        Account account = getAccount(accountNumber);
+        long minor = amount.minorUnits();
+
+        ReentrantLock lock = lock(accountNumber);
+        try {
+            // Bajo el lock nadie mas cambia el saldo: se calcula, se journaliza y recien ahi se aplica
+            long before = account.getBalance().minorUnits();
+            Transaction entry = entry(accountNumber, TransactionType.DEPOSIT, minor, before, Math.addExact(before, minor), "Deposit");
+            journalAhead(null, entry);
+            account.credit(minor);
+            transactionsByAccount.get(accountNumber).append(entry);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    @Override
+    public void withdraw(String accountNumber, Money amount) {
+        Account account = getAccount(accountNumber);
+        long minor = amount.minorUnits();
+
+        ReentrantLock lock = lock(accountNumber);
+        try {
+            long before = account.getBalance().minorUnits();
+            if (before < minor) throw Account.insufficientFunds(before, minor);
+            Transaction entry = entry(accountNumber, TransactionType.WITHDRAW, minor, before, before - minor, "Withdraw");
+            journalAhead(null, entry);
+            account.debit(minor);
+            transactionsByAccount.get(accountNumber).append(entry);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    @Override
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount) {
+        Account from = getAccount(fromAccountNumber);
+        Account to = getAccount(toAccountNumber);
+
+        long minor = amount.minorUnits();
+
+        // Orden fijo de locks: dos transferencias cruzadas no se bloquean entre si
+        boolean fromFirst = fromAccountNumber.compareTo(toAccountNumber) <= 0;
+        ReentrantLock first = lock(fromFirst ? fromAccountNumber : toAccountNumber);
+        try {
+            ReentrantLock second = lock(fromFirst ? toAccountNumber : fromAccountNumber);
+            try {
+                // Fondos y desborde se validan antes de tocar nada: si algo falla no se debita ni se deposita
+                long fromBefore = from.getBalance().minorUnits();
+                if (fromBefore < minor) throw Account.insufficientFunds(fromBefore, minor);
+                long toBefore = to.getBalance().minorUnits();
+                long toAfter = Math.addExact(toBefore, minor);
+
+                Transaction out = entry(fromAccountNumber, TransactionType.TRANSFER_OUT, minor, fromBefore, fromBefore - minor, "Transfer to " + toAccountNumber);
+                Transaction in = entry(toAccountNumber, TransactionType.TRANSFER_IN, minor, toBefore, toAfter, "Transfer from " + fromAccountNumber);
+
+                journalAhead(null, out, in);
+                from.debit(minor);
+                to.credit(minor);
+                transactionsByAccount.get(fromAccountNumber).append(out);
+                transactionsByAccount.get(toAccountNumber).append(in);
+            } finally {
+                unlock(second);
+            }
+        } finally {
+            unlock(first);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactions(String accountNumber) {
+        getAccount(accountNumber);
+        List<Transaction> recent = transactionsByAccount.get(accountNumber).view();
+        List<Transaction> earlier = earlierTransactions(accountNumber);
+        return earlier.isEmpty() ? recent : new Concatenated(earlier, recent);
+    }
+
+    /** The tracker lock waits are reported to, or {@code null}. */
+    public ContentionTracker contention() {
+        return contention;
+    }
+
+    /**
+     * Receives the entries of one operation before the balances change and the entries become
+     * visible in the history. {@code ownerName} is only set for {@code ACCOUNT_CREATED}.
+     */
+    protected void journal(String ownerName, Transaction... entries) {
+    }
+
+    /** Stops every later write, e.g. when a journal sync failed outside {@link #journal}. */
+    protected final void journalFailed(RuntimeException cause) {
+        if (journalFailure == null) journalFailure = cause;
+    }
+
+    // Recuperacion: recrean el estado sin pasar por journal()
+
+    void restoreAccount(String accountNumber, String ownerName, long balance) {
+        transactionsByAccount.put(accountNumber, newLog.apply(accountNumber));
+        if (!singleWriter) locksByAccount.put(accountNumber, new ReentrantLock());
+        accountsByNumber.put(accountNumber, new Account(accountNumber, ownerName, Money.ofMinor(balance)));
+    }
+
+    void restoreEntry(Transaction entry) {
+        TransactionLog log = transactionsByAccount.get(entry.accountNumber());
+        if (log != null) {
+            log.append(entry);
+        }
+    }
+
+    /**
+     * Entries older than the restored ones: {@code loader} returns them for an account, oldest first,
+     * and runs at most once per account that asks for its history.
+     */
+    void restoreEarlierHistory(Function<String, List<Transaction>> loader) {
+        this.earlierHistory = loader;
+    }
+
+    // --Helpers
+
+    private List<Transaction> earlierTransactions(String accountNumber) {
+        Function<String, List<Transaction>> loader = earlierHistory;
+        if (loader == null) return List.of();
+
+        List<Transaction> earlier = earlierByAccount.get(accountNumber);
+        if (earlier != null) return earlier;
+
+        // Fuera de computeIfAbsent: la lectura del journal no bloquea a otras cuentas del mapa
+        TransactionLog log = newLog.apply(accountNumber);
+        loader.apply(accountNumber).forEach(log::append);
+        List<Transaction> loaded = log.view();
+        earlier = earlierByAccount.putIfAbsent(accountNumber, loaded);
+        return earlier != null ? earlier : loaded;
+    }
+
+    // Sin espera no se reporta nada: el camino sin contencion no mide tiempos. null con un solo escritor
+    private ReentrantLock lock(String accountNumber) {
+        if (singleWriter) return null;
+        ReentrantLock lock = locksByAccount.get(accountNumber);
+        if (!lock.tryLock()) {
+            long waitingSince = System.nanoTime();
+            lock.lock();
+            if (contention != null) contention.record(accountNumber, System.nanoTime() - waitingSince);
+        }
+        return lock;
+    }
+
+    private static void unlock(ReentrantLock lock) {
+        if (lock != null) lock.unlock();
+    }
+
+    private void journalAhead(String ownerName, Transaction... entries) {
+        RuntimeException failure = journalFailure;
+        if (failure != null) {
+            throw new IllegalStateException("Ledger journal failed; the engine no longer accepts writes", failure);
+        }
+        try {
+            journal(ownerName, entries);
+        } catch (RuntimeException e) {
+            journalFailed(e);
+            throw e;
+        }
+    }
+
+    static Transaction entry(String accountNumber, TransactionType type, long amount, long balanceBefore, long balanceAfter, String description) {
+        return new Transaction(UuidV7.next(),
+                               accountNumber,
+                               type,
+                               Money.ofMinor(amount),
+                               Money.ofMinor(balanceBefore),
+                               Money.ofMinor(balanceAfter),
+                               description,
+                               LocalDateTime.now()
+        );
+    }
+
+    // Historial leido del journal seguido del que esta en memoria
+    private static final class Concatenated extends AbstractList<Transaction> implements RandomAccess {
+        private final List<Transaction> earlier;
+        private final List<Transaction> recent;
+
+        Concatenated(List<Transaction> earlier, List<Transaction> recent) {
+            this.earlier = earlier;
+            this.recent = recent;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            return index < earlier.size() ? earlier.get(index) : recent.get(index - earlier.size());
+        }
+
+        @Override
+        public int size() {
+            return earlier.size() + recent.size();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.mauricio.bank;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Heavy hitters of lock contention per account, in bounded memory.
+ * <p>
+ * Callers report an account whenever an operation had to wait for its lock (a ledger account lock
+ * that was not free, or a database row lock that took longer than the configured minimum) together
+ * with the wait. The tracker keeps a Space-Saving sketch of
+ * {@code capacity} counters: an account without a counter takes over the smallest one and
+ * inherits its count as {@code error}, so a reported count overestimates the true one by at most
+ * {@code error}, and every account contended more than {@code events / capacity} times is listed.
+ * <p>
+ * With {@code sampleEvery > 1} only one report in {@code sampleEvery} (at random) reaches the
+ * sketch, weighted by {@code sampleEvery}; the rest return without taking the tracker's lock.
+ */
+public final class ContentionTracker {
+
+    /** One tracked account. Waits only cover the samples taken since the account got its counter. */
+    public record Hotspot(String accountNumber, long events, long error, Duration totalWait, Duration maxWait) {
+    }
+
+    private static final class Counter {
+        String accountNumber;
+        long events;
+        long error;
+        long totalWaitNanos;
+        long maxWaitNanos;
+    }
+
+    private final int capacity;
+    private final int sampleEvery;
+    private final Map<String, Counter> counters;
+    private long events;
+    private Instant since = Instant.now();
+
+    public ContentionTracker(int capacity, int sampleEvery) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be > 0");
+        if (sampleEvery < 1) throw new IllegalArgumentException("sampleEvery must be > 0");
+        this.capacity = capacity;
+        this.sampleEvery = sampleEvery;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void record(String accountNumber, long waitNanos) {
+        if (sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) return;
+        add(accountNumber, waitNanos);
+    }
+
+    /** The {@code limit} most contended accounts, most contended first. */
+    public synchronized List<Hotspot> top(int limit) {
+        List<Hotspot> top = new ArrayList<>(counters.size());
+        for (Counter c : counters.values()) {
+            top.add(new Hotspot(c.accountNumber, c.events, c.error,
+                                Duration.ofNanos(c.totalWaitNanos), Duration.ofNanos(c.maxWaitNanos)));
+        }
+        top.sort(Comparator.comparingLong(Hotspot::events).reversed());
+        return top.size() > limit ? List.copyOf(top.subList(0, limit)) : top;
+    }
+
+    /** Contention events (estimated when sampling) since the tracker was created or reset. */
+    public synchronized long events() {
+        return events;
+    }
+
+    public synchronized Instant since() {
+        return since;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized void reset() {
+        counters.clear();
+        events = 0;
+        since = Instant.now();
+    }
+
+    // --Helpers
+
+    private synchronized void add(String accountNumber, long waitNanos) {
+        events += sampleEvery;
+
+        Counter counter = counters.get(accountNumber);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter();
+            } else {
+                // Space-Saving: la cuenta nueva reemplaza al contador mas chico y hereda su cuenta como error
+                counter = min();
+                counters.remove(counter.accountNumber);
+                counter.error = counter.events;
+                counter.totalWaitNanos = 0;
+                counter.maxWaitNanos = 0;
+            }
+            counter.accountNumber = accountNumber;
+            counters.put(accountNumber, counter);
+        }
+
+        counter.events += sampleEvery;
+        counter.totalWaitNanos += waitNanos * sampleEvery;
+        counter.maxWaitNanos = Math.max(counter.maxWaitNanos, waitNanos);
+    }
+
+    // Recorrido lineal: capacity es chico y solo se llega aca con una cuenta que no esta en el sketch
+    private Counter min() {
+        Counter min = null;
+        for (Counter c : counters.values()) {
+            if (min == null || c.events < min.events) min = c;
+        }
+        return min;
+    }
+}
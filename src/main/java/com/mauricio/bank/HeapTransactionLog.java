@@ -0,0 +1,54 @@
+package com.mauricio.bank;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * On-heap {@link TransactionLog}: appends are serialized per account; readers never lock
+ * and get an immutable view of the entries published so far.
+ */
+final class HeapTransactionLog implements TransactionLog {
+    private volatile Transaction[] entries = new Transaction[8];
+    private volatile int size;
+
+    @Override
+    public synchronized void append(Transaction tx) {
+        Transaction[] current = entries;
+        int n = size;
+        if (n == current.length) {
+            current = Arrays.copyOf(current, n * 2);
+            entries = current;
+        }
+        current[n] = tx;
+        size = n + 1;
+    }
+
+    @Override
+    public List<Transaction> view() {
+        int n = size;
+        return new Snapshot(entries, n);
+    }
+
+    private static final class Snapshot extends AbstractList<Transaction> implements RandomAccess {
+        private final Transaction[] entries;
+        private final int size;
+
+        Snapshot(Transaction[] entries, int size) {
+            this.entries = entries;
+            this.size = size;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+            return entries[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
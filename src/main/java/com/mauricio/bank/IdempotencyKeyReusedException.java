@@ -0,0 +1,7 @@
+package com.mauricio.bank;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency-Key already used with a different request: " + key);
+    }
+}
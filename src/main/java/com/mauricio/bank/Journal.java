@@ -0,0 +1,211 @@
+package com.mauricio.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of binary frames, split in memory-mapped segment files named after the
+ * sequence of their first frame ({@code journal-<seq>.seg}). A frame is
+ * {@code [int length][int crc32c(payload)][long seq][payload]}; a zero length ends a segment.
+ * <p>
+ * Appends are serialized and only copy bytes into the mapped segment: a frame survives a process
+ * crash as soon as {@link #append} returns, and an OS crash once {@link #force()} ran (done on
+ * rotation, snapshot and close). When opening, a torn frame at the tail ends the journal and the
+ * rest of that segment is cleared; a bad frame anywhere else is an error.
+ */
+final class Journal implements Closeable {
+    static final int HEADER = 16;
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+
+    @FunctionalInterface
+    interface FrameHandler {
+        void frame(long seq, ByteBuffer payload);
+    }
+
+    private final Path dir;
+    private final int segmentSize;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSeq;
+    private volatile long committedSeq;
+    private boolean closed;
+
+    private Journal(Path dir, int segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+    }
+
+    /** Opens (or creates) the journal in {@code dir}, passing every frame after {@code afterSeq} to {@code handler}. */
+    static Journal open(Path dir, int segmentSize, long afterSeq, FrameHandler handler) throws IOException {
+        if (segmentSize <= HEADER) throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+        Files.createDirectories(dir);
+
+        Journal journal = new Journal(dir, segmentSize);
+        List<Path> segments = segments(dir);
+
+        long lastSeq = segments.isEmpty() ? 0 : firstSeq(segments.getFirst()) - 1;
+        Tail tail = null;
+        for (int i = 0; i < segments.size(); i++) {
+            tail = read(segments.get(i), lastSeq + 1, afterSeq, Long.MAX_VALUE, handler);
+            if (tail.torn() && i < segments.size() - 1) {
+                throw new IOException("Corrupt journal segment " + segments.get(i) + " at offset " + tail.position());
+            }
+            lastSeq = tail.lastSeq();
+        }
+
+        journal.nextSeq = lastSeq + 1;
+        journal.committedSeq = lastSeq;
+        if (tail == null) {
+            journal.openSegment(segmentPath(dir, journal.nextSeq), 0, false);
+        } else {
+            journal.openSegment(segments.getLast(), tail.position(), tail.torn());
+        }
+        return journal;
+    }
+
+    /** Appends one frame and returns its sequence number. */
+    long append(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        int checksum = (int) crc.getValue();
+        int frameSize = HEADER + payload.length;
+
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("Journal is closed");
+
+            if (segment.remaining() < frameSize) {
+                if (frameSize > segmentSize) {
+                    throw new IllegalArgumentException("Journal frame larger than a segment: " + frameSize);
+                }
+                rotate();
+            }
+
+            long seq = nextSeq++;
+            segment.putInt(payload.length)
+                   .putInt(checksum)
+                   .putLong(seq)
+                   .put(payload);
+            committedSeq = seq;
+            return seq;
+        }
+    }
+
+    /** Sequence of the last complete frame. */
+    long committedSeq() {
+        return committedSeq;
+    }
+
+    /** Passes frames with {@code afterSeq < seq <= upToSeq} to {@code handler}. Safe while appends run. */
+    void replay(long afterSeq, long upToSeq, FrameHandler handler) throws IOException {
+        List<Path> segments = segments(dir);
+        for (int i = 0; i < segments.size(); i++) {
+            long first = firstSeq(segments.get(i));
+            if (first > upToSeq) break;
+            // El segmento termina justo antes de donde empieza el siguiente
+            if (i + 1 < segments.size() && firstSeq(segments.get(i + 1)) <= afterSeq + 1) continue;
+
+            read(segments.get(i), first, afterSeq, upToSeq, handler);
+        }
+    }
+
+    synchronized void force() {
+        if (!closed) segment.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        segment.force();
+        channel.close();
+    }
+
+    // --Helpers
+
+    private void rotate() {
+        try {
+            segment.force();
+            channel.close();
+            openSegment(segmentPath(dir, nextSeq), 0, false);
+        } catch (IOException e) {
+            closed = true;
+            throw new UncheckedIOException("Journal rotation failed", e);
+        }
+    }
+
+    private void openSegment(Path path, int position, boolean clearTail) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), segmentSize);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        segment.position(position);
+
+        if (clearTail) {
+            // Restos de un frame cortado: se borran para que no parezcan datos en la proxima recuperacion
+            ByteBuffer zeros = segment.duplicate();
+            while (zeros.hasRemaining()) zeros.put((byte) 0);
+            segment.force();
+        }
+    }
+
+    private record Tail(long lastSeq, int position, boolean torn) {}
+
+    private static Tail read(Path path, long expectedSeq, long afterSeq, long upToSeq, FrameHandler handler) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            CRC32C crc = new CRC32C();
+            int pos = 0;
+            long seq = expectedSeq - 1;
+
+            while (pos + HEADER <= buf.limit()) {
+                int length = buf.getInt(pos);
+                if (length == 0) return new Tail(seq, pos, false);
+                if (length < 0 || pos + HEADER + length > buf.limit() || buf.getLong(pos + 8) != seq + 1) {
+                    return new Tail(seq, pos, true);
+                }
+
+                ByteBuffer payload = buf.slice(pos + HEADER, length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != buf.getInt(pos + 4)) return new Tail(seq, pos, true);
+
+                seq++;
+                if (seq > upToSeq) return new Tail(seq - 1, pos, false);
+                if (seq > afterSeq) handler.frame(seq, payload);
+                pos += HEADER + length;
+            }
+            return new Tail(seq, pos, false);
+        }
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static Path segmentPath(Path dir, long firstSeq) {
+        return dir.resolve(String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX));
+    }
+}
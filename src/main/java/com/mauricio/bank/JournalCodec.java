@@ -0,0 +1,94 @@
+package com.mauricio.bank;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Binary layout of one journal frame: {@code [byte count]} followed by {@code count} entries of
+ * {@code [byte type][uuid][long amount][long before][long after][long epochSecond][int nano]
+ * [str account][str description]}, plus {@code [str owner]} for {@code ACCOUNT_CREATED}.
+ * Amounts are minor units; strings are UTF-8 with an unsigned short length.
+ */
+final class JournalCodec {
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final int FIXED = 1 + 16 + 8 * 3 + 8 + 4;
+
+    @FunctionalInterface
+    interface EntryHandler {
+        void entry(Transaction entry, String ownerName);
+    }
+
+    private JournalCodec() {
+    }
+
+    static byte[] encode(String ownerName, Transaction... entries) {
+        byte[][] strings = new byte[entries.length * 3][];
+        int size = 1;
+        for (int i = 0; i < entries.length; i++) {
+            Transaction tx = entries[i];
+            strings[i * 3] = utf8(tx.accountNumber());
+            strings[i * 3 + 1] = utf8(tx.description());
+            strings[i * 3 + 2] = tx.type() == TransactionType.ACCOUNT_CREATED ? utf8(ownerName) : null;
+
+            size += FIXED + 2 + strings[i * 3].length + 2 + strings[i * 3 + 1].length;
+            if (strings[i * 3 + 2] != null) size += 2 + strings[i * 3 + 2].length;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.put((byte) entries.length);
+        for (int i = 0; i < entries.length; i++) {
+            Transaction tx = entries[i];
+            buf.put((byte) tx.type().ordinal())
+               .putLong(tx.id().getMostSignificantBits())
+               .putLong(tx.id().getLeastSignificantBits())
+               .putLong(tx.amount().minorUnits())
+               .putLong(tx.balanceBefore().minorUnits())
+               .putLong(tx.balanceAfter().minorUnits())
+               .putLong(tx.occurredAt().toEpochSecond(ZoneOffset.UTC))
+               .putInt(tx.occurredAt().getNano());
+            putString(buf, strings[i * 3]);
+            putString(buf, strings[i * 3 + 1]);
+            if (strings[i * 3 + 2] != null) putString(buf, strings[i * 3 + 2]);
+        }
+        return buf.array();
+    }
+
+    static void decode(ByteBuffer payload, EntryHandler handler) {
+        ByteBuffer buf = payload.duplicate();
+        int count = buf.get() & 0xFF;
+        for (int i = 0; i < count; i++) {
+            TransactionType type = TYPES[buf.get()];
+            UUID id = new UUID(buf.getLong(), buf.getLong());
+            Money amount = Money.ofMinor(buf.getLong());
+            Money before = Money.ofMinor(buf.getLong());
+            Money after = Money.ofMinor(buf.getLong());
+            LocalDateTime occurredAt = LocalDateTime.ofEpochSecond(buf.getLong(), buf.getInt(), ZoneOffset.UTC);
+            String accountNumber = getString(buf);
+            String description = getString(buf);
+            String ownerName = type == TransactionType.ACCOUNT_CREATED ? getString(buf) : null;
+
+            handler.entry(new Transaction(id, accountNumber, type, amount, before, after, description, occurredAt), ownerName);
+        }
+    }
+
+    // --Helpers
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IllegalArgumentException("Journal string too long");
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buf, byte[] bytes) {
+        buf.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
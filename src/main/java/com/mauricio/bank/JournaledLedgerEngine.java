@@ -0,0 +1,55 @@
+package com.mauricio.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * {@link ConcurrentLedgerEngine} that survives restarts without a database: every operation is
+ * appended to a {@link LedgerJournal} (memory-mapped journal plus periodic balance snapshots) and
+ * {@link #open} recovers the accounts from it.
+ * <p>
+ * Each operation is appended before it changes a balance. After a failed append (e.g. a segment
+ * that could not be rotated) the engine refuses every write with an {@link IllegalStateException}
+ * and only serves reads; reopen it to recover from the journal.
+ */
+public class JournaledLedgerEngine extends ConcurrentLedgerEngine implements Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final long DEFAULT_SNAPSHOT_EVERY = 100_000;
+
+    private final LedgerJournal journal;
+
+    private JournaledLedgerEngine(Path dir, int segmentSize, long snapshotEvery, OffHeapHistory history) throws IOException {
+        super(history);
+        this.journal = LedgerJournal.open(dir, segmentSize, snapshotEvery, this);
+    }
+
+    public static JournaledLedgerEngine open(Path dir) throws IOException {
+        return open(dir, DEFAULT_SEGMENT_SIZE, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    /** {@code snapshotEvery <= 0} only writes snapshots on {@link #snapshot()} and {@link #close()}. */
+    public static JournaledLedgerEngine open(Path dir, int segmentSize, long snapshotEvery) throws IOException {
+        return open(dir, segmentSize, snapshotEvery, null);
+    }
+
+    /** Same as {@link #open(Path, int, long)}, keeping the history in {@code history} ({@code null}: on heap). */
+    public static JournaledLedgerEngine open(Path dir, int segmentSize, long snapshotEvery, OffHeapHistory history) throws IOException {
+        return new JournaledLedgerEngine(dir, segmentSize, snapshotEvery, history);
+    }
+
+    @Override
+    protected void journal(String ownerName, Transaction... entries) {
+        journal.append(ownerName, entries);
+    }
+
+    /** Folds the frames since the latest snapshot into a new one. */
+    public void snapshot() throws IOException {
+        journal.snapshot();
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+}
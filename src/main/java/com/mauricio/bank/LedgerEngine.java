@@ -0,0 +1,22 @@
+package com.mauricio.bank;
+
+import java.util.List;
+
+/**
+ * State behind {@link Bank}: accounts, balances and per-account history.
+ * Inputs arrive already validated and normalized.
+ */
+public interface LedgerEngine {
+
+    Account createAccount(String accountNumber, String ownerName, Money initialBalance);
+
+    Account getAccount(String accountNumber);
+
+    void deposit(String accountNumber, Money amount);
+
+    void withdraw(String accountNumber, Money amount);
+
+    void transfer(String fromAccountNumber, String toAccountNumber, Money amount);
+
+    List<Transaction> getTransactions(String accountNumber);
+}
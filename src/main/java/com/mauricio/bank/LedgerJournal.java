@@ -0,0 +1,231 @@
+package com.mauricio.bank;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Durable state of a {@link ConcurrentLedgerEngine}: a {@link Journal} with one frame per operation
+ * (both entries of a transfer go together, so recovery never sees half a transfer) plus a snapshot
+ * of all balances ({@code snapshot-<seq>.bin}) every {@code snapshotEvery} frames.
+ * <p>
+ * {@link #open} loads the latest valid snapshot and replays only the frames after it into the
+ * engine, so startup time is bounded by the snapshot interval. Older entries stay in the journal
+ * files and are read back for an account the first time its history is requested (one pass over the
+ * segments before the snapshot). Snapshots are folded from the journal, not read from the live
+ * accounts, so they are exact without pausing writers.
+ */
+final class LedgerJournal implements Closeable {
+    private static final Logger log = Logger.getLogger(LedgerJournal.class.getName());
+
+    private static final int SNAPSHOT_MAGIC = 0x424E4B53;
+    private static final int SNAPSHOTS_KEPT = 2;
+
+    private final Path dir;
+    private final Journal journal;
+    private final long snapshotEvery;
+    private final ExecutorService snapshotter;
+
+    private LedgerJournal(Path dir, Journal journal, long snapshotEvery) {
+        this.dir = dir;
+        this.journal = journal;
+        this.snapshotEvery = snapshotEvery;
+        this.snapshotter = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ledger-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Opens the journal in {@code dir} and restores its accounts and history into the empty {@code engine}. */
+    static LedgerJournal open(Path dir, int segmentSize, long snapshotEvery, ConcurrentLedgerEngine engine) throws IOException {
+        Files.createDirectories(dir);
+        LedgerState state = LedgerState.readLatest(dir);
+        long snapshotSeq = state.seq;
+        Set<String> snapshotAccounts = Set.copyOf(state.accounts.keySet());
+        List<Transaction> tail = new ArrayList<>();
+        Journal journal = Journal.open(dir, segmentSize, state.seq, (seq, payload) ->
+                JournalCodec.decode(payload, (entry, ownerName) -> {
+                    state.apply(entry, ownerName);
+                    tail.add(entry);
+                }));
+
+        state.accounts.forEach((number, account) -> engine.restoreAccount(number, account.ownerName, account.balance));
+        tail.forEach(engine::restoreEntry);
+        if (!snapshotAccounts.isEmpty()) {
+            engine.restoreEarlierHistory(n -> snapshotAccounts.contains(n) ? entriesUpTo(journal, snapshotSeq, n) : List.of());
+        }
+        return new LedgerJournal(dir, journal, snapshotEvery);
+    }
+
+    /** Appends the entries of one operation; {@code snapshotEvery <= 0} disables periodic snapshots. */
+    void append(String ownerName, Transaction... entries) {
+        long seq = journal.append(JournalCodec.encode(ownerName, entries));
+        if (snapshotEvery > 0 && seq % snapshotEvery == 0) {
+            snapshotter.execute(this::snapshotQuietly);
+        }
+    }
+
+    /** Flushes appended frames to disk. */
+    void force() {
+        journal.force();
+    }
+
+    /** Folds the frames since the latest snapshot into a new one. */
+    synchronized void snapshot() throws IOException {
+        journal.force();
+
+        LedgerState state = LedgerState.readLatest(dir);
+        long upTo = journal.committedSeq();
+        if (upTo <= state.seq) return;
+
+        journal.replay(state.seq, upTo, (seq, payload) -> JournalCodec.decode(payload, state::apply));
+        state.seq = upTo;
+        state.write(dir);
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshot();
+        journal.close();
+    }
+
+    // --Helpers
+
+    // Recorre el journal hasta el snapshot de la recuperacion: una lectura completa de esos segmentos por cuenta
+    private static List<Transaction> entriesUpTo(Journal journal, long seq, String accountNumber) {
+        List<Transaction> entries = new ArrayList<>();
+        try {
+            journal.replay(0, seq, (s, payload) -> JournalCodec.decode(payload, (entry, ownerName) -> {
+                if (entry.accountNumber().equals(accountNumber)) entries.add(entry);
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the ledger journal", e);
+        }
+        return entries;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Ledger snapshot failed", e);
+        }
+    }
+
+    /** Owner and balance of every account as of journal sequence {@code seq}. */
+    private static final class LedgerState {
+        long seq;
+        final Map<String, AccountState> accounts = new HashMap<>();
+
+        void apply(Transaction entry, String ownerName) {
+            long amount = entry.amount().minorUnits();
+            switch (entry.type()) {
+                case ACCOUNT_CREATED -> accounts.put(entry.accountNumber(), new AccountState(ownerName, amount));
+                case DEPOSIT, TRANSFER_IN -> accounts.get(entry.accountNumber()).balance += amount;
+                case WITHDRAW, TRANSFER_OUT -> accounts.get(entry.accountNumber()).balance -= amount;
+            }
+        }
+
+        static LedgerState readLatest(Path dir) throws IOException {
+            List<Path> snapshots = snapshots(dir);
+            for (int i = snapshots.size() - 1; i >= 0; i--) {
+                Path path = snapshots.get(i);
+                LedgerState state = read(path);
+                if (state != null) return state;
+                log.warning(() -> "Ignoring invalid snapshot " + path);
+            }
+            return new LedgerState();
+        }
+
+        void write(Path dir) throws IOException {
+            Path tmp = dir.resolve("snapshot.tmp");
+            CRC32C crc = new CRC32C();
+            try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(seq);
+                out.writeInt(accounts.size());
+                for (Map.Entry<String, AccountState> e : accounts.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeUTF(e.getValue().ownerName);
+                    out.writeLong(e.getValue().balance);
+                }
+                out.flush();
+                // El CRC no se incluye a si mismo: se escribe directo al archivo
+                new DataOutputStream(file).writeInt((int) crc.getValue());
+                file.getFD().sync();
+            }
+            Files.move(tmp, dir.resolve(String.format("snapshot-%020d.bin", seq)), StandardCopyOption.ATOMIC_MOVE);
+
+            List<Path> snapshots = snapshots(dir);
+            for (int i = 0; i < snapshots.size() - SNAPSHOTS_KEPT; i++) {
+                Files.deleteIfExists(snapshots.get(i));
+            }
+        }
+
+        private static LedgerState read(Path path) throws IOException {
+            byte[] bytes = Files.readAllBytes(path);
+            if (bytes.length < 20) return null;
+
+            CRC32C crc = new CRC32C();
+            crc.update(bytes, 0, bytes.length - 4);
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            if ((int) crc.getValue() != buf.getInt(bytes.length - 4) || buf.getInt(0) != SNAPSHOT_MAGIC) return null;
+
+            LedgerState state = new LedgerState();
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 4, bytes.length - 8))) {
+                state.seq = in.readLong();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String number = in.readUTF();
+                    String owner = in.readUTF();
+                    state.accounts.put(number, new AccountState(owner, in.readLong()));
+                }
+            }
+            return state;
+        }
+
+        private static List<Path> snapshots(Path dir) throws IOException {
+            try (Stream<Path> files = Files.list(dir)) {
+                return files.filter(p -> {
+                            String name = p.getFileName().toString();
+                            return name.startsWith("snapshot-") && name.endsWith(".bin");
+                        })
+                        .sorted()
+                        .toList();
+            }
+        }
+    }
+
+    private static final class AccountState {
+        final String ownerName;
+        long balance;
+
+        AccountState(String ownerName, long balance) {
+            this.ownerName = ownerName;
+            this.balance = balance;
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.mauricio.bank;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.nio.file.Path;
 
 public class Main {
-    public static void main(String[] args) {
-        Bank bank = new Bank();
-        ConsoleApp app = new ConsoleApp(bank);
-        app.run();
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            new ConsoleApp(new Bank()).run();
+            return;
+        }
+
+        // Con un directorio de datos el estado sobrevive reinicios (journal + snapshots)
+        try (JournaledLedgerEngine engine = JournaledLedgerEngine.open(Path.of(args[0]))) {
+            new ConsoleApp(new Bank(engine)).run();
+        }
     }
 }
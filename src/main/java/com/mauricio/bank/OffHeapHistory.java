@@ -0,0 +1,232 @@
+package com.mauricio.bank;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Transaction history kept outside the Java heap, for engines with tens of millions of entries.
+ * <p>
+ * Entries are written into direct {@link ByteBuffer} slabs. Each account owns a list of chunks
+ * carved from the slabs (8, 16, 32 ... 4096 entries, then 4096 each), and every chunk is columnar
+ * and fixed-width: uuid, amount, balances, timestamp, description id and type, one column each.
+ * Descriptions are interned (they repeat: "Deposit", "Transfer to 001"...), so the heap only holds
+ * a small chunk index per account plus the distinct descriptions.
+ * <p>
+ * {@code getTransactions} returns a lazy view that decodes a {@link Transaction} on each
+ * {@code get}. Memory is never released (history is append-only) and is bounded by
+ * {@code -XX:MaxDirectMemorySize}.
+ */
+public final class OffHeapHistory {
+    public static final int DEFAULT_SLAB_SIZE = 16 * 1024 * 1024;
+
+    // Columnas de un chunk: la columna empieza en base + COL * capacidad
+    private static final int MSB = 0;
+    private static final int LSB = 8;
+    private static final int AMOUNT = 16;
+    private static final int BEFORE = 24;
+    private static final int AFTER = 32;
+    private static final int EPOCH = 40;
+    private static final int NANO = 48;
+    private static final int DESCRIPTION = 52;
+    private static final int TYPE = 56;
+    static final int ROW_WIDTH = 57;
+
+    private static final int FIRST_CHUNK = 8;
+    private static final int GROWING_CHUNKS = 10;
+    private static final int MAX_CHUNK = FIRST_CHUNK << (GROWING_CHUNKS - 1);
+    private static final int GROWN_ENTRIES = FIRST_CHUNK * ((1 << GROWING_CHUNKS) - 1);
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final int slabSize;
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+    private int slabUsed;
+    private long allocatedBytes;
+
+    private final ConcurrentMap<String, Integer> descriptionIds = new ConcurrentHashMap<>();
+    private volatile String[] descriptions = new String[64];
+    private int descriptionCount;
+
+    public OffHeapHistory() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    public OffHeapHistory(int slabSize) {
+        if (slabSize < MAX_CHUNK * ROW_WIDTH) {
+            throw new IllegalArgumentException("slabSize must be >= " + MAX_CHUNK * ROW_WIDTH);
+        }
+        this.slabSize = slabSize;
+    }
+
+    /** Direct memory reserved by the slabs. */
+    public synchronized long reservedBytes() {
+        return (long) slabs.length * slabSize;
+    }
+
+    /** Direct memory handed out to account chunks. */
+    public synchronized long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    TransactionLog newLog(String accountNumber) {
+        return new Log(accountNumber);
+    }
+
+    // --Helpers
+
+    // Bloque de chunk k: capacidad y primer indice de entrada que contiene
+    static int chunkOf(int index) {
+        if (index < GROWN_ENTRIES) {
+            return 31 - Integer.numberOfLeadingZeros(index / FIRST_CHUNK + 1);
+        }
+        return GROWING_CHUNKS + (index - GROWN_ENTRIES) / MAX_CHUNK;
+    }
+
+    static int chunkStart(int chunk) {
+        if (chunk < GROWING_CHUNKS) {
+            return FIRST_CHUNK * ((1 << chunk) - 1);
+        }
+        return GROWN_ENTRIES + (chunk - GROWING_CHUNKS) * MAX_CHUNK;
+    }
+
+    static int chunkCapacity(int chunk) {
+        return chunk < GROWING_CHUNKS ? FIRST_CHUNK << chunk : MAX_CHUNK;
+    }
+
+    /** Returns a handle: slab index in the high 32 bits, byte offset in the low 32. */
+    private synchronized long allocate(int bytes) {
+        ByteBuffer[] current = slabs;
+        if (current.length == 0 || slabUsed + bytes > slabSize) {
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = ByteBuffer.allocateDirect(slabSize);
+            slabs = current;
+            slabUsed = 0;
+        }
+
+        long handle = ((long) (current.length - 1) << 32) | slabUsed;
+        slabUsed += bytes;
+        allocatedBytes += bytes;
+        return handle;
+    }
+
+    private int descriptionId(String description) {
+        Integer id = descriptionIds.get(description);
+        return id != null ? id : internDescription(description);
+    }
+
+    private synchronized int internDescription(String description) {
+        Integer id = descriptionIds.get(description);
+        if (id != null) return id;
+
+        String[] current = descriptions;
+        if (descriptionCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[descriptionCount] = description;
+        // Se publica el arreglo antes que el id: quien lee el id ya ve la descripcion
+        descriptions = current;
+        descriptionIds.put(description, descriptionCount);
+        return descriptionCount++;
+    }
+
+    private final class Log implements TransactionLog {
+        private final String accountNumber;
+        private volatile long[] chunks = new long[4];
+        private int chunkCount;
+        private volatile int size;
+
+        Log(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+
+        @Override
+        public synchronized void append(Transaction tx) {
+            int n = size;
+            int chunk = chunkOf(n);
+            int capacity = chunkCapacity(chunk);
+
+            long[] current = chunks;
+            if (chunk == chunkCount) {
+                if (chunkCount == current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                }
+                current[chunkCount++] = allocate(capacity * ROW_WIDTH);
+                chunks = current;
+            }
+
+            long handle = current[chunk];
+            ByteBuffer slab = slabs[(int) (handle >>> 32)];
+            int base = (int) handle;
+            int row = n - chunkStart(chunk);
+
+            slab.putLong(base + MSB * capacity + 8 * row, tx.id().getMostSignificantBits());
+            slab.putLong(base + LSB * capacity + 8 * row, tx.id().getLeastSignificantBits());
+            slab.putLong(base + AMOUNT * capacity + 8 * row, tx.amount().minorUnits());
+            slab.putLong(base + BEFORE * capacity + 8 * row, tx.balanceBefore().minorUnits());
+            slab.putLong(base + AFTER * capacity + 8 * row, tx.balanceAfter().minorUnits());
+            slab.putLong(base + EPOCH * capacity + 8 * row, tx.occurredAt().toEpochSecond(ZoneOffset.UTC));
+            slab.putInt(base + NANO * capacity + 4 * row, tx.occurredAt().getNano());
+            slab.putInt(base + DESCRIPTION * capacity + 4 * row, descriptionId(tx.description()));
+            slab.put(base + TYPE * capacity + row, (byte) tx.type().ordinal());
+
+            size = n + 1;
+        }
+
+        @Override
+        public List<Transaction> view() {
+            int n = size;
+            return new View(accountNumber, chunks, n);
+        }
+    }
+
+    private final class View extends AbstractList<Transaction> implements RandomAccess {
+        private final String accountNumber;
+        private final long[] chunks;
+        private final int size;
+
+        View(String accountNumber, long[] chunks, int size) {
+            this.accountNumber = accountNumber;
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+
+            int chunk = chunkOf(index);
+            int capacity = chunkCapacity(chunk);
+            long handle = chunks[chunk];
+            ByteBuffer slab = slabs[(int) (handle >>> 32)];
+            int base = (int) handle;
+            int row = index - chunkStart(chunk);
+
+            return new Transaction(
+                    new UUID(slab.getLong(base + MSB * capacity + 8 * row),
+                             slab.getLong(base + LSB * capacity + 8 * row)),
+                    accountNumber,
+                    TYPES[slab.get(base + TYPE * capacity + row)],
+                    Money.ofMinor(slab.getLong(base + AMOUNT * capacity + 8 * row)),
+                    Money.ofMinor(slab.getLong(base + BEFORE * capacity + 8 * row)),
+                    Money.ofMinor(slab.getLong(base + AFTER * capacity + 8 * row)),
+                    descriptions[slab.getInt(base + DESCRIPTION * capacity + 4 * row)],
+                    LocalDateTime.ofEpochSecond(slab.getLong(base + EPOCH * capacity + 8 * row),
+                                                slab.getInt(base + NANO * capacity + 4 * row),
+                                                ZoneOffset.UTC)
+            );
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
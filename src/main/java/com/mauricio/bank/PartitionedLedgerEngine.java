@@ -0,0 +1,278 @@
+package com.mauricio.bank;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Actor-style engine: account numbers are hashed onto a fixed set of partitions and each partition
+ * owns its accounts and a single-threaded executor that runs their commands in submission order.
+ * Only that thread changes a partition's balances and history, so same-partition work never waits
+ * on a lock or retries a CAS.
+ * <p>
+ * A transfer inside one partition is one command. Across partitions it is a two-phase protocol
+ * driven by messages, never by one partition waiting on another:
+ * <ol>
+ *   <li>prepare on the destination: the account must exist (accounts are never removed, so the
+ *       vote cannot change);</li>
+ *   <li>reserve on the source: the funds are checked and debited and {@code TRANSFER_OUT} is
+ *       appended; insufficient funds abort the transfer here, before anything was credited;</li>
+ *   <li>commit on the destination: credit and {@code TRANSFER_IN}. If it fails (overflow) the
+ *       source is credited back with a {@code TRANSFER_REVERSAL} and the transfer fails.</li>
+ * </ol>
+ * Between reserve and commit the amount is in neither account. The protocol's messages are
+ * delivered even after {@link #close()}, which waits for the transfers in flight. Reads
+ * ({@code getAccount}, {@code getTransactions}) do not go through the executors.
+ * <p>
+ * Callers block on the command's future, which parks virtual threads instead of pinning them; pass
+ * {@code Thread.ofVirtual().factory()} to run the partitions themselves on virtual threads.
+ */
+public class PartitionedLedgerEngine implements LedgerEngine, Closeable {
+
+    private final Partition[] partitions;
+    private final Function<String, TransactionLog> newLog;
+    private volatile boolean closed;
+    // Transferencias entre particiones sin terminar; close() las espera
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public PartitionedLedgerEngine(int partitions) {
+        this(partitions, daemonThreads(), null);
+    }
+
+    /** {@code history == null} keeps the history on heap. */
+    public PartitionedLedgerEngine(int partitions, ThreadFactory threads, OffHeapHistory history) {
+        if (partitions < 1) throw new IllegalArgumentException("partitions must be > 0");
+        this.partitions = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new Partition(Executors.newSingleThreadExecutor(threads));
+        }
+        this.newLog = history == null ? n -> new HeapTransactionLog() : history::newLog;
+    }
+
+    public int partitions() {
+        return partitions.length;
+    }
+
+    public int partitionOf(String accountNumber) {
+        // Mezcla los bits altos: numeros de cuenta consecutivos no caen en particiones consecutivas
+        int h = accountNumber.hashCode();
+        h ^= h >>> 16;
+        return Math.floorMod(h * 0x9E3779B9, partitions.length);
+    }
+
+    @Override
+    public Account createAccount(String accountNumber, String ownerName, Money initialBalance) {
+        Partition p = partitionFor(accountNumber);
+        return await(p.submit(() -> {
+            if (p.accounts.containsKey(accountNumber)) {
+                throw new IllegalArgumentException("Account already exists: " + accountNumber);
+            }
+            Account account = new Account(accountNumber, ownerName, initialBalance);
+            TransactionLog log = newLog.apply(accountNumber);
+            log.append(ConcurrentLedgerEngine.entry(accountNumber, TransactionType.ACCOUNT_CREATED,
+                    initialBalance.minorUnits(), 0, initialBalance.minorUnits(), "Account created"));
+            p.logs.put(accountNumber, log);
+            // Se publica al final, como en ConcurrentLedgerEngine
+            p.accounts.put(accountNumber, account);
+            return account;
+        }));
+    }
+
+    @Override
+    public Account getAccount(String accountNumber) {
+        return partitionFor(accountNumber).account(accountNumber);
+    }
+
+    @Override
+    public void deposit(String accountNumber, Money amount) {
+        await(depositAsync(accountNumber, amount));
+    }
+
+    @Override
+    public void withdraw(String accountNumber, Money amount) {
+        await(withdrawAsync(accountNumber, amount));
+    }
+
+    @Override
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount) {
+        await(transferAsync(fromAccountNumber, toAccountNumber, amount));
+    }
+
+    public CompletableFuture<Void> depositAsync(String accountNumber, Money amount) {
+        Partition p = partitionFor(accountNumber);
+        return p.submit(() -> {
+            p.credit(accountNumber, amount.minorUnits(), TransactionType.DEPOSIT, "Deposit");
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> withdrawAsync(String accountNumber, Money amount) {
+        Partition p = partitionFor(accountNumber);
+        return p.submit(() -> {
+            p.debit(accountNumber, amount.minorUnits(), TransactionType.WITHDRAW, "Withdraw");
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> transferAsync(String fromAccountNumber, String toAccountNumber, Money amount) {
+        Partition from = partitionFor(fromAccountNumber);
+        Partition to = partitionFor(toAccountNumber);
+        long minor = amount.minorUnits();
+
+        if (from == to) {
+            return from.submit(() -> {
+                // Un solo hilo toca ambas cuentas: si el credito desborda, se falla antes de debitar
+                Math.addExact(from.account(toAccountNumber).getBalance().minorUnits(), minor);
+                from.debit(fromAccountNumber, minor, TransactionType.TRANSFER_OUT, "Transfer to " + toAccountNumber);
+                from.credit(toAccountNumber, minor, TransactionType.TRANSFER_IN, "Transfer from " + fromAccountNumber);
+                return null;
+            });
+        }
+
+        beginTransfer();
+        CompletableFuture<Void> transfer;
+        try {
+            transfer = to.send(() -> {
+                        to.account(toAccountNumber);
+                        return null;
+                    })
+                    .thenCompose(prepared -> from.send(() -> {
+                        from.debit(fromAccountNumber, minor, TransactionType.TRANSFER_OUT, "Transfer to " + toAccountNumber);
+                        return null;
+                    }))
+                    .thenCompose(reserved -> to.<Void>send(() -> {
+                        to.credit(toAccountNumber, minor, TransactionType.TRANSFER_IN, "Transfer from " + fromAccountNumber);
+                        return null;
+                    }).exceptionallyCompose(failed -> from.<Void>send(() -> {
+                        from.credit(fromAccountNumber, minor, TransactionType.TRANSFER_REVERSAL, "Reversal of transfer to " + toAccountNumber);
+                        return null;
+                    }).thenCompose(reversed -> CompletableFuture.failedFuture(failed))));
+        } catch (RuntimeException e) {
+            endTransfer();
+            throw e;
+        }
+        return transfer.whenComplete((done, error) -> endTransfer());
+    }
+
+    @Override
+    public List<Transaction> getTransactions(String accountNumber) {
+        Partition p = partitionFor(accountNumber);
+        p.account(accountNumber);
+        return p.logs.get(accountNumber).view();
+    }
+
+    /** Rejects new commands, finishes the transfers in flight and the commands already submitted, then stops the partition threads. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        synchronized (inFlight) {
+            try {
+                while (inFlight.get() > 0) inFlight.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Partition p : partitions) {
+            p.executor.shutdown();
+        }
+        try {
+            for (Partition p : partitions) {
+                p.executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --Helpers
+
+    private final class Partition {
+        final ExecutorService executor;
+        // Solo el hilo de la particion escribe; cualquiera lee
+        final ConcurrentMap<String, Account> accounts = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, TransactionLog> logs = new ConcurrentHashMap<>();
+
+        Partition(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<T> command) {
+            if (closed) throw new IllegalStateException("Ledger engine is closed");
+            return send(command);
+        }
+
+        // Mensajes del protocolo de transferencia: no miran closed, close() espera a que terminen
+        <T> CompletableFuture<T> send(Supplier<T> command) {
+            try {
+                return CompletableFuture.supplyAsync(command, executor);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Ledger engine is closed"));
+            }
+        }
+
+        Account account(String accountNumber) {
+            Account account = accounts.get(accountNumber);
+            if (account == null) {
+                throw new IllegalArgumentException("Account not found: " + accountNumber);
+            }
+            return account;
+        }
+
+        void credit(String accountNumber, long minor, TransactionType type, String description) {
+            long before = account(accountNumber).credit(minor);
+            logs.get(accountNumber).append(ConcurrentLedgerEngine.entry(accountNumber, type, minor, before, before + minor, description));
+        }
+
+        void debit(String accountNumber, long minor, TransactionType type, String description) {
+            long before = account(accountNumber).debit(minor);
+            logs.get(accountNumber).append(ConcurrentLedgerEngine.entry(accountNumber, type, minor, before, before - minor, description));
+        }
+    }
+
+    private void beginTransfer() {
+        inFlight.incrementAndGet();
+        if (closed) {
+            endTransfer();
+            throw new IllegalStateException("Ledger engine is closed");
+        }
+    }
+
+    private void endTransfer() {
+        if (inFlight.decrementAndGet() == 0 && closed) {
+            synchronized (inFlight) {
+                inFlight.notifyAll();
+            }
+        }
+    }
+
+    private Partition partitionFor(String accountNumber) {
+        return partitions[partitionOf(accountNumber)];
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger next = new AtomicInteger();
+        return r -> Thread.ofPlatform().name("ledger-partition-" + next.getAndIncrement()).daemon().unstarted(r);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
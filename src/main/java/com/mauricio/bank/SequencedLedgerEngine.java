@@ -0,0 +1,330 @@
+package com.mauricio.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer engine in the LMAX Disruptor style. Callers claim a slot of a pre-allocated ring
+ * buffer, fill in the command and publish it; one business-logic thread drains the published
+ * slots in sequence order and applies them with the {@link ConcurrentLedgerEngine} rules in
+ * single-writer mode (no account locks), so balance updates never contend and a transfer is applied
+ * as one step.
+ * <p>
+ * The thread takes every slot published so far as a batch. With a journal ({@link #open}) the
+ * batch is forced to disk once, before any of its futures completes (group commit): a completed
+ * command is durable. If journaling or the sync fails the engine stops accepting writes, like
+ * {@link ConcurrentLedgerEngine}, and the commands of that batch fail. If the thread itself dies (an
+ * {@link Error} while applying or syncing) every pending command fails and the ring is closed. Reads
+ * ({@code getAccount}, {@code getTransactions}) do not go through the ring.
+ * <p>
+ * Claiming a slot and closing are one CAS on the claim counter: {@code STOP} is the last slot ever
+ * claimed, so no command is left behind it.
+ * <p>
+ * The {@code *Async} methods return the command's future; it completes on the business thread, so
+ * callbacks attached to it should not block.
+ */
+public class SequencedLedgerEngine extends ConcurrentLedgerEngine implements Closeable {
+    public static final int DEFAULT_RING_SIZE = 8192;
+
+    private static final int SPINS = 200;
+    // Bit del contador de claims: el ring esta cerrado y no se reservan mas slots
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private enum Op { CREATE, DEPOSIT, WITHDRAW, TRANSFER, STOP }
+
+    private static final class Slot {
+        volatile long sequence = -1;
+        Op op;
+        String accountNumber;
+        String otherAccountNumber;
+        String ownerName;
+        Money amount;
+        CompletableFuture<Object> future;
+    }
+
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long processed = -1;
+
+    private final Thread worker;
+    private volatile boolean sleeping;
+    // Futuro del slot STOP; tambien se completa si el hilo de negocio muere
+    private final CompletableFuture<Object> stopped = new CompletableFuture<>();
+    private final AtomicBoolean journalClosed = new AtomicBoolean();
+    private volatile Throwable failure;
+    private LedgerJournal journal;
+
+    // Resultados del batch en curso: solo los toca el hilo de negocio
+    private final CompletableFuture<Object>[] batchFutures;
+    private final Object[] batchResults;
+    private final RuntimeException[] batchErrors;
+
+    public SequencedLedgerEngine() {
+        this(DEFAULT_RING_SIZE, null);
+    }
+
+    /** {@code ringSize} must be a power of two; {@code history == null} keeps the history on heap. */
+    public SequencedLedgerEngine(int ringSize, OffHeapHistory history) {
+        this(ringSize, history, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private SequencedLedgerEngine(int ringSize, OffHeapHistory history, boolean start) {
+        super(history, null, true);
+        if (ringSize < 2 || Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("ringSize must be a power of two: " + ringSize);
+        }
+
+        this.ring = new Slot[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new Slot();
+        }
+        this.mask = ringSize - 1;
+        this.batchFutures = new CompletableFuture[ringSize];
+        this.batchResults = new Object[ringSize];
+        this.batchErrors = new RuntimeException[ringSize];
+
+        this.worker = new Thread(this::run, "ledger-sequencer");
+        this.worker.setDaemon(true);
+        if (start) worker.start();
+    }
+
+    /** Durable variant: recovers from and journals to {@code dir} like {@link JournaledLedgerEngine}. */
+    public static SequencedLedgerEngine open(Path dir, int ringSize, OffHeapHistory history) throws IOException {
+        SequencedLedgerEngine engine = new SequencedLedgerEngine(ringSize, history, false);
+        engine.journal = LedgerJournal.open(dir, JournaledLedgerEngine.DEFAULT_SEGMENT_SIZE,
+                                            JournaledLedgerEngine.DEFAULT_SNAPSHOT_EVERY, engine);
+        engine.worker.start();
+        return engine;
+    }
+
+    @Override
+    public Account createAccount(String accountNumber, String ownerName, Money initialBalance) {
+        return (Account) await(publish(Op.CREATE, accountNumber, null, ownerName, initialBalance));
+    }
+
+    @Override
+    public void deposit(String accountNumber, Money amount) {
+        await(depositAsync(accountNumber, amount));
+    }
+
+    @Override
+    public void withdraw(String accountNumber, Money amount) {
+        await(withdrawAsync(accountNumber, amount));
+    }
+
+    @Override
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount) {
+        await(transferAsync(fromAccountNumber, toAccountNumber, amount));
+    }
+
+    public CompletableFuture<?> depositAsync(String accountNumber, Money amount) {
+        return publish(Op.DEPOSIT, accountNumber, null, null, amount);
+    }
+
+    public CompletableFuture<?> withdrawAsync(String accountNumber, Money amount) {
+        return publish(Op.WITHDRAW, accountNumber, null, null, amount);
+    }
+
+    public CompletableFuture<?> transferAsync(String fromAccountNumber, String toAccountNumber, Money amount) {
+        return publish(Op.TRANSFER, fromAccountNumber, toAccountNumber, null, amount);
+    }
+
+    @Override
+    protected void journal(String ownerName, Transaction... entries) {
+        if (journal != null) {
+            journal.append(ownerName, entries);
+        }
+    }
+
+    /** Applies the commands already published, then stops the business thread. Call once callers are done. */
+    @Override
+    public void close() throws IOException {
+        long seq = claim(true);
+        if (seq >= 0) {
+            publish(seq, Op.STOP, null, null, null, null, stopped);
+        }
+        // Si otro close() o una falla del hilo de negocio cerro el ring, se espera al mismo final
+        stopped.handle((result, error) -> null).join();
+        if (journal != null && journalClosed.compareAndSet(false, true)) {
+            journal.close();
+        }
+    }
+
+    // --Helpers
+
+    private CompletableFuture<Object> publish(Op op, String accountNumber, String otherAccountNumber, String ownerName, Money amount) {
+        long seq = claim(false);
+        if (seq < 0) {
+            Throwable cause = failure;
+            throw cause == null ? new IllegalStateException("Ledger engine is closed")
+                                : new IllegalStateException("Ledger sequencer failed", cause);
+        }
+        return publish(seq, op, accountNumber, otherAccountNumber, ownerName, amount, new CompletableFuture<>());
+    }
+
+    /** Next sequence, or -1 once the ring is closed. {@code close} marks it closed in the same CAS. */
+    private long claim(boolean close) {
+        while (true) {
+            long current = claimed.get();
+            if ((current & CLOSED) != 0) return -1;
+            if (claimed.compareAndSet(current, close ? (current + 1) | CLOSED : current + 1)) return current;
+        }
+    }
+
+    private CompletableFuture<Object> publish(long seq, Op op, String accountNumber, String otherAccountNumber, String ownerName,
+                                              Money amount, CompletableFuture<Object> future) {
+        Slot slot = ring[(int) seq & mask];
+
+        // El slot sigue ocupado hasta que el hilo de negocio procese la vuelta anterior
+        for (int spins = 0; seq - ring.length > processed; spins++) {
+            if (spins < SPINS) Thread.onSpinWait();
+            else Thread.yield();
+        }
+
+        slot.op = op;
+        slot.accountNumber = accountNumber;
+        slot.otherAccountNumber = otherAccountNumber;
+        slot.ownerName = ownerName;
+        slot.amount = amount;
+        slot.future = future;
+        slot.sequence = seq;
+
+        if (sleeping) LockSupport.unpark(worker);
+        return future;
+    }
+
+    private void run() {
+        try {
+            drain();
+        } catch (Throwable t) {
+            failOutstanding(t);
+            throw t;
+        }
+    }
+
+    // Vuelve al procesar STOP
+    private void drain() {
+        long next = 0;
+        int idle = 0;
+
+        while (true) {
+            if (ring[(int) next & mask].sequence != next) {
+                if (++idle < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    sleeping = true;
+                    if (ring[(int) next & mask].sequence != next) LockSupport.park(this);
+                    sleeping = false;
+                    idle = 0;
+                }
+                continue;
+            }
+            idle = 0;
+
+            // Batch: todos los slots publicados de forma contigua
+            long end = next;
+            while (end - next + 1 < ring.length && ring[(int) (end + 1) & mask].sequence == end + 1) {
+                end++;
+            }
+
+            int count = (int) (end - next + 1);
+            boolean stop = false;
+            for (int i = 0; i < count; i++) {
+                Slot slot = ring[(int) (next + i) & mask];
+                batchFutures[i] = slot.future;
+                if (slot.op == Op.STOP) {
+                    stop = true;
+                } else {
+                    apply(slot, i);
+                }
+                slot.accountNumber = null;
+                slot.otherAccountNumber = null;
+                slot.ownerName = null;
+                slot.amount = null;
+                slot.future = null;
+            }
+
+            RuntimeException syncError = null;
+            if (journal != null) {
+                try {
+                    journal.force();
+                } catch (RuntimeException e) {
+                    // El batch ya esta en memoria y quiza no en disco: no se aceptan mas escrituras
+                    syncError = e;
+                    journalFailed(e);
+                }
+            }
+
+            processed = end;
+            for (int i = 0; i < count; i++) {
+                RuntimeException error = syncError != null ? syncError : batchErrors[i];
+                if (error != null) batchFutures[i].completeExceptionally(error);
+                else batchFutures[i].complete(batchResults[i]);
+
+                batchFutures[i] = null;
+                batchResults[i] = null;
+                batchErrors[i] = null;
+            }
+
+            next = end + 1;
+            if (stop) return;
+        }
+    }
+
+    // El hilo de negocio muere (p. ej. un Error): se cierra el ring y fallan todos los comandos sin resultado,
+    // los del batch en curso y los reservados despues, en vez de dejarlos esperando para siempre
+    private void failOutstanding(Throwable cause) {
+        failure = cause;
+        IllegalStateException error = new IllegalStateException("Ledger sequencer failed", cause);
+        for (int i = 0; i < batchFutures.length; i++) {
+            if (batchFutures[i] != null) batchFutures[i].completeExceptionally(error);
+            batchFutures[i] = null;
+        }
+
+        long end = claimed.getAndUpdate(current -> current | CLOSED) & ~CLOSED;
+        for (long seq = processed + 1; seq < end; seq++) {
+            Slot slot = ring[(int) seq & mask];
+            // El publicador puede estar todavia llenando el slot
+            while (slot.sequence != seq) Thread.onSpinWait();
+            if (slot.future != null) slot.future.completeExceptionally(error);
+            slot.accountNumber = null;
+            slot.otherAccountNumber = null;
+            slot.ownerName = null;
+            slot.amount = null;
+            slot.future = null;
+            processed = seq;
+        }
+        stopped.completeExceptionally(error);
+    }
+
+    private void apply(Slot slot, int i) {
+        try {
+            switch (slot.op) {
+                case CREATE -> batchResults[i] = super.createAccount(slot.accountNumber, slot.ownerName, slot.amount);
+                case DEPOSIT -> super.deposit(slot.accountNumber, slot.amount);
+                case WITHDRAW -> super.withdraw(slot.accountNumber, slot.amount);
+                case TRANSFER -> super.transfer(slot.accountNumber, slot.otherAccountNumber, slot.amount);
+                case STOP -> { }
+            }
+        } catch (RuntimeException e) {
+            batchErrors[i] = e;
+        }
+    }
+
+    private static Object await(CompletableFuture<?> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
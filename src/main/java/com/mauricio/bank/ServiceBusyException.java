@@ -0,0 +1,7 @@
+package com.mauricio.bank;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
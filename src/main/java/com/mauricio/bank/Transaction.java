@@ -1,6 +1,5 @@
 package com.mauricio.bank;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -8,9 +7,9 @@ public record Transaction(
                           UUID id,
                           String accountNumber,
                           TransactionType type,
-                          BigDecimal amount,
-                          BigDecimal balanceBefore,
-                          BigDecimal balanceAfter,
+                          Money amount,
+                          Money balanceBefore,
+                          Money balanceAfter,
                           String description,
                           LocalDateTime occurredAt
 ) {}
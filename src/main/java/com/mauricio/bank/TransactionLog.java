@@ -0,0 +1,12 @@
+package com.mauricio.bank;
+
+import java.util.List;
+
+/** Append-only history of one account. */
+interface TransactionLog {
+
+    void append(Transaction tx);
+
+    /** Entries published so far; later appends do not show up in the returned list. */
+    List<Transaction> view();
+}
@@ -5,5 +5,7 @@ public enum TransactionType {
     DEPOSIT,
     WITHDRAW,
     TRANSFER_IN,
-    TRANSFER_OUT
+    TRANSFER_OUT,
+    // Devuelve un TRANSFER_OUT cuyo credito no pudo aplicarse en otro shard
+    TRANSFER_REVERSAL
 }
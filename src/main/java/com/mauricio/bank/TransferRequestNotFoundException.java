@@ -0,0 +1,9 @@
+package com.mauricio.bank;
+
+import java.util.UUID;
+
+public class TransferRequestNotFoundException extends RuntimeException {
+    public TransferRequestNotFoundException(UUID id) {
+        super("Transfer request not found: " + id);
+    }
+}
@@ -0,0 +1,75 @@
+package com.mauricio.bank.api;
+
+import com.mauricio.bank.Bank;
+import com.mauricio.bank.ContentionTracker;
+import com.mauricio.bank.api.dto.ContentionResponse;
+import com.mauricio.bank.service.BalanceCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+    private final BalanceCache balanceCache;
+    private final ContentionTracker dbContention;
+    private final ContentionTracker ledgerContention;
+
+    public AdminController(BalanceCache balanceCache, ContentionTracker contentionTracker, Bank bank) {
+        this.balanceCache = balanceCache;
+        this.dbContention = contentionTracker;
+        this.ledgerContention = bank.contention();
+    }
+
+    @GetMapping("/balance-cache")
+    public Map<String, Object> balanceCache() {
+        var stats = balanceCache.stats();
+        return Map.of(
+                "size", balanceCache.estimatedSize(),
+                "hits", stats.hitCount(),
+                "misses", stats.missCount(),
+                "hitRate", stats.hitRate(),
+                "evictions", stats.evictionCount(),
+                "loadFailures", stats.loadFailureCount()
+        );
+    }
+
+    /** Most contended accounts: {@code source=database} (row locks) or {@code ledger} (in-memory Bank). */
+    @GetMapping("/contention")
+    public ContentionResponse contention(@RequestParam(defaultValue = "database") String source,
+                                         @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > 1000) {
+            throw new IllegalArgumentException("limit must be between 1 and 1000");
+        }
+        ContentionTracker tracker = tracker(source);
+        List<ContentionResponse.Hotspot> top = tracker.top(limit).stream()
+                .map(h -> new ContentionResponse.Hotspot(h.accountNumber(), h.events(), h.error(),
+                                                         millis(h.totalWait()), millis(h.maxWait())))
+                .toList();
+        return new ContentionResponse(source, tracker.since(), tracker.events(), tracker.capacity(), top);
+    }
+
+    @DeleteMapping("/contention")
+    public ResponseEntity<Void> resetContention(@RequestParam(defaultValue = "database") String source) {
+        tracker(source).reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    private ContentionTracker tracker(String source) {
+        return switch (source) {
+            case "database" -> dbContention;
+            case "ledger" -> {
+                if (ledgerContention == null) throw new IllegalArgumentException("Ledger engine does not track contention");
+                yield ledgerContention;
+            }
+            default -> throw new IllegalArgumentException("source must be database or ledger");
+        };
+    }
+
+    private static double millis(Duration d) {
+        return d.toNanos() / 1_000_000.0;
+    }
+}
@@ -2,6 +2,9 @@ package com.mauricio.bank.api;
 
 import com.mauricio.bank.InsufficientFundsException;
 import com.mauricio.bank.AccountNotFoundException;
+import com.mauricio.bank.IdempotencyKeyReusedException;
+import com.mauricio.bank.ServiceBusyException;
+import com.mauricio.bank.TransferRequestNotFoundException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -21,6 +24,15 @@ public class ApiExceptionHandler {
         );
     }
 
+    @ExceptionHandler(TransferRequestNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public Map<String, Object> transferRequestNotFound(TransferRequestNotFoundException ex) {
+        return Map.of(
+                "error", ex.getMessage(),
+                "timestamp", LocalDateTime.now()
+        );
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, Object> badRequest(IllegalArgumentException ex) {
@@ -39,6 +51,24 @@ public class ApiExceptionHandler {
         );
     }
 
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, Object> idempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        return Map.of(
+                "error", ex.getMessage(),
+                "timestamp", LocalDateTime.now()
+        );
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, Object> serviceBusy(ServiceBusyException ex) {
+        return Map.of(
+                "error", ex.getMessage(),
+                "timestamp", LocalDateTime.now()
+        );
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, Object> validationError(MethodArgumentNotValidException ex){
@@ -1,32 +1,73 @@
 package com.mauricio.bank.api;
 
+import com.mauricio.bank.Money;
 import com.mauricio.bank.api.dto.*;
 import com.mauricio.bank.persistence.AccountEntity;
+import com.mauricio.bank.persistence.AccountSnapshot;
 import com.mauricio.bank.persistence.TransactionEntity;
+import com.mauricio.bank.persistence.TransferRequestEntity;
+import com.mauricio.bank.service.AsyncTransferService;
+import com.mauricio.bank.service.BalanceAt;
+import com.mauricio.bank.service.BalanceSnapshotService;
+import com.mauricio.bank.service.BalanceUpdateCoalescer;
 import com.mauricio.bank.service.BankService;
+import com.mauricio.bank.service.HistoryCursor;
+import com.mauricio.bank.service.Statement;
+import com.mauricio.bank.service.StatementService;
+import com.mauricio.bank.service.TransactionExportService;
+import com.mauricio.bank.service.TransferCommand;
+import com.mauricio.bank.service.TransferResult;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.validation.Valid;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.domain.Sort;
 
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api")
 public class BankController {
-    private final BankService bankService;
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
 
-    public BankController(BankService bankService) {
+    private final BankService bankService;
+    private final BalanceUpdateCoalescer balanceUpdates;
+    private final AsyncTransferService asyncTransfers;
+    private final TransactionExportService exportService;
+    private final BalanceSnapshotService snapshots;
+    private final StatementService statements;
+
+    public BankController(BankService bankService, BalanceUpdateCoalescer balanceUpdates,
+                          AsyncTransferService asyncTransfers, TransactionExportService exportService,
+                          BalanceSnapshotService snapshots, StatementService statements) {
         this.bankService = bankService;
+        this.balanceUpdates = balanceUpdates;
+        this.asyncTransfers = asyncTransfers;
+        this.exportService = exportService;
+        this.snapshots = snapshots;
+        this.statements = statements;
     }
 
     @PostMapping("/accounts")
     public AccountResponse createAccount(@Valid @RequestBody CreateAccountRequest req) {
-        var account = bankService.createAccount(req.accountNumber(), req.ownerName(), req.initialBalance());
+        var account = bankService.createAccount(req.accountNumber(), req.ownerName(), toMoney(req.initialBalance()));
         return toAccountResponse(account);
     }
 
@@ -36,22 +77,64 @@ public class BankController {
         return toAccountResponse(account);
     }
 
+    @GetMapping("/accounts/{accountNumber}/balance")
+    public BalanceAtResponse balanceAt(@PathVariable String accountNumber,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return toBalanceAtResponse(snapshots.balanceAt(accountNumber, at));
+    }
+
+    @GetMapping("/accounts/{accountNumber}/statement")
+    public StatementResponse statement(@PathVariable String accountNumber, @RequestParam YearMonth month) {
+        return toStatementResponse(statements.monthly(accountNumber, month));
+    }
+
     @PostMapping("/accounts/{accountNumber}/deposit")
-    public AccountResponse deposit(@Valid @PathVariable String accountNumber, @RequestBody MoneyRequest req) {
-        var account = bankService.deposit(accountNumber, req.amount());
+    public AccountResponse deposit(@Valid @PathVariable String accountNumber, @RequestBody MoneyRequest req,
+                                   @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        var account = balanceUpdates.deposit(accountNumber, toMoney(req.amount()), idempotencyKey);
         return toAccountResponse(account);
     }
 
     @PostMapping("/accounts/{accountNumber}/withdraw")
-    public AccountResponse withdraw(@Valid @PathVariable String accountNumber, @RequestBody MoneyRequest req) {
-        var account = bankService.withdraw(accountNumber, req.amount());
+    public AccountResponse withdraw(@Valid @PathVariable String accountNumber, @RequestBody MoneyRequest req,
+                                    @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        var account = balanceUpdates.withdraw(accountNumber, toMoney(req.amount()), idempotencyKey);
+        return toAccountResponse(account);
+    }
+
+    @PostMapping("/accounts/{accountNumber}/sharding")
+    public AccountResponse enableSharding(@PathVariable String accountNumber, @Valid @RequestBody ShardAccountRequest req) {
+        var account = bankService.enableSharding(accountNumber, req.buckets());
         return toAccountResponse(account);
     }
 
     @PostMapping("/transfers")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void transfer(@Valid @RequestBody TransferRequest req){
-        bankService.transfer(req.fromAccountNumber(), req.toAccountNumber(), req.amount());
+    public void transfer(@Valid @RequestBody TransferRequest req,
+                         @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey){
+        bankService.transfer(req.fromAccountNumber(), req.toAccountNumber(), toMoney(req.amount()), idempotencyKey);
+    }
+
+    @PostMapping("/transfers/async")
+    public ResponseEntity<TransferStatusResponse> transferAsync(@Valid @RequestBody TransferRequest req,
+                                                                @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey){
+        var request = asyncTransfers.accept(req.fromAccountNumber(), req.toAccountNumber(), toMoney(req.amount()), idempotencyKey);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/transfers/async/" + request.getId()))
+                .body(toTransferStatusResponse(request));
+    }
+
+    @GetMapping("/transfers/async/{id}")
+    public TransferStatusResponse transferStatus(@PathVariable UUID id){
+        return toTransferStatusResponse(asyncTransfers.status(id));
+    }
+
+    @PostMapping("/transfers/batch")
+    public TransferBatchResponse transferBatch(@Valid @RequestBody TransferBatchRequest req){
+        List<TransferCommand> commands = req.transfers().stream()
+                .map(t -> new TransferCommand(t.fromAccountNumber(), t.toAccountNumber(), toMoney(t.amount())))
+                .toList();
+        return toTransferBatchResponse(bankService.transferBatch(commands));
     }
 
     @GetMapping("/accounts/{accountNumber}/transactions")
@@ -59,10 +142,91 @@ public class BankController {
         return bankService.getTransactions(accountNumber, pageable).map(this::toTransactionResponse);
     }
 
+    @GetMapping("/accounts/{accountNumber}/history")
+    public TransactionSliceResponse history(@PathVariable String accountNumber,
+                                            @RequestParam(required = false) String after,
+                                            @RequestParam(defaultValue = "20") int limit) {
+        Slice<TransactionEntity> slice = bankService.getTransactionHistory(accountNumber, after, limit);
+        return toTransactionSliceResponse(slice);
+    }
+
+    @GetMapping("/accounts/{accountNumber}/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@PathVariable String accountNumber,
+                                                                    @RequestParam(defaultValue = "ndjson") String format,
+                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        TransactionExportService.Format exportFormat = switch (format.toLowerCase()) {
+            case "ndjson" -> TransactionExportService.Format.NDJSON;
+            case "csv" -> TransactionExportService.Format.CSV;
+            default -> throw new IllegalArgumentException("format must be ndjson or csv");
+        };
+        var export = exportService.prepare(accountNumber, from, to);
+
+        StreamingResponseBody body = out -> exportService.write(export, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat == TransactionExportService.Format.CSV ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions-" + accountNumber
+                        + (exportFormat == TransactionExportService.Format.CSV ? ".csv" : ".ndjson") + "\"")
+                .body(body);
+    }
+
     // ---- Mappers ----
 
+    private Money toMoney(BigDecimal amount){
+        return amount == null ? null : Money.of(amount);
+    }
+
     private AccountResponse toAccountResponse(AccountEntity a){
-        return new AccountResponse(a.getAccountNumber(), a.getOwnerName(), a.getBalance());
+        return new AccountResponse(a.getAccountNumber(), a.getOwnerName(), a.getBalance().toBigDecimal());
+    }
+
+    private AccountResponse toAccountResponse(AccountSnapshot a){
+        return new AccountResponse(a.accountNumber(), a.ownerName(), a.balance().toBigDecimal());
+    }
+
+    private BalanceAtResponse toBalanceAtResponse(BalanceAt b){
+        return new BalanceAtResponse(b.accountNumber(), b.at(), b.balance().toBigDecimal(), b.snapshotDate());
+    }
+
+    private StatementResponse toStatementResponse(Statement s){
+        return new StatementResponse(
+                s.accountNumber(),
+                s.month(),
+                s.openingBalance().toBigDecimal(),
+                s.closingBalance().toBigDecimal(),
+                s.lines().stream()
+                        .map(l -> new StatementResponse.Line(l.type(), l.count(), l.total().toBigDecimal()))
+                        .toList()
+        );
+    }
+
+    private TransferBatchResponse toTransferBatchResponse(List<TransferResult> results){
+        int completed = 0;
+        List<TransferBatchItemResponse> items = new ArrayList<>(results.size());
+        for (TransferResult r : results) {
+            if (r.success()) completed++;
+            items.add(new TransferBatchItemResponse(r.index(), r.success() ? "COMPLETED" : "FAILED", r.error()));
+        }
+        return new TransferBatchResponse(completed, results.size() - completed, items);
+    }
+
+    private TransferStatusResponse toTransferStatusResponse(TransferRequestEntity r){
+        return new TransferStatusResponse(
+                r.getId(),
+                r.getStatus().name(),
+                r.getFromAccountNumber(),
+                r.getToAccountNumber(),
+                r.getAmount().toBigDecimal(),
+                r.getError(),
+                r.getCreatedAt(),
+                r.getCompletedAt()
+        );
+    }
+
+    private TransactionSliceResponse toTransactionSliceResponse(Slice<TransactionEntity> slice){
+        List<TransactionEntity> content = slice.getContent();
+        String nextCursor = slice.hasNext() ? HistoryCursor.of(content.getLast()).encode() : null;
+        return new TransactionSliceResponse(content.stream().map(this::toTransactionResponse).toList(), nextCursor, slice.hasNext());
     }
 
     private TransactionResponse toTransactionResponse(TransactionEntity t){
@@ -70,9 +234,9 @@ public class BankController {
                 t.getId(),
                 t.getAccountNumber(),
                 t.getType(),
-                t.getAmount(),
-                t.getBalanceBefore(),
-                t.getBalanceAfter(),
+                t.getAmount().toBigDecimal(),
+                t.getBalanceBefore().toBigDecimal(),
+                t.getBalanceAfter().toBigDecimal(),
                 t.getDescription(),
                 t.getOccurredAt()
         );
@@ -0,0 +1,12 @@
+package com.mauricio.bank.api.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record BalanceAtResponse(
+        String accountNumber,
+        LocalDateTime at,
+        BigDecimal balance,
+        LocalDate snapshotDate
+) {}
@@ -0,0 +1,20 @@
+package com.mauricio.bank.api.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ContentionResponse(
+        String source,
+        Instant since,
+        long events,
+        int capacity,
+        List<Hotspot> top
+) {
+    public record Hotspot(
+            String accountNumber,
+            long events,
+            long maxOverestimate,
+            double totalWaitMs,
+            double maxWaitMs
+    ) {}
+}
@@ -0,0 +1,10 @@
+package com.mauricio.bank.api.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+public record ShardAccountRequest(
+        @Min(value = 2, message = "buckets must be >= 2")
+        @Max(value = 64, message = "buckets must be <= 64")
+        int buckets
+) {}
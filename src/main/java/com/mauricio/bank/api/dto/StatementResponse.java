@@ -0,0 +1,17 @@
+package com.mauricio.bank.api.dto;
+
+import com.mauricio.bank.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+public record StatementResponse(
+        String accountNumber,
+        YearMonth month,
+        BigDecimal openingBalance,
+        BigDecimal closingBalance,
+        List<Line> lines
+) {
+    public record Line(TransactionType type, long count, BigDecimal total) {}
+}
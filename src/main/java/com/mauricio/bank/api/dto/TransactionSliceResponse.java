@@ -0,0 +1,9 @@
+package com.mauricio.bank.api.dto;
+
+import java.util.List;
+
+public record TransactionSliceResponse(
+        List<TransactionResponse> items,
+        String nextCursor,
+        boolean hasNext
+) {}
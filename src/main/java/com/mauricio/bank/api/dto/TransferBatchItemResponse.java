@@ -0,0 +1,7 @@
+package com.mauricio.bank.api.dto;
+
+public record TransferBatchItemResponse(
+        int index,
+        String status,
+        String error
+) {}
@@ -0,0 +1,11 @@
+package com.mauricio.bank.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import java.util.List;
+
+public record TransferBatchRequest(
+        @NotEmpty(message = "transfers is required")
+        @Size(max = 1000, message = "transfers must have up to 1000 items")
+        List<@Valid @NotNull TransferRequest> transfers
+) {}
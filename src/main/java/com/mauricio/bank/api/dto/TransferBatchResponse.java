@@ -0,0 +1,9 @@
+package com.mauricio.bank.api.dto;
+
+import java.util.List;
+
+public record TransferBatchResponse(
+        int completed,
+        int failed,
+        List<TransferBatchItemResponse> results
+) {}
@@ -0,0 +1,16 @@
+package com.mauricio.bank.api.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record TransferStatusResponse(
+        UUID id,
+        String status,
+        String fromAccountNumber,
+        String toAccountNumber,
+        BigDecimal amount,
+        String error,
+        LocalDateTime createdAt,
+        LocalDateTime completedAt
+) {}
@@ -1,14 +1,31 @@
 package com.mauricio.bank.config;
 
 import com.mauricio.bank.Bank;
+import com.mauricio.bank.ConcurrentLedgerEngine;
+import com.mauricio.bank.ContentionTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
+@EnableScheduling
 public class BankConfig {
 
     @Bean
-    public Bank bank() {
-        return new Bank();
+    public Bank bank(MeterRegistry registry,
+                     @Value("${bank.contention.capacity:256}") int contentionCapacity,
+                     @Value("${bank.contention.sample-every:1}") int contentionSampleEvery) {
+        // El tracker del Bank en memoria es aparte: sus cuentas no son las de la base
+        ContentionTracker contention = new ContentionTracker(contentionCapacity, contentionSampleEvery);
+        return new Bank(new ConcurrentLedgerEngine(null, contention), registry);
+    }
+
+    /** Lock contention on database accounts (see {@code BankMetrics}). */
+    @Bean
+    public ContentionTracker contentionTracker(@Value("${bank.contention.capacity:256}") int capacity,
+                                               @Value("${bank.contention.sample-every:1}") int sampleEvery) {
+        return new ContentionTracker(capacity, sampleEvery);
     }
 }
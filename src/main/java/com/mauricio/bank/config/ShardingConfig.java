@@ -0,0 +1,64 @@
+package com.mauricio.bank.config;
+
+import com.mauricio.bank.persistence.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Database shards: with {@code bank.shards.urls} set, the application {@link DataSource} routes
+ * every connection to the shard selected by {@code ShardRouter} (shard 0 by default). Each shard
+ * gets its own pool with the {@code spring.datasource} credentials, and Flyway migrates all of them.
+ */
+@Configuration
+@ConditionalOnProperty("bank.shards.urls")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties,
+                                                         @Value("${bank.shards.urls}") List<String> urls,
+                                                         @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        List<DataSource> shards = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource shard = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i))
+                    .build();
+            shard.setPoolName("shard-" + i);
+            shard.setMaximumPoolSize(poolSize);
+            shards.add(shard);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    // La conexion se toma en la primera sentencia: el shard se puede elegir dentro de un metodo @Transactional
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public FlywayMigrationStrategy shardedMigration(ShardRoutingDataSource routing) {
+        return flyway -> {
+            for (DataSource shard : routing.shards()) {
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(shard)
+                        .load()
+                        .migrate();
+            }
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+
+import java.util.Optional;
+
+/**
+ * Balance changes done by a single UPDATE that returns the new row, without loading the entity.
+ * The row lock is held only by that statement (until commit), and {@code version} is bumped so
+ * optimistic readers still see the change.
+ */
+public interface AccountBalanceUpdates {
+
+    // Vacio si la cuenta no existe o esta sharded (el saldo vive en account_buckets)
+    Optional<AccountSnapshot> addToBalance(String accountNumber, Money amount);
+
+    // Vacio si la cuenta no existe, esta sharded o si balance < amount
+    Optional<AccountSnapshot> subtractFromBalance(String accountNumber, Money amount);
+}
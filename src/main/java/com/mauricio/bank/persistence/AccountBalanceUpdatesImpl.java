@@ -0,0 +1,76 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Postgres returns the updated row with {@code UPDATE ... RETURNING}; H2 (tests) does not support
+ * it, so there the same UPDATE is wrapped in {@code SELECT ... FROM FINAL TABLE (...)}.
+ */
+class AccountBalanceUpdatesImpl implements AccountBalanceUpdates {
+
+    private static final String ADD_UPDATE = """
+            update accounts set balance = balance + :amount, version = version + 1
+            where account_number = :accountNumber and bucket_count = 0""";
+
+    private static final String SUBTRACT_UPDATE = """
+            update accounts set balance = balance - :amount, version = version + 1
+            where account_number = :accountNumber and bucket_count = 0 and balance >= :amount""";
+
+    private static final String COLUMNS = "account_number, owner_name, balance, version";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private volatile Boolean finalTableSyntax;
+
+    @Override
+    public Optional<AccountSnapshot> addToBalance(String accountNumber, Money amount) {
+        return execute(ADD_UPDATE, accountNumber, amount);
+    }
+
+    @Override
+    public Optional<AccountSnapshot> subtractFromBalance(String accountNumber, Money amount) {
+        return execute(SUBTRACT_UPDATE, accountNumber, amount);
+    }
+
+    private Optional<AccountSnapshot> execute(String update, String accountNumber, Money amount) {
+        String sql = useFinalTableSyntax()
+                ? "select " + COLUMNS + " from final table (" + update + ")"
+                : update + " returning " + COLUMNS;
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = em.createNativeQuery(sql)
+                .setParameter("accountNumber", accountNumber)
+                .setParameter("amount", amount.toBigDecimal())
+                .getResultList();
+
+        if (rows.isEmpty()) return Optional.empty();
+
+        Object[] row = rows.getFirst();
+        return Optional.of(new AccountSnapshot(
+                (String) row[0],
+                (String) row[1],
+                Money.of((BigDecimal) row[2]),
+                ((Number) row[3]).longValue()
+        ));
+    }
+
+    private boolean useFinalTableSyntax() {
+        Boolean result = finalTableSyntax;
+        if (result == null) {
+            Dialect dialect = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            result = dialect instanceof H2Dialect;
+            finalTableSyntax = result;
+        }
+        return result;
+    }
+}
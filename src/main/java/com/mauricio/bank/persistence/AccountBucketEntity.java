@@ -0,0 +1,39 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import jakarta.persistence.*;
+
+// Parte del saldo de una cuenta sharded: saldo total = accounts.balance + suma de buckets
+@Entity
+@Table(name = "account_buckets")
+@IdClass(AccountBucketId.class)
+public class AccountBucketEntity {
+
+    @Id
+    @Column(name = "account_number", nullable = false, length = 20)
+    private String accountNumber;
+
+    @Id
+    @Column(name = "bucket", nullable = false)
+    private int bucket;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "balance", nullable = false, precision = 19, scale = 2)
+    private Money balance;
+
+    @Version
+    private long version;
+
+    protected AccountBucketEntity() {}
+
+    public AccountBucketEntity(String accountNumber, int bucket, Money balance){
+        this.accountNumber = accountNumber;
+        this.bucket = bucket;
+        this.balance = balance;
+    }
+
+    public String getAccountNumber() { return accountNumber; }
+    public int getBucket() { return bucket; }
+    public Money getBalance() { return balance; }
+    public void setBalance(Money balance) { this.balance = balance; }
+}
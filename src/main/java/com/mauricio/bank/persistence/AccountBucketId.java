@@ -0,0 +1,5 @@
+package com.mauricio.bank.persistence;
+
+import java.io.Serializable;
+
+public record AccountBucketId(String accountNumber, int bucket) implements Serializable {}
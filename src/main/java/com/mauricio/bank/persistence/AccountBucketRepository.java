@@ -0,0 +1,40 @@
+package com.mauricio.bank.persistence;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+public interface AccountBucketRepository extends JpaRepository<AccountBucketEntity, AccountBucketId> {
+
+    @Modifying
+    @Query(value = """
+            update account_buckets set balance = balance + :amount, version = version + 1
+            where account_number = :accountNumber and bucket = :bucket
+            """, nativeQuery = true)
+    int credit(@Param("accountNumber") String accountNumber, @Param("bucket") int bucket, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = """
+            update account_buckets set balance = balance - :amount, version = version + 1
+            where account_number = :accountNumber and bucket = :bucket and balance >= :amount
+            """, nativeQuery = true)
+    int debit(@Param("accountNumber") String accountNumber, @Param("bucket") int bucket, @Param("amount") BigDecimal amount);
+
+    // Rebalanceo: bloquea todos los buckets, siempre en el mismo orden
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from AccountBucketEntity b where b.accountNumber = :accountNumber order by b.bucket")
+    List<AccountBucketEntity> findAllForUpdate(@Param("accountNumber") String accountNumber);
+
+    @Query(value = """
+            select a.account_number as accountNumber, a.owner_name as ownerName, a.version as version,
+                   a.balance + coalesce((select sum(b.balance) from account_buckets b
+                                         where b.account_number = a.account_number), 0) as total
+            from accounts a
+            where a.account_number = :accountNumber
+            """, nativeQuery = true)
+    Optional<AccountTotalView> findTotal(@Param("accountNumber") String accountNumber);
+}
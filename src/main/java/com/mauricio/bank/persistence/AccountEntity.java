@@ -1,9 +1,13 @@
 package com.mauricio.bank.persistence;
 
+import com.mauricio.bank.Money;
 import jakarta.persistence.*;
-import java.math.BigDecimal;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
+// UPDATE solo de columnas modificadas: accounts set balance=?, version=? where ... and version=?
+@DynamicUpdate
 @Table(name = "accounts")
 public class AccountEntity {
 
@@ -14,16 +18,22 @@ public class AccountEntity {
     @Column(name = "owner_name", nullable = false)
     private String ownerName;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(name = "balance", nullable = false, precision = 19, scale = 2)
-    private BigDecimal balance;
+    private Money balance;
 
 
+    // 0 = cuenta normal; > 0 = el saldo vive repartido en account_buckets
+    @ColumnDefault("0")
+    @Column(name = "bucket_count", nullable = false)
+    private int bucketCount;
+
     @Version
     private long version;
 
     protected AccountEntity() {}
 
-    public AccountEntity(String accountNumber, String ownerName, BigDecimal balance){
+    public AccountEntity(String accountNumber, String ownerName, Money balance){
         this.accountNumber = accountNumber;
         this.ownerName = ownerName;
         this.balance = balance;
@@ -31,6 +41,9 @@ public class AccountEntity {
 
     public String getAccountNumber() { return accountNumber; }
     public String getOwnerName() { return ownerName; }
-    public BigDecimal getBalance() { return balance; }
-    public void setBalance(BigDecimal balance) { this.balance = balance; }
+    public Money getBalance() { return balance; }
+    public long getVersion() { return version; }
+    public int getBucketCount() { return bucketCount; }
+    public void setBucketCount(int bucketCount) { this.bucketCount = bucketCount; }
+    public void setBalance(Money balance) { this.balance = balance; }
 }
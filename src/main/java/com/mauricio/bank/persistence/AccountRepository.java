@@ -4,11 +4,18 @@ import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface AccountRepository extends JpaRepository<AccountEntity, String>{
+public interface AccountRepository extends JpaRepository<AccountEntity, String>, AccountBalanceUpdates {
     // Pessimistic lock (banco real para operaciones de saldo)
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select a from AccountEntity a where a.accountNumber = :accountNumber")
     Optional<AccountEntity> findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
+
+    // Un solo SELECT ... FOR UPDATE, ordenado para bloquear siempre en el mismo orden
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from AccountEntity a where a.accountNumber in :accountNumbers order by a.accountNumber")
+    List<AccountEntity> findAllByAccountNumberForUpdate(@Param("accountNumbers") Collection<String> accountNumbers);
 }
@@ -0,0 +1,22 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+
+/**
+ * Immutable copy of an account row as of a committed version. This is what the balance
+ * cache holds; entities are never shared between threads.
+ */
+public record AccountSnapshot(
+        String accountNumber,
+        String ownerName,
+        Money balance,
+        long version
+) {
+    public static AccountSnapshot of(AccountEntity account) {
+        return new AccountSnapshot(account.getAccountNumber(), account.getOwnerName(), account.getBalance(), account.getVersion());
+    }
+
+    public static AccountSnapshot of(AccountTotalView view) {
+        return new AccountSnapshot(view.getAccountNumber(), view.getOwnerName(), Money.of(view.getTotal()), view.getVersion());
+    }
+}
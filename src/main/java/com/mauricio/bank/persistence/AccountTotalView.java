@@ -0,0 +1,11 @@
+package com.mauricio.bank.persistence;
+
+import java.math.BigDecimal;
+
+// Proyeccion de AccountBucketRepository.findTotal
+public interface AccountTotalView {
+    String getAccountNumber();
+    String getOwnerName();
+    BigDecimal getTotal();
+    Long getVersion();
+}
@@ -0,0 +1,9 @@
+package com.mauricio.bank.persistence;
+
+import java.math.BigDecimal;
+
+// Proyeccion de TransactionRepository.sumNetChanges
+public interface BalanceChangeView {
+    String getAccountNumber();
+    BigDecimal getNetChange();
+}
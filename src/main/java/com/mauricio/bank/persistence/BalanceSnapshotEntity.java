@@ -0,0 +1,53 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDate;
+
+// Saldo de una cuenta al final de snapshot_date; solo hay fila para los dias con movimientos
+@Entity
+@Table(name = "balance_snapshots", indexes = {
+        @Index(name = "idx_balance_snapshots_date", columnList = "snapshot_date")
+})
+@IdClass(BalanceSnapshotId.class)
+public class BalanceSnapshotEntity implements Persistable<BalanceSnapshotId> {
+
+    @Id
+    @Column(name = "account_number", nullable = false, length = 20)
+    private String accountNumber;
+
+    @Id
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "balance", nullable = false, precision = 19, scale = 2)
+    private Money balance;
+
+    @Transient
+    private boolean isNew = true;
+
+    protected BalanceSnapshotEntity() {}
+
+    public BalanceSnapshotEntity(String accountNumber, LocalDate snapshotDate, Money balance) {
+        this.accountNumber = accountNumber;
+        this.snapshotDate = snapshotDate;
+        this.balance = balance;
+    }
+
+    public String getAccountNumber() { return accountNumber; }
+    public LocalDate getSnapshotDate() { return snapshotDate; }
+    public Money getBalance() { return balance; }
+
+    @Override
+    public BalanceSnapshotId getId() { return new BalanceSnapshotId(accountNumber, snapshotDate); }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+}
@@ -0,0 +1,6 @@
+package com.mauricio.bank.persistence;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+public record BalanceSnapshotId(String accountNumber, LocalDate snapshotDate) implements Serializable {}
@@ -0,0 +1,34 @@
+package com.mauricio.bank.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshotEntity, BalanceSnapshotId> {
+
+    // El snapshot mas cercano antes de un dia: lectura por PK, el resto sale del journal
+    Optional<BalanceSnapshotEntity> findFirstByAccountNumberAndSnapshotDateLessThanOrderBySnapshotDateDesc(
+            String accountNumber, LocalDate before);
+
+    @Query("""
+            select s from BalanceSnapshotEntity s
+            where s.accountNumber in :accountNumbers
+              and s.snapshotDate = (select max(p.snapshotDate) from BalanceSnapshotEntity p
+                                    where p.accountNumber = s.accountNumber and p.snapshotDate < :before)
+            """)
+    List<BalanceSnapshotEntity> findLatestBefore(@Param("accountNumbers") Collection<String> accountNumbers,
+                                                 @Param("before") LocalDate before);
+
+    @Query("select max(s.snapshotDate) from BalanceSnapshotEntity s")
+    LocalDate findLastSnapshotDate();
+
+    @Modifying
+    @Query("delete from BalanceSnapshotEntity s where s.snapshotDate = :day")
+    int deleteBySnapshotDate(@Param("day") LocalDate day);
+}
@@ -0,0 +1,48 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransactionType;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+// Movimientos de un dia por cuenta y tipo; los escribe DailyRollupWriter en la transaccion del movimiento.
+// slot reparte las filas de las cuentas sharded igual que sus buckets (0 en cuentas normales)
+@Entity
+@Table(name = "daily_rollups")
+@IdClass(DailyRollupId.class)
+public class DailyRollupEntity {
+
+    @Id
+    @Column(name = "account_number", nullable = false, length = 20)
+    private String accountNumber;
+
+    @Id
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    private TransactionType type;
+
+    @Id
+    @Column(name = "slot", nullable = false)
+    private int slot;
+
+    @Column(name = "entry_count", nullable = false)
+    private long entryCount;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "amount_total", nullable = false, precision = 19, scale = 2)
+    private Money amountTotal;
+
+    protected DailyRollupEntity() {}
+
+    public String getAccountNumber() { return accountNumber; }
+    public LocalDate getRollupDate() { return rollupDate; }
+    public TransactionType getType() { return type; }
+    public int getSlot() { return slot; }
+    public long getEntryCount() { return entryCount; }
+    public Money getAmountTotal() { return amountTotal; }
+}
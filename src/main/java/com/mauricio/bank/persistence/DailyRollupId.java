@@ -0,0 +1,8 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.TransactionType;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+public record DailyRollupId(String accountNumber, LocalDate rollupDate, TransactionType type, int slot) implements Serializable {}
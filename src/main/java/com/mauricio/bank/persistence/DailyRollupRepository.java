@@ -0,0 +1,33 @@
+package com.mauricio.bank.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyRollupRepository extends JpaRepository<DailyRollupEntity, DailyRollupId> {
+
+    // Totales por tipo en [from, to): a lo sumo dias x tipos x slots filas, sin tocar transactions
+    @Query(value = """
+            select type as type, sum(entry_count) as entryCount, sum(amount_total) as amountTotal
+            from daily_rollups
+            where account_number = :accountNumber and rollup_date >= :from and rollup_date < :to
+            group by type
+            """, nativeQuery = true)
+    List<RollupTotalView> sumByType(@Param("accountNumber") String accountNumber,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to);
+
+    // Cambio neto en [from, to), con los mismos signos que TransactionRepository.sumNetChanges
+    @Query(value = """
+            select coalesce(sum(case when type in ('WITHDRAW', 'TRANSFER_OUT') then -amount_total else amount_total end), 0)
+            from daily_rollups
+            where account_number = :accountNumber and rollup_date >= :from and rollup_date < :to
+            """, nativeQuery = true)
+    BigDecimal sumNetChange(@Param("accountNumber") String accountNumber,
+                            @Param("from") LocalDate from,
+                            @Param("to") LocalDate to);
+}
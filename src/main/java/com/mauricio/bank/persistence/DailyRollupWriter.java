@@ -0,0 +1,148 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Adds journal rows to {@code daily_rollups}. Inside a transaction the rows are summed per
+ * (account, day, type, slot) and written just before commit, after the persistence context is
+ * flushed: an optimistic version conflict fails before any rollup row is locked, and the rollup
+ * rows stay locked only for the commit itself. The upserts go in one JDBC batch, in a fixed key
+ * order, so two transactions touching the same rollup rows cannot deadlock on them.
+ * <p>
+ * PostgreSQL uses {@code INSERT ... ON CONFLICT}, which never fails on a concurrent insert; other
+ * databases (H2) use {@code MERGE}.
+ */
+@Repository
+public class DailyRollupWriter {
+    private static final int BATCH_SIZE = 500;
+
+    private static final String POSTGRES_UPSERT = """
+            insert into daily_rollups (account_number, rollup_date, type, slot, entry_count, amount_total)
+            values (?, ?, ?, ?, ?, ?)
+            on conflict (account_number, rollup_date, type, slot) do update
+            set entry_count = daily_rollups.entry_count + excluded.entry_count,
+                amount_total = daily_rollups.amount_total + excluded.amount_total
+            """;
+
+    private static final String MERGE_UPSERT = """
+            merge into daily_rollups r
+            using (values (cast(? as varchar(20)), cast(? as date), cast(? as varchar(20)), cast(? as integer),
+                           cast(? as bigint), cast(? as numeric(19, 2))))
+                  as v (account_number, rollup_date, type, slot, entry_count, amount_total)
+            on r.account_number = v.account_number and r.rollup_date = v.rollup_date
+               and r.type = v.type and r.slot = v.slot
+            when matched then update
+                set entry_count = r.entry_count + v.entry_count, amount_total = r.amount_total + v.amount_total
+            when not matched then insert (account_number, rollup_date, type, slot, entry_count, amount_total)
+                values (v.account_number, v.rollup_date, v.type, v.slot, v.entry_count, v.amount_total)
+            """;
+
+    private static final Comparator<DailyRollupId> KEY_ORDER = Comparator
+            .comparing(DailyRollupId::accountNumber)
+            .thenComparing(DailyRollupId::rollupDate)
+            .thenComparing(DailyRollupId::type)
+            .thenComparingInt(DailyRollupId::slot);
+
+    private record Delta(long count, Money amount) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String upsert;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public DailyRollupWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsert = isPostgres(jdbcTemplate.getDataSource()) ? POSTGRES_UPSERT : MERGE_UPSERT;
+    }
+
+    /** {@code slotOf} picks the rollup slot of each row (0 unless the account spreads its writes). */
+    public void addAll(List<TransactionEntity> entries, ToIntFunction<TransactionEntity> slotOf) {
+        if (entries.isEmpty()) return;
+
+        boolean deferred = TransactionSynchronizationManager.isActualTransactionActive();
+        Map<DailyRollupId, Delta> deltas = deferred ? pending() : new TreeMap<>(KEY_ORDER);
+        for (TransactionEntity t : entries) {
+            DailyRollupId key = new DailyRollupId(t.getAccountNumber(), t.getOccurredAt().toLocalDate(),
+                                                  t.getType(), slotOf.applyAsInt(t));
+            deltas.merge(key, new Delta(1, t.getAmount()),
+                         (a, b) -> new Delta(a.count() + b.count(), a.amount().plus(b.amount())));
+        }
+        if (!deferred) write(deltas);
+    }
+
+    // --Helpers
+
+    // Un acumulado por transaccion; se escribe en beforeCommit
+    @SuppressWarnings("unchecked")
+    private Map<DailyRollupId, Delta> pending() {
+        Map<DailyRollupId, Delta> pending = (Map<DailyRollupId, Delta>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) return pending;
+
+        Map<DailyRollupId, Delta> created = new TreeMap<>(KEY_ORDER);
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                flushPersistenceContext();
+                write(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(DailyRollupWriter.this);
+            }
+        });
+        return created;
+    }
+
+    // Como en el commit: un conflicto de version llega como ConcurrencyFailureException y LockingExecutor reintenta
+    private void flushPersistenceContext() {
+        try {
+            em.flush();
+        } catch (RuntimeException e) {
+            DataAccessException translated = EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        }
+    }
+
+    private void write(Map<DailyRollupId, Delta> deltas) {
+        if (deltas.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(upsert, new ArrayList<>(deltas.entrySet()), BATCH_SIZE, (ps, e) -> {
+            ps.setString(1, e.getKey().accountNumber());
+            ps.setDate(2, Date.valueOf(e.getKey().rollupDate()));
+            ps.setString(3, e.getKey().type().name());
+            ps.setInt(4, e.getKey().slot());
+            ps.setLong(5, e.getValue().count());
+            ps.setBigDecimal(6, e.getValue().amount().toBigDecimal());
+        });
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot read database metadata", e);
+        }
+    }
+}
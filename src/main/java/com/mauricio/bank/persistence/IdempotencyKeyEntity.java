@@ -0,0 +1,84 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Result of a deposit/withdraw/transfer sent with an {@code Idempotency-Key}. Inserted in the
+ * same transaction as the money movement, so the key exists if and only if the operation committed.
+ * Transfers store no snapshot.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+public class IdempotencyKeyEntity implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String key;
+
+    @Column(nullable = false, length = 20)
+    private String operation;
+
+    // SHA-256 del request: la misma key con otro body es un error del cliente
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(name = "account_number", length = 20)
+    private String accountNumber;
+
+    @Column(name = "owner_name")
+    private String ownerName;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = 2)
+    private Money balance;
+
+    @Column(name = "account_version")
+    private Long accountVersion;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    protected IdempotencyKeyEntity() {}
+
+    public IdempotencyKeyEntity(String key, String operation, String fingerprint, AccountSnapshot result, LocalDateTime createdAt) {
+        this.key = key;
+        this.operation = operation;
+        this.fingerprint = fingerprint;
+        if (result != null) {
+            this.accountNumber = result.accountNumber();
+            this.ownerName = result.ownerName();
+            this.balance = result.balance();
+            this.accountVersion = result.version();
+        }
+        this.createdAt = createdAt;
+    }
+
+    public String getKey() { return key; }
+    public String getOperation() { return operation; }
+    public String getFingerprint() { return fingerprint; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    /** {@code null} for transfers. */
+    public AccountSnapshot toSnapshot() {
+        return accountNumber == null ? null : new AccountSnapshot(accountNumber, ownerName, balance, accountVersion);
+    }
+
+    @Override
+    public String getId() { return key; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+}
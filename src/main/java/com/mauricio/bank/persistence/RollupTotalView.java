@@ -0,0 +1,10 @@
+package com.mauricio.bank.persistence;
+
+import java.math.BigDecimal;
+
+// Proyeccion de DailyRollupRepository.sumByType
+public interface RollupTotalView {
+    String getType();
+    Long getEntryCount();
+    BigDecimal getAmountTotal();
+}
@@ -0,0 +1,59 @@
+package com.mauricio.bank.persistence;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One {@link DataSource} per database shard behind a single one for JPA and JDBC. The shard is the
+ * one selected on the calling thread ({@link #select}) when a connection is taken, shard 0 if none.
+ * Wrapped in a lazy connection proxy, a transaction takes its connection at its first statement,
+ * so the shard can be selected inside a {@code @Transactional} method before it touches the database.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.getFirst());
+        afterPropertiesSet();
+    }
+
+    public List<DataSource> shards() {
+        return shards;
+    }
+
+    public void close() throws Exception {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+
+    /** Shard selected on this thread, or {@code null}. */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /** Selects {@code shard} on this thread ({@code null} clears it); returns the previous selection. */
+    public static Integer select(Integer shard) {
+        Integer previous = CURRENT.get();
+        if (shard == null) CURRENT.remove();
+        else CURRENT.set(shard);
+        return previous;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT.get();
+    }
+}
@@ -0,0 +1,540 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransactionType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Transaction rows moved out of the database, one {@code .bkar} file per detached partition.
+ * <p>
+ * A file holds an account's rows of that partition as deflate blocks of at most {@link #BLOCK_LIMIT}
+ * raw bytes, followed by a fixed-width index sorted by account number and then by each block's
+ * first row. Reading one account binary-searches the index on disk and inflates only the blocks
+ * the requested range or page reaches; nothing but the open channels stays on heap.
+ * <pre>
+ * [int MAGIC][short VERSION]
+ * block*   deflate([uuid][byte type][long amount][long before][long after][long epochSecond][int nano][str description]*)
+ * entry*   [20 bytes account, zero padded][long offset][int compressed][int raw][int rows][long firstEpochSecond][int firstNano]
+ * trailer  [long indexOffset][int entries][long minEpochSecond][int minNano][long maxEpochSecond][int maxNano][int MAGIC]
+ * </pre>
+ * Amounts are minor units. Rows of one file must be written ordered by account number, then by
+ * (occurredAt, id). Version 1 files (one unbounded block per account, entries without the first
+ * row) are still read.
+ */
+@Component
+public class TransactionArchive {
+    public static final String SUFFIX = ".bkar";
+
+    private static final int MAGIC = 0x424B4152; // "BKAR"
+    private static final short VERSION = 2;
+    private static final int HEADER = 6;
+    private static final int ACCOUNT_WIDTH = 20;
+    private static final int ENTRY_V1 = ACCOUNT_WIDTH + 8 + 4 + 4 + 4;
+    private static final int ENTRY = ENTRY_V1 + 8 + 4;
+    // Un bloque se cierra al pasar este tamano: una cuenta enorme son muchos bloques, nunca un byte[] de GB
+    private static final int BLOCK_LIMIT = 1 << 20;
+    private static final int TRAILER = 8 + 4 + 12 + 12 + 4;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    // Orden del historial: occurred_at y luego id, comparando el uuid sin signo como la base de datos
+    private static final Comparator<TransactionEntity> OLDEST_FIRST =
+            Comparator.comparing(TransactionEntity::getOccurredAt)
+                    .thenComparing(TransactionEntity::getId, TransactionArchive::compareUuids);
+    private static final Comparator<TransactionEntity> NEWEST_FIRST = OLDEST_FIRST.reversed();
+
+    private final Path dir;
+    private volatile List<ArchiveFile> files = List.of();
+
+    public TransactionArchive(@Value("${bank.partitioning.archive-dir:archive}") Path dir) throws IOException {
+        this.dir = dir;
+        refresh();
+    }
+
+    public Path directory() {
+        return dir;
+    }
+
+    /** Re-reads the directory; call after adding or removing archive files. */
+    public synchronized void refresh() throws IOException {
+        Map<Path, ArchiveFile> current = new HashMap<>();
+        for (ArchiveFile f : files) current.put(f.path, f);
+
+        List<ArchiveFile> opened = new ArrayList<>();
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> paths = Files.list(dir)) {
+                for (Path path : paths.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                    ArchiveFile existing = current.remove(path);
+                    opened.add(existing != null ? existing : ArchiveFile.open(path));
+                }
+            }
+        }
+        for (ArchiveFile gone : current.values()) gone.close();
+
+        opened.sort(Comparator.comparing((ArchiveFile f) -> f.maxOccurredAt).reversed());
+        files = List.copyOf(opened);
+    }
+
+    /**
+     * Up to {@code limit} archived rows of the account strictly older than (occurredAt, id),
+     * newest first. A {@code null} occurredAt starts from the newest archived row.
+     */
+    public List<TransactionEntity> findHistoryBefore(String accountNumber, LocalDateTime occurredAt, UUID id, int limit) {
+        List<TransactionEntity> result = new ArrayList<>(Math.min(limit, 256));
+        for (ArchiveFile file : files) {
+            if (result.size() >= limit) break;
+            if (occurredAt != null && file.minOccurredAt.isAfter(occurredAt)) continue;
+
+            try {
+                // Del bloque mas nuevo hacia atras, salteando los que empiezan despues del cursor
+                List<Block> blocks = file.blocks(accountNumber);
+                for (int b = blocks.size() - 1; b >= 0 && result.size() < limit; b--) {
+                    Block block = blocks.get(b);
+                    if (occurredAt != null && block.first.isAfter(occurredAt)) continue;
+
+                    List<TransactionEntity> rows = file.decode(accountNumber, block);
+                    rows.sort(NEWEST_FIRST);
+                    for (TransactionEntity row : rows) {
+                        if (occurredAt != null && !isBefore(row, occurredAt, id)) continue;
+                        result.add(row);
+                        if (result.size() >= limit) break;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read archive " + file.path, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Archived rows of the account with {@code from <= occurredAt < to}, oldest first. Blocks are
+     * inflated one at a time as the iterator advances; only files and blocks overlapping the range
+     * are read.
+     */
+    public Iterator<TransactionEntity> iterate(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        List<ArchiveFile> oldestFirst = files.reversed().stream()
+                .filter(f -> f.minOccurredAt.isBefore(to) && !f.maxOccurredAt.isBefore(from))
+                .toList();
+
+        return new Iterator<>() {
+            private final Iterator<ArchiveFile> fileIt = oldestFirst.iterator();
+            private ArchiveFile file;
+            private List<Block> blocks = List.of();
+            private int nextBlock;
+            private Iterator<TransactionEntity> rows = Collections.emptyIterator();
+            private TransactionEntity next;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (next == null) {
+                        if (rows.hasNext()) {
+                            TransactionEntity row = rows.next();
+                            if (!row.getOccurredAt().isBefore(from) && row.getOccurredAt().isBefore(to)) next = row;
+                        } else if (nextBlock < blocks.size()) {
+                            Block block = blocks.get(nextBlock++);
+                            // Bloques en orden: el siguiente empieza despues de la ultima fila de este
+                            if (block.first.isBefore(to) && (nextBlock == blocks.size()
+                                    || !blocks.get(nextBlock).first.isBefore(from))) {
+                                List<TransactionEntity> decoded = file.decode(accountNumber, block);
+                                decoded.sort(OLDEST_FIRST);
+                                rows = decoded.iterator();
+                            }
+                        } else if (fileIt.hasNext()) {
+                            file = fileIt.next();
+                            blocks = file.blocks(accountNumber);
+                            nextBlock = 0;
+                        } else {
+                            return false;
+                        }
+                    }
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot read archive " + file.path, e);
+                }
+            }
+
+            @Override
+            public TransactionEntity next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                TransactionEntity row = next;
+                next = null;
+                return row;
+            }
+        };
+    }
+
+    /**
+     * Net change of the account's archived rows with {@code from <= occurredAt <= to}, signed like
+     * {@link TransactionRepository#sumNetChange}. Only files overlapping the range are read.
+     */
+    public Money sumNetChange(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        long net = 0;
+        for (Iterator<TransactionEntity> rows = iterate(accountNumber, from, justAfter(to)); rows.hasNext(); ) {
+            TransactionEntity row = rows.next();
+            boolean debit = row.getType() == TransactionType.WITHDRAW || row.getType() == TransactionType.TRANSFER_OUT;
+            net = Math.addExact(net, debit ? -row.getAmount().minorUnits() : row.getAmount().minorUnits());
+        }
+        return Money.ofMinor(net);
+    }
+
+    /** Whether the account has an archived row at or before {@code at}. */
+    public boolean existsAtOrBefore(String accountNumber, LocalDateTime at) {
+        return iterate(accountNumber, LocalDateTime.MIN, justAfter(at)).hasNext();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        files.forEach(ArchiveFile::close);
+        files = List.of();
+    }
+
+    public static Writer writer(Path file) throws IOException {
+        return new Writer(file);
+    }
+
+    // --Helpers
+
+    // Cota exclusiva equivalente a "<= at" (las marcas de tiempo tienen resolucion de nanosegundos)
+    private static LocalDateTime justAfter(LocalDateTime at) {
+        return at.equals(LocalDateTime.MAX) ? at : at.plusNanos(1);
+    }
+
+    private static boolean isBefore(TransactionEntity row, LocalDateTime occurredAt, UUID id) {
+        int c = row.getOccurredAt().compareTo(occurredAt);
+        return c < 0 || (c == 0 && compareUuids(row.getId(), id) < 0);
+    }
+
+    static int compareUuids(UUID a, UUID b) {
+        int c = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return c != 0 ? c : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private static byte[] accountKey(String accountNumber) {
+        byte[] raw = accountNumber.getBytes(StandardCharsets.US_ASCII);
+        if (raw.length > ACCOUNT_WIDTH) throw new IllegalArgumentException("Account number too long: " + accountNumber);
+        return Arrays.copyOf(raw, ACCOUNT_WIDTH);
+    }
+
+    // Una entrada del indice: un bloque de filas de una cuenta. first es MIN en archivos version 1
+    private record Block(long offset, int compressed, int raw, int rows, LocalDateTime first) {}
+
+    private static final class ArchiveFile {
+        final Path path;
+        final FileChannel channel;
+        final int entrySize;
+        final long indexOffset;
+        final int entries;
+        final LocalDateTime minOccurredAt;
+        final LocalDateTime maxOccurredAt;
+
+        private ArchiveFile(Path path, FileChannel channel, int entrySize, long indexOffset, int entries,
+                            LocalDateTime minOccurredAt, LocalDateTime maxOccurredAt) {
+            this.path = path;
+            this.channel = channel;
+            this.entrySize = entrySize;
+            this.indexOffset = indexOffset;
+            this.entries = entries;
+            this.minOccurredAt = minOccurredAt;
+            this.maxOccurredAt = maxOccurredAt;
+        }
+
+        static ArchiveFile open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size < HEADER + TRAILER) throw new IOException("Truncated archive " + path);
+
+                ByteBuffer trailer = readFully(channel, size - TRAILER, TRAILER);
+                long indexOffset = trailer.getLong();
+                int entries = trailer.getInt();
+                LocalDateTime min = LocalDateTime.ofEpochSecond(trailer.getLong(), trailer.getInt(), ZoneOffset.UTC);
+                LocalDateTime max = LocalDateTime.ofEpochSecond(trailer.getLong(), trailer.getInt(), ZoneOffset.UTC);
+                ByteBuffer header = readFully(channel, 0, HEADER);
+                if (trailer.getInt() != MAGIC || header.getInt() != MAGIC) {
+                    throw new IOException("Not an archive file " + path);
+                }
+                short version = header.getShort();
+                if (version < 1 || version > VERSION) throw new IOException("Unsupported archive version " + version + " in " + path);
+                int entrySize = version == 1 ? ENTRY_V1 : ENTRY;
+                if (indexOffset + (long) entries * entrySize != size - TRAILER) {
+                    throw new IOException("Not an archive file " + path);
+                }
+                return new ArchiveFile(path, channel, entrySize, indexOffset, entries, min, max);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /** The account's blocks in file order (oldest rows first), read from the index only. */
+        List<Block> blocks(String accountNumber) throws IOException {
+            byte[] key = accountKey(accountNumber);
+
+            // Busqueda binaria sobre el indice en disco: primera y ultima entrada de la cuenta
+            int first = search(key, true);
+            if (first < 0) return List.of();
+            int count = search(key, false) - first + 1;
+
+            ByteBuffer index = readFully(channel, indexOffset + (long) first * entrySize, count * entrySize);
+            List<Block> blocks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                index.position(i * entrySize + ACCOUNT_WIDTH);
+                long offset = index.getLong();
+                int compressed = index.getInt();
+                int raw = index.getInt();
+                int rows = index.getInt();
+                LocalDateTime firstRow = entrySize == ENTRY
+                        ? LocalDateTime.ofEpochSecond(index.getLong(), index.getInt(), ZoneOffset.UTC)
+                        : LocalDateTime.MIN;
+                blocks.add(new Block(offset, compressed, raw, rows, firstRow));
+            }
+            return blocks;
+        }
+
+        private int search(byte[] key, boolean lowest) throws IOException {
+            int found = -1;
+            int lo = 0;
+            int hi = entries - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                byte[] candidate = new byte[ACCOUNT_WIDTH];
+                readFully(channel, indexOffset + (long) mid * entrySize, ACCOUNT_WIDTH).get(candidate);
+
+                int c = Arrays.compareUnsigned(candidate, key);
+                if (c == 0) {
+                    found = mid;
+                    c = lowest ? 1 : -1;
+                }
+                if (c < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        List<TransactionEntity> decode(String accountNumber, Block block) throws IOException {
+            ByteBuffer compressed = readFully(channel, block.offset, block.compressed);
+            byte[] bytes = new byte[block.raw];
+            int rows = block.rows;
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                if (inflater.inflate(bytes) != block.raw) throw new IOException("Corrupt block in " + path);
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt block in " + path, e);
+            } finally {
+                inflater.end();
+            }
+
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            List<TransactionEntity> result = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                UUID id = new UUID(buf.getLong(), buf.getLong());
+                TransactionType type = TYPES[buf.get()];
+                Money amount = Money.ofMinor(buf.getLong());
+                Money before = Money.ofMinor(buf.getLong());
+                Money after = Money.ofMinor(buf.getLong());
+                LocalDateTime occurredAt = LocalDateTime.ofEpochSecond(buf.getLong(), buf.getInt(), ZoneOffset.UTC);
+                byte[] description = new byte[buf.getShort() & 0xFFFF];
+                buf.get(description);
+
+                result.add(new TransactionEntity(id, accountNumber, type, amount, before, after,
+                        new String(description, StandardCharsets.UTF_8), occurredAt));
+            }
+            return result;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // solo lectura: no hay nada que perder
+            }
+        }
+
+        private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(length);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, position + buf.position()) < 0) throw new EOFException();
+            }
+            return buf.flip();
+        }
+    }
+
+    /**
+     * Writes one archive file. Rows must arrive grouped by account in ascending account order, each
+     * account's rows ordered by (occurredAt, id); only the current block is buffered. The file is written as {@code <file>.tmp} and
+     * moved into place, synced, by {@link #finish()}; closing an unfinished writer deletes it.
+     */
+    public static final class Writer implements Closeable {
+        private final Path file;
+        private final Path tmp;
+        private final Path indexTmp;
+        private final FileChannel out;
+        private final DataOutputStream index;
+
+        private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream();
+        private final DataOutputStream block = new DataOutputStream(blockBytes);
+        private final Deflater deflater = new Deflater();
+        private byte[] currentKey;
+        private String currentAccount;
+        private TransactionEntity lastRow;
+        private LocalDateTime blockFirst;
+        private int blockRows;
+
+        private long offset = HEADER;
+        private int entries;
+        private long rows;
+        private LocalDateTime min;
+        private LocalDateTime max;
+        private boolean finished;
+        private boolean closed;
+
+        private Writer(Path file) throws IOException {
+            this.file = file;
+            this.tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            this.indexTmp = file.resolveSibling(file.getFileName() + ".idx.tmp");
+            this.out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexTmp)));
+            writeFully(ByteBuffer.allocate(HEADER).putInt(MAGIC).putShort(VERSION).flip(), 0);
+        }
+
+        public void append(TransactionEntity tx) throws IOException {
+            if (!tx.getAccountNumber().equals(currentAccount)) {
+                byte[] key = accountKey(tx.getAccountNumber());
+                if (currentKey != null && Arrays.compareUnsigned(currentKey, key) >= 0) {
+                    throw new IllegalArgumentException("Rows must be ordered by account number: " + tx.getAccountNumber());
+                }
+                flushBlock();
+                currentKey = key;
+                currentAccount = tx.getAccountNumber();
+            } else if (OLDEST_FIRST.compare(lastRow, tx) >= 0) {
+                throw new IllegalArgumentException("Rows must be ordered by occurredAt and id: " + tx.getId());
+            }
+
+            byte[] description = tx.getDescription().getBytes(StandardCharsets.UTF_8);
+            if (description.length > 0xFFFF) throw new IllegalArgumentException("Description too long");
+
+            block.writeLong(tx.getId().getMostSignificantBits());
+            block.writeLong(tx.getId().getLeastSignificantBits());
+            block.writeByte(tx.getType().ordinal());
+            block.writeLong(tx.getAmount().minorUnits());
+            block.writeLong(tx.getBalanceBefore().minorUnits());
+            block.writeLong(tx.getBalanceAfter().minorUnits());
+            block.writeLong(tx.getOccurredAt().toEpochSecond(ZoneOffset.UTC));
+            block.writeInt(tx.getOccurredAt().getNano());
+            block.writeShort(description.length);
+            block.write(description);
+            if (blockRows++ == 0) blockFirst = tx.getOccurredAt();
+            rows++;
+            lastRow = tx;
+
+            if (min == null || tx.getOccurredAt().isBefore(min)) min = tx.getOccurredAt();
+            if (max == null || tx.getOccurredAt().isAfter(max)) max = tx.getOccurredAt();
+
+            if (blockBytes.size() >= BLOCK_LIMIT) flushBlock();
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        public void finish() throws IOException {
+            if (finished || closed) throw new IllegalStateException("Archive writer already finished");
+
+            flushBlock();
+            index.close();
+
+            long indexOffset = offset;
+            try (FileChannel idx = FileChannel.open(indexTmp, StandardOpenOption.READ)) {
+                long copied = 0;
+                while (copied < idx.size()) {
+                    copied += idx.transferTo(copied, idx.size() - copied, out.position(offset + copied));
+                }
+                offset += copied;
+            }
+
+            LocalDateTime lo = min != null ? min : LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC);
+            LocalDateTime hi = max != null ? max : lo;
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER)
+                    .putLong(indexOffset)
+                    .putInt(entries)
+                    .putLong(lo.toEpochSecond(ZoneOffset.UTC)).putInt(lo.getNano())
+                    .putLong(hi.toEpochSecond(ZoneOffset.UTC)).putInt(hi.getNano())
+                    .putInt(MAGIC)
+                    .flip();
+            writeFully(trailer, offset);
+            out.force(true);
+            out.close();
+
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            deflater.end();
+            index.close();
+            out.close();
+            Files.deleteIfExists(indexTmp);
+            if (!finished) Files.deleteIfExists(tmp);
+        }
+
+        private void flushBlock() throws IOException {
+            if (blockRows == 0) return;
+
+            block.flush();
+            byte[] raw = blockBytes.toByteArray();
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+
+            byte[] chunk = new byte[64 * 1024];
+            long start = offset;
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                writeFully(ByteBuffer.wrap(chunk, 0, n), offset);
+                offset += n;
+            }
+
+            index.write(currentKey);
+            index.writeLong(start);
+            index.writeInt((int) (offset - start));
+            index.writeInt(raw.length);
+            index.writeInt(blockRows);
+            index.writeLong(blockFirst.toEpochSecond(ZoneOffset.UTC));
+            index.writeInt(blockFirst.getNano());
+            entries++;
+
+            blockBytes.reset();
+            blockRows = 0;
+        }
+
+        private void writeFully(ByteBuffer buf, long position) throws IOException {
+            while (buf.hasRemaining()) {
+                position += out.write(buf, position);
+            }
+        }
+    }
+}
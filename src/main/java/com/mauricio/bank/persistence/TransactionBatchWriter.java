@@ -0,0 +1,42 @@
+package com.mauricio.bank.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Inserts journal rows with a JDBC batch instead of one save per row.
+ * Runs on the connection of the current Spring transaction.
+ */
+@Repository
+public class TransactionBatchWriter {
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = """
+            insert into transactions (id, account_number, type, amount, balance_before, balance_after, description, occurred_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(List<TransactionEntity> entries) {
+        if (entries.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, BATCH_SIZE, (ps, tx) -> {
+            ps.setObject(1, tx.getId());
+            ps.setString(2, tx.getAccountNumber());
+            ps.setString(3, tx.getType().name());
+            ps.setBigDecimal(4, tx.getAmount().toBigDecimal());
+            ps.setBigDecimal(5, tx.getBalanceBefore().toBigDecimal());
+            ps.setBigDecimal(6, tx.getBalanceAfter().toBigDecimal());
+            ps.setString(7, tx.getDescription());
+            ps.setTimestamp(8, Timestamp.valueOf(tx.getOccurredAt()));
+        });
+    }
+}
@@ -1,15 +1,19 @@
 package com.mauricio.bank.persistence;
 
+import com.mauricio.bank.Money;
 import com.mauricio.bank.TransactionType;
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transactions")
-public class TransactionEntity {
+@Table(name = "transactions", indexes = {
+        // Historial por cuenta: filtro + orden + desempate del cursor salen del indice
+        @Index(name = "idx_transactions_account_occurred_id", columnList = "account_number, occurred_at, id")
+})
+public class TransactionEntity implements Persistable<UUID> {
 
     @Id
     private UUID id;
@@ -21,14 +25,17 @@ public class TransactionEntity {
     @Column(nullable = false)
     private TransactionType type;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(nullable = false, precision = 19, scale = 2)
-    private BigDecimal amount;
+    private Money amount;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(name = "balance_before", nullable = false, precision = 19, scale = 2)
-    private BigDecimal balanceBefore;
+    private Money balanceBefore;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(name = "balance_after", nullable = false, precision = 19, scale = 2)
-    private BigDecimal balanceAfter;
+    private Money balanceAfter;
 
     @Column(nullable = false)
     private String description;
@@ -36,9 +43,13 @@ public class TransactionEntity {
     @Column(name = "occurred_at", nullable = false)
     private LocalDateTime occurredAt;
 
+    // Ids asignados: sin esto save() hace merge y un SELECT previo por fila
+    @Transient
+    private boolean isNew = true;
+
     protected TransactionEntity() {}
 
-    public TransactionEntity(UUID id, String accountNumber, TransactionType type, BigDecimal amount, BigDecimal balanceBefore, BigDecimal balanceAfter, String description, LocalDateTime occurredAt){
+    public TransactionEntity(UUID id, String accountNumber, TransactionType type, Money amount, Money balanceBefore, Money balanceAfter, String description, LocalDateTime occurredAt){
         this.id = id;
         this.accountNumber = accountNumber;
         this.type = type;
@@ -52,9 +63,16 @@ public class TransactionEntity {
     public UUID getId() { return id; }
     public String getAccountNumber() { return accountNumber; }
     public TransactionType getType() { return type; }
-    public BigDecimal getAmount() { return amount; }
-    public BigDecimal getBalanceBefore() { return balanceBefore; }
-    public BigDecimal getBalanceAfter() { return balanceAfter; }
+    public Money getAmount() { return amount; }
+    public Money getBalanceBefore() { return balanceBefore; }
+    public Money getBalanceAfter() { return balanceAfter; }
     public String getDescription() { return description; }
     public LocalDateTime getOccurredAt() { return occurredAt; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
 }
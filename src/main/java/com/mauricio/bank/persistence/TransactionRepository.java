@@ -1,12 +1,81 @@
 package com.mauricio.bank.persistence;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<TransactionEntity, UUID> {
     Page<TransactionEntity> findByAccountNumber(String accountNumber, Pageable pageable);
+
+    // Keyset pagination (mas reciente primero): sin count(*) y sin OFFSET
+    @Query("""
+            select t from TransactionEntity t
+            where t.accountNumber = :accountNumber
+            order by t.occurredAt desc, t.id desc
+            """)
+    Slice<TransactionEntity> findHistory(@Param("accountNumber") String accountNumber, Pageable pageable);
+
+    @Query("""
+            select t from TransactionEntity t
+            where t.accountNumber = :accountNumber
+              and (t.occurredAt < :occurredAt or (t.occurredAt = :occurredAt and t.id < :id))
+            order by t.occurredAt desc, t.id desc
+            """)
+    Slice<TransactionEntity> findHistoryAfter(@Param("accountNumber") String accountNumber,
+                                              @Param("occurredAt") LocalDateTime occurredAt,
+                                              @Param("id") UUID id,
+                                              Pageable pageable);
+
+    // Export: cursor de solo avance; el driver trae filas de a fetch size (en Postgres requiere transaccion abierta)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+            select t from TransactionEntity t
+            where t.accountNumber = :accountNumber
+              and t.occurredAt >= :from and t.occurredAt < :to
+            order by t.occurredAt asc, t.id asc
+            """)
+    Stream<TransactionEntity> streamForExport(@Param("accountNumber") String accountNumber,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
+
+    // Cambio neto por cuenta en [from, to): los creditos suman, WITHDRAW y TRANSFER_OUT restan
+    @Query(value = """
+            select account_number as accountNumber,
+                   sum(case when type in ('WITHDRAW', 'TRANSFER_OUT') then -amount else amount end) as netChange
+            from transactions
+            where occurred_at >= :from and occurred_at < :to
+            group by account_number
+            """, nativeQuery = true)
+    List<BalanceChangeView> sumNetChanges(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Igual para una cuenta en [from, to]; sale del indice (account_number, occurred_at, id)
+    @Query(value = """
+            select coalesce(sum(case when type in ('WITHDRAW', 'TRANSFER_OUT') then -amount else amount end), 0)
+            from transactions
+            where account_number = :accountNumber and occurred_at >= :from and occurred_at <= :to
+            """, nativeQuery = true)
+    BigDecimal sumNetChange(@Param("accountNumber") String accountNumber,
+                            @Param("from") LocalDateTime from,
+                            @Param("to") LocalDateTime to);
+
+    boolean existsByAccountNumberAndOccurredAtLessThanEqual(String accountNumber, LocalDateTime occurredAt);
+
+    @Query("select min(t.occurredAt) from TransactionEntity t")
+    LocalDateTime findFirstOccurredAt();
 }
@@ -0,0 +1,51 @@
+package com.mauricio.bank.persistence;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outcome of an outbox message on the destination shard, keyed by the message id: the first
+ * delivery decides ({@code applied} or rejected with {@code error}) and redeliveries read it back.
+ */
+@Entity
+@Table(name = "transfer_inbox")
+public class TransferInboxEntity implements Persistable<UUID> {
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private boolean applied;
+
+    private String error;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    protected TransferInboxEntity() {}
+
+    public TransferInboxEntity(UUID id, boolean applied, String error, LocalDateTime processedAt) {
+        this.id = id;
+        this.applied = applied;
+        this.error = error != null && error.length() > 255 ? error.substring(0, 255) : error;
+        this.processedAt = processedAt;
+    }
+
+    public UUID getId() { return id; }
+    public boolean isApplied() { return applied; }
+    public String getError() { return error; }
+    public LocalDateTime getProcessedAt() { return processedAt; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+}
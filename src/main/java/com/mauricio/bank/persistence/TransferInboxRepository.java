@@ -0,0 +1,8 @@
+package com.mauricio.bank.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface TransferInboxRepository extends JpaRepository<TransferInboxEntity, UUID> {
+}
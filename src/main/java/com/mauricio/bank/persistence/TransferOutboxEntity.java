@@ -0,0 +1,80 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Credit still owed to an account on another database shard, written on the source shard in the
+ * same transaction as the debit. The relay delivers it and marks it {@code COMPLETED}, or
+ * {@code REVERSED} once the source got the money back.
+ */
+@Entity
+@Table(name = "transfer_outbox", indexes = {
+        @Index(name = "idx_transfer_outbox_status_id", columnList = "status, id")
+})
+public class TransferOutboxEntity implements Persistable<UUID> {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "from_account_number", nullable = false, length = 20)
+    private String fromAccountNumber;
+
+    @Column(name = "to_account_number", nullable = false, length = 20)
+    private String toAccountNumber;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TransferOutboxStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    protected TransferOutboxEntity() {}
+
+    public TransferOutboxEntity(UUID id, String fromAccountNumber, String toAccountNumber, Money amount, LocalDateTime createdAt) {
+        this.id = id;
+        this.fromAccountNumber = fromAccountNumber;
+        this.toAccountNumber = toAccountNumber;
+        this.amount = amount;
+        this.status = TransferOutboxStatus.PENDING;
+        this.createdAt = createdAt;
+    }
+
+    public UUID getId() { return id; }
+    public String getFromAccountNumber() { return fromAccountNumber; }
+    public String getToAccountNumber() { return toAccountNumber; }
+    public Money getAmount() { return amount; }
+    public TransferOutboxStatus getStatus() { return status; }
+    public int getAttempts() { return attempts; }
+    public String getLastError() { return lastError; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+}
@@ -0,0 +1,33 @@
+package com.mauricio.bank.persistence;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface TransferOutboxRepository extends JpaRepository<TransferOutboxEntity, UUID> {
+
+    @Query("select o from TransferOutboxEntity o where o.status = com.mauricio.bank.persistence.TransferOutboxStatus.PENDING order by o.id")
+    List<TransferOutboxEntity> findPending(Pageable page);
+
+    // Solo un relay cierra cada mensaje: el UPDATE condicional decide quien
+    @Modifying
+    @Query("""
+            update TransferOutboxEntity o set o.status = :status, o.completedAt = :at, o.lastError = :error
+            where o.id = :id and o.status = com.mauricio.bank.persistence.TransferOutboxStatus.PENDING
+            """)
+    int close(@Param("id") UUID id, @Param("status") TransferOutboxStatus status,
+              @Param("error") String error, @Param("at") LocalDateTime at);
+
+    @Modifying
+    @Query("""
+            update TransferOutboxEntity o set o.attempts = o.attempts + 1, o.lastError = :error
+            where o.id = :id and o.status = com.mauricio.bank.persistence.TransferOutboxStatus.PENDING
+            """)
+    int recordFailedAttempt(@Param("id") UUID id, @Param("error") String error);
+}
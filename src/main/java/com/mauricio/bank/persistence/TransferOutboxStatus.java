@@ -0,0 +1,7 @@
+package com.mauricio.bank.persistence;
+
+public enum TransferOutboxStatus {
+    PENDING,
+    COMPLETED,
+    REVERSED
+}
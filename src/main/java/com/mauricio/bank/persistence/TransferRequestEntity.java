@@ -0,0 +1,87 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/** Transfer accepted by {@code POST /api/transfers/async}; the table doubles as the work queue. */
+@Entity
+@Table(name = "transfer_requests", indexes = {
+        @Index(name = "idx_transfer_requests_status_id", columnList = "status, id")
+})
+public class TransferRequestEntity implements Persistable<UUID> {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "idempotency_key", unique = true, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "from_account_number", nullable = false, length = 20)
+    private String fromAccountNumber;
+
+    @Column(name = "to_account_number", nullable = false, length = 20)
+    private String toAccountNumber;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TransferRequestStatus status;
+
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    protected TransferRequestEntity() {}
+
+    public TransferRequestEntity(UUID id, String idempotencyKey, String fromAccountNumber, String toAccountNumber, Money amount, LocalDateTime createdAt) {
+        this.id = id;
+        this.idempotencyKey = idempotencyKey;
+        this.fromAccountNumber = fromAccountNumber;
+        this.toAccountNumber = toAccountNumber;
+        this.amount = amount;
+        this.status = TransferRequestStatus.PENDING;
+        this.createdAt = createdAt;
+    }
+
+    public UUID getId() { return id; }
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public String getFromAccountNumber() { return fromAccountNumber; }
+    public String getToAccountNumber() { return toAccountNumber; }
+    public Money getAmount() { return amount; }
+    public TransferRequestStatus getStatus() { return status; }
+    public String getError() { return error; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+
+    public void complete(LocalDateTime at) {
+        this.status = TransferRequestStatus.COMPLETED;
+        this.completedAt = at;
+    }
+
+    public void fail(String error, LocalDateTime at) {
+        this.status = TransferRequestStatus.FAILED;
+        this.error = error != null && error.length() > 255 ? error.substring(0, 255) : error;
+        this.completedAt = at;
+    }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+}
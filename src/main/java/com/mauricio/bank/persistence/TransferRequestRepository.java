@@ -0,0 +1,24 @@
+package com.mauricio.bank.persistence;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface TransferRequestRepository extends JpaRepository<TransferRequestEntity, UUID> {
+
+    Optional<TransferRequestEntity> findByIdempotencyKey(String idempotencyKey);
+
+    // FOR UPDATE SKIP LOCKED: varios workers (o instancias) toman lotes distintos sin esperarse
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select t from TransferRequestEntity t where t.status = com.mauricio.bank.persistence.TransferRequestStatus.PENDING order by t.id")
+    List<TransferRequestEntity> findPendingForUpdate(Pageable page);
+}
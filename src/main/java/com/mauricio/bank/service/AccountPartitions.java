@@ -0,0 +1,93 @@
+package com.mauricio.bank.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * In-process partitioning of {@link BankService} writes ({@code bank.execution.partitions > 0}), the
+ * database counterpart of {@link com.mauricio.bank.PartitionedLedgerEngine}: account numbers hash onto a
+ * fixed set of partitions, each with one virtual thread that runs its commands in arrival order. Writers
+ * of one account on this instance queue here instead of on the row lock, so same-partition work does not
+ * contend; the row locks still order writers across instances. Cross-partition transfers are a
+ * reserve/commit exchange between partitions (see {@link BankService#transfer}).
+ * <p>
+ * Each busy partition holds one pooled connection: keep the count at or below the pool size. With 0
+ * partitions (the default) work runs on the caller's thread.
+ */
+@Component
+public class AccountPartitions {
+    // Particion del hilo actual: un comando que ya corre en su particion no se vuelve a encolar
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final ExecutorService[] executors;
+
+    public AccountPartitions(@Value("${bank.execution.partitions:0}") int partitions) {
+        if (partitions < 0) throw new IllegalArgumentException("bank.execution.partitions must be >= 0");
+        this.executors = new ExecutorService[partitions];
+        for (int p = 0; p < partitions; p++) {
+            int partition = p;
+            ThreadFactory virtual = Thread.ofVirtual().name("account-partition-" + p).factory();
+            executors[p] = Executors.newSingleThreadExecutor(r -> virtual.newThread(() -> {
+                CURRENT.set(partition);
+                r.run();
+            }));
+        }
+    }
+
+    public boolean enabled() {
+        return executors.length > 0;
+    }
+
+    public int partitionOf(String accountNumber) {
+        // Mezcla los bits altos, como PartitionedLedgerEngine
+        int h = accountNumber.hashCode();
+        h ^= h >>> 16;
+        return Math.floorMod(h * 0x9E3779B9, executors.length);
+    }
+
+    public boolean samePartition(String accountNumber, String otherAccountNumber) {
+        return !enabled() || partitionOf(accountNumber) == partitionOf(otherAccountNumber);
+    }
+
+    /** Runs {@code work} on the partition of {@code accountNumber} and waits for it. */
+    public <T> T execute(String accountNumber, Supplier<T> work) {
+        if (!enabled()) return work.get();
+
+        int partition = partitionOf(accountNumber);
+        Integer current = CURRENT.get();
+        if (current != null && current == partition) return work.get();
+
+        Future<T> result = executors[partition].submit(work::get);
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            // El comando ya encolado corre igual: el llamador deja de esperarlo
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for partition " + partition, e);
+        }
+    }
+
+    /** Lets the commands already queued finish. */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        for (ExecutorService executor : executors) {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.IdempotencyKeyReusedException;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransferRequestNotFoundException;
+import com.mauricio.bank.UuidV7;
+import com.mauricio.bank.persistence.TransferRequestEntity;
+import com.mauricio.bank.persistence.TransferRequestRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Accepts transfers for background processing. A request is stored as {@code PENDING} without
+ * touching the accounts, so accepting never waits on a row lock; {@link AsyncTransferWorker}
+ * applies pending requests in batches.
+ * <p>
+ * With database shards a request is stored on the source account's shard and both accounts must
+ * live there; an {@code Idempotency-Key} is unique per shard.
+ */
+@Service
+public class AsyncTransferService {
+    private final TransferRequestRepository repo;
+    private final AsyncTransferWorker worker;
+    private final ShardRouter shards;
+    private final TransactionTemplate tx;
+
+    public AsyncTransferService(TransferRequestRepository repo, AsyncTransferWorker worker, ShardRouter shards,
+                                PlatformTransactionManager transactionManager) {
+        this.repo = repo;
+        this.worker = worker;
+        this.shards = shards;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    /** Same key and payload returns the request already stored; same key with another payload is a 409. */
+    public TransferRequestEntity accept(String fromAccountNumber, String toAccountNumber, Money amount, String idempotencyKey) {
+        if (fromAccountNumber == null || toAccountNumber == null) {
+            throw new IllegalArgumentException("from and to accounts are required");
+        }
+        if (fromAccountNumber.equals(toAccountNumber)) {
+            throw new IllegalArgumentException("from and to accounts must be different");
+        }
+        if (amount == null || !amount.isPositive()) {
+            throw new IllegalArgumentException("amount must be > 0");
+        }
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyService.MAX_KEY_LENGTH)) {
+            throw new IllegalArgumentException("Idempotency-Key must have 1-" + IdempotencyService.MAX_KEY_LENGTH + " characters");
+        }
+        if (!shards.sameShard(fromAccountNumber, toAccountNumber)) {
+            throw new IllegalArgumentException("Async transfers must stay within one database shard");
+        }
+
+        return shards.onShardOf(fromAccountNumber, () -> store(fromAccountNumber, toAccountNumber, amount, idempotencyKey));
+    }
+
+    public TransferRequestEntity status(UUID id) {
+        for (int shard = 0; shard < shards.shards(); shard++) {
+            Optional<TransferRequestEntity> request = shards.onShard(shard, () -> repo.findById(id));
+            if (request.isPresent()) return request.get();
+        }
+        throw new TransferRequestNotFoundException(id);
+    }
+
+    private TransferRequestEntity store(String fromAccountNumber, String toAccountNumber, Money amount, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            Optional<TransferRequestEntity> existing = repo.findByIdempotencyKey(idempotencyKey);
+            if (existing.isPresent()) return replay(existing.get(), fromAccountNumber, toAccountNumber, amount);
+        }
+
+        TransferRequestEntity request = new TransferRequestEntity(UuidV7.next(), idempotencyKey,
+                fromAccountNumber, toAccountNumber, amount, LocalDateTime.now());
+        try {
+            tx.executeWithoutResult(status -> repo.saveAndFlush(request));
+        } catch (DataIntegrityViolationException e) {
+            // Dos requests con la misma key: gana el que inserto primero
+            TransferRequestEntity winner = repo.findByIdempotencyKey(idempotencyKey).orElseThrow(() -> e);
+            return replay(winner, fromAccountNumber, toAccountNumber, amount);
+        }
+
+        worker.wakeUp();
+        return request;
+    }
+
+    private TransferRequestEntity replay(TransferRequestEntity existing, String fromAccountNumber, String toAccountNumber, Money amount) {
+        if (!existing.getFromAccountNumber().equals(fromAccountNumber)
+                || !existing.getToAccountNumber().equals(toAccountNumber)
+                || !existing.getAmount().equals(amount)) {
+            throw new IdempotencyKeyReusedException(existing.getIdempotencyKey());
+        }
+        return existing;
+    }
+}
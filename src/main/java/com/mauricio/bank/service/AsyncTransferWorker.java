@@ -0,0 +1,104 @@
+package com.mauricio.bank.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Threads that drain {@code transfer_requests}. Each loop takes up to {@code batch-size} pending
+ * requests with {@code FOR UPDATE SKIP LOCKED} and applies them in one transaction through
+ * {@link BankService#processQueuedTransfers}, so several workers (and instances) never wait on
+ * each other. Idle workers sleep until a request is accepted or {@code poll-interval} elapses.
+ * With database shards every loop visits all of them.
+ */
+@Component
+public class AsyncTransferWorker {
+    private static final Logger log = Logger.getLogger(AsyncTransferWorker.class.getName());
+
+    private final BankService bankService;
+    private final ShardRouter shards;
+    private final int workers;
+    private final int batchSize;
+    private final Duration pollInterval;
+
+    private final Semaphore signal = new Semaphore(0);
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public AsyncTransferWorker(BankService bankService,
+                               ShardRouter shards,
+                               @Value("${bank.async-transfers.workers:2}") int workers,
+                               @Value("${bank.async-transfers.batch-size:100}") int batchSize,
+                               @Value("${bank.async-transfers.poll-interval:1s}") Duration pollInterval) {
+        if (batchSize < 1) throw new IllegalArgumentException("bank.async-transfers.batch-size must be >= 1");
+        this.bankService = bankService;
+        this.shards = shards;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = Thread.ofPlatform().name("async-transfers-" + i).daemon().start(this::run);
+            threads.add(thread);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            thread.join(pollInterval.toMillis() + 5000);
+        }
+        threads.clear();
+    }
+
+    void wakeUp() {
+        // Un permiso alcanza: el worker despierto sigue tomando lotes hasta vaciar la cola
+        if (signal.availablePermits() < workers) signal.release();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (processAllShards() < batchSize) {
+                    signal.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                if (!running) return;
+                log.log(Level.WARNING, "Async transfer batch failed, retrying after " + pollInterval, e);
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Devuelve el lote mas grande: si algun shard lleno el lote se vuelve a pasar sin esperar
+    private int processAllShards() {
+        int max = 0;
+        for (int shard = 0; shard < shards.shards(); shard++) {
+            max = Math.max(max, shards.onShard(shard, () -> bankService.processQueuedTransfers(batchSize)));
+        }
+        return max;
+    }
+}
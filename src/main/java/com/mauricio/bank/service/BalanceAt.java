@@ -0,0 +1,14 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.Money;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** Balance of an account at {@code at}; {@code snapshotDate} is the snapshot it started from, if any. */
+public record BalanceAt(
+        String accountNumber,
+        LocalDateTime at,
+        Money balance,
+        LocalDate snapshotDate
+) {}
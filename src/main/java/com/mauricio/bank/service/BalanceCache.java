@@ -0,0 +1,77 @@
+package com.mauricio.bank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mauricio.bank.persistence.AccountEntity;
+import com.mauricio.bank.persistence.AccountSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Read-through / write-through cache of account balances keyed by account number
+ * (Caffeine: bounded, W-TinyLFU eviction, expire after write).
+ * <p>
+ * Writers publish after their transaction commits. Two commits can run their callbacks out of
+ * order, so an entry is only replaced by a snapshot with the same or a higher {@code @Version}.
+ * <p>
+ * Exposes the Caffeine statistics as {@code cache.*} meters tagged {@code cache=balances}.
+ */
+@Component
+public class BalanceCache implements MeterBinder {
+    private final Cache<String, AccountSnapshot> cache;
+
+    public BalanceCache(@Value("${bank.balance-cache.maximum-size:100000}") long maximumSize,
+                        @Value("${bank.balance-cache.expire-after-write:5m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public AccountSnapshot get(String accountNumber, Function<String, AccountSnapshot> loader) {
+        return cache.get(accountNumber, loader);
+    }
+
+    public void putAfterCommit(AccountEntity account) {
+        // La entidad se lee en afterCommit: ahi la version ya fue incrementada por el flush
+        AfterCommit.run(() -> put(AccountSnapshot.of(account)));
+    }
+
+    public void putAfterCommit(AccountSnapshot snapshot) {
+        AfterCommit.run(() -> put(snapshot));
+    }
+
+    public void invalidate(String accountNumber) {
+        cache.invalidate(accountNumber);
+    }
+
+    public void invalidateAfterCommit(String accountNumber) {
+        AfterCommit.run(() -> invalidate(accountNumber));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "balances");
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private void put(AccountSnapshot snapshot) {
+        cache.asMap().merge(snapshot.accountNumber(), snapshot,
+                (current, candidate) -> candidate.version() >= current.version() ? candidate : current);
+    }
+}
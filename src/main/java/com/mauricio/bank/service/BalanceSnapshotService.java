@@ -0,0 +1,148 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.AccountNotFoundException;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.persistence.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * End-of-day balance snapshots and point-in-time balances.
+ * <p>
+ * A daily job (after midnight) closes every day since the last one it processed: for each account
+ * with movements that day it stores the previous snapshot plus the day's net change from the
+ * journal, in one transaction per day. Days are rewritten whole, so running a day twice is harmless.
+ * <p>
+ * {@link #balanceAt} reads the latest snapshot before the requested day and sums only the journal
+ * rows after it, so the cost depends on the activity since that snapshot, not on the account's age.
+ * Amounts are summed rather than taking {@code balanceAfter}, which is exact for sharded accounts too.
+ * Without any snapshot it replays the account from its first row. When that range reaches months already
+ * moved to {@link TransactionArchive}, their rows are summed from the archive files.
+ */
+@Service
+public class BalanceSnapshotService {
+    private static final Logger log = Logger.getLogger(BalanceSnapshotService.class.getName());
+    private static final LocalDateTime MIN = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final int LOOKUP_CHUNK = 500;
+
+    private final AccountRepository accountRepo;
+    private final TransactionRepository txRepo;
+    private final BalanceSnapshotRepository snapshotRepo;
+    private final TransactionArchive archive;
+    private final ShardRouter shards;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+
+    public BalanceSnapshotService(AccountRepository accountRepo, TransactionRepository txRepo,
+                                  BalanceSnapshotRepository snapshotRepo, TransactionArchive archive, ShardRouter shards,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${bank.snapshots.enabled:true}") boolean enabled) {
+        this.accountRepo = accountRepo;
+        this.txRepo = txRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.archive = archive;
+        this.shards = shards;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+    }
+
+    /** Closes every day up to yesterday on every database shard; returns how many days were written. */
+    @Scheduled(cron = "${bank.snapshots.cron:0 5 0 * * *}")
+    public int snapshot() {
+        if (!enabled) return 0;
+
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        int days = 0;
+        for (int shard = 0; shard < shards.shards(); shard++) {
+            days += shards.onShard(shard, () -> snapshotUpTo(yesterday));
+        }
+        return days;
+    }
+
+    @Transactional(readOnly = true)
+    public BalanceAt balanceAt(String accountNumber, LocalDateTime at) {
+        if (at == null) throw new IllegalArgumentException("at is required");
+
+        return shards.onShardOf(accountNumber, () -> {
+            if (!accountRepo.existsById(accountNumber)) {
+                throw new AccountNotFoundException(accountNumber);
+            }
+
+            // El snapshot de un dia cubre hasta las 00:00 del siguiente
+            Optional<BalanceSnapshotEntity> snapshot = snapshotRepo
+                    .findFirstByAccountNumberAndSnapshotDateLessThanOrderBySnapshotDateDesc(accountNumber, at.toLocalDate());
+            if (snapshot.isEmpty() && !txRepo.existsByAccountNumberAndOccurredAtLessThanEqual(accountNumber, at)
+                    && !archive.existsAtOrBefore(accountNumber, at)) {
+                throw new IllegalArgumentException("Account " + accountNumber + " did not exist at " + at);
+            }
+
+            // Los meses archivados ya no estan en transactions: su parte del rango sale de los archivos
+            LocalDateTime from = snapshot.map(s -> s.getSnapshotDate().plusDays(1).atStartOfDay()).orElse(MIN);
+            Money base = snapshot.map(BalanceSnapshotEntity::getBalance).orElse(Money.ZERO);
+            Money balance = base.plus(Money.of(txRepo.sumNetChange(accountNumber, from, at)))
+                    .plus(archive.sumNetChange(accountNumber, from, at));
+            return new BalanceAt(accountNumber, at, balance, snapshot.map(BalanceSnapshotEntity::getSnapshotDate).orElse(null));
+        });
+    }
+
+    // --Helpers
+
+    // Corre en el shard ya seleccionado
+    int snapshotUpTo(LocalDate lastDay) {
+        LocalDate day;
+        LocalDate last = snapshotRepo.findLastSnapshotDate();
+        if (last != null) {
+            // Sin filas para los dias sin movimientos: se retoma desde el ultimo dia con snapshot, que se reescribe igual
+            day = last;
+        } else {
+            LocalDateTime first = txRepo.findFirstOccurredAt();
+            if (first == null) return 0;
+            day = first.toLocalDate();
+        }
+
+        int days = 0;
+        for (; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            LocalDate current = day;
+            int accounts = tx.execute(status -> snapshotDay(current));
+            if (accounts > 0) log.fine(() -> "Balance snapshot " + current + ": " + accounts + " accounts");
+            days++;
+        }
+        return days;
+    }
+
+    private int snapshotDay(LocalDate day) {
+        List<BalanceChangeView> changes = txRepo.sumNetChanges(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        snapshotRepo.deleteBySnapshotDate(day);
+        if (changes.isEmpty()) return 0;
+
+        List<BalanceSnapshotEntity> rows = new ArrayList<>(changes.size());
+        for (int i = 0; i < changes.size(); i += LOOKUP_CHUNK) {
+            List<BalanceChangeView> chunk = changes.subList(i, Math.min(i + LOOKUP_CHUNK, changes.size()));
+
+            Map<String, Money> previous = new HashMap<>(chunk.size() * 2);
+            for (BalanceSnapshotEntity s : snapshotRepo.findLatestBefore(
+                    chunk.stream().map(BalanceChangeView::getAccountNumber).toList(), day)) {
+                previous.put(s.getAccountNumber(), s.getBalance());
+            }
+            for (BalanceChangeView change : chunk) {
+                Money before = previous.getOrDefault(change.getAccountNumber(), Money.ZERO);
+                rows.add(new BalanceSnapshotEntity(change.getAccountNumber(), day, before.plus(Money.of(change.getNetChange()))));
+            }
+        }
+        snapshotRepo.saveAll(rows);
+        return rows.size();
+    }
+}
@@ -0,0 +1,9 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.Money;
+
+/** One deposit ({@code debit == false}) or withdrawal of a coalesced run on one account. */
+public record BalanceUpdate(
+        boolean debit,
+        Money amount
+) {}
@@ -0,0 +1,220 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.InsufficientFundsException;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.persistence.AccountSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Group commit for deposits and withdrawals on the same account, in front of {@link BankService}.
+ * <p>
+ * Callers queue their update per account. The first caller of an idle account becomes the leader:
+ * it lingers up to {@code window} (or until {@code max-batch} updates are queued), takes the queue
+ * and applies it with {@link BankService#applyBalanceUpdates}: one row lock, one balance update, one
+ * commit. Callers arriving meanwhile queue behind it; when the leader is done it hands the turn to
+ * the oldest of them, which applies the next run. Every caller gets its own result, so a rejected
+ * withdrawal does not fail the rest of its run.
+ * <p>
+ * Updates with an {@code Idempotency-Key} and updates on sharded accounts go straight to
+ * {@link BankService}; so does a run that finds the account sharded after all (stale cached bucket
+ * count). With {@code bank.coalescing.enabled=false} (the default) everything does.
+ * <p>
+ * A run always locks the row with {@code SELECT ... FOR UPDATE}, whatever {@code bank.locking.mode} says,
+ * so it only pays off on accounts with many concurrent updates.
+ */
+@Component
+public class BalanceUpdateCoalescer {
+    private final BankService bankService;
+    private final ShardedBalances shardedBalances;
+    private final BankMetrics metrics;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatch;
+
+    private final ConcurrentMap<String, AccountQueue> queues = new ConcurrentHashMap<>();
+
+    public BalanceUpdateCoalescer(BankService bankService,
+                                  ShardedBalances shardedBalances,
+                                  BankMetrics metrics,
+                                  @Value("${bank.coalescing.enabled:false}") boolean enabled,
+                                  @Value("${bank.coalescing.window:200us}") Duration window,
+                                  @Value("${bank.coalescing.max-batch:64}") int maxBatch) {
+        if (maxBatch < 1) throw new IllegalArgumentException("bank.coalescing.max-batch must be >= 1");
+        this.bankService = bankService;
+        this.shardedBalances = shardedBalances;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+    }
+
+    public AccountSnapshot deposit(String accountNumber, Money amount, String idempotencyKey) {
+        if (coalesces(accountNumber, idempotencyKey)) {
+            AccountSnapshot applied = metrics.operation("deposit",
+                    () -> submit(accountNumber, new BalanceUpdate(false, normalize(amount))));
+            if (applied != null) return applied;
+        }
+        return bankService.deposit(accountNumber, amount, idempotencyKey);
+    }
+
+    public AccountSnapshot withdraw(String accountNumber, Money amount, String idempotencyKey) {
+        if (coalesces(accountNumber, idempotencyKey)) {
+            AccountSnapshot applied = metrics.operation("withdraw",
+                    () -> submit(accountNumber, new BalanceUpdate(true, normalize(amount))));
+            if (applied != null) return applied;
+        }
+        return bankService.withdraw(accountNumber, amount, idempotencyKey);
+    }
+
+    // --Helpers
+
+    private static final class Pending {
+        final BalanceUpdate update;
+        final CompletableFuture<BalanceUpdateResult> result = new CompletableFuture<>();
+        // Se completa cuando el llamador pasa a ser lider de la cuenta
+        final CompletableFuture<Void> turn = new CompletableFuture<>();
+
+        Pending(BalanceUpdate update) {
+            this.update = update;
+        }
+    }
+
+    private static final class AccountQueue {
+        final String accountNumber;
+        final ArrayDeque<Pending> waiting = new ArrayDeque<>();
+        boolean busy;
+        boolean removed;
+        volatile Thread leader;
+
+        AccountQueue(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+    }
+
+    private boolean coalesces(String accountNumber, String idempotencyKey) {
+        return enabled && idempotencyKey == null && shardedBalances.bucketCount(accountNumber) == 0;
+    }
+
+    // null si la cuenta resulto sharded (el bucket count cacheado estaba viejo): el llamador va por BankService
+    private AccountSnapshot submit(String accountNumber, BalanceUpdate update) {
+        Pending pending = new Pending(update);
+        AccountQueue queue;
+        boolean lead;
+        while (true) {
+            queue = queues.computeIfAbsent(accountNumber, AccountQueue::new);
+            synchronized (queue) {
+                // La cola se saco del mapa al quedar vacia: se toma la nueva
+                if (queue.removed) continue;
+                queue.waiting.add(pending);
+                lead = !queue.busy;
+                queue.busy = true;
+                if (!lead && queue.waiting.size() >= maxBatch) {
+                    Thread leader = queue.leader;
+                    if (leader != null) LockSupport.unpark(leader);
+                }
+            }
+            break;
+        }
+
+        if (!lead) {
+            try {
+                CompletableFuture.anyOf(pending.result, pending.turn).join();
+            } catch (CompletionException ignored) {
+                // El resultado se lee abajo
+            }
+            lead = !pending.result.isDone();
+        }
+        if (lead) {
+            applyNextRun(queue);
+        }
+
+        BalanceUpdateResult result;
+        try {
+            result = await(pending.result);
+        } catch (BucketCountChangedException e) {
+            // La corrida no escribio nada
+            shardedBalances.bucketCountChanged(e.getAccountNumber(), e.getBucketCount());
+            return null;
+        }
+        if (result.error() != null) {
+            throw new InsufficientFundsException(result.error());
+        }
+        return result.account();
+    }
+
+    private void applyNextRun(AccountQueue queue) {
+        queue.leader = Thread.currentThread();
+        linger(queue);
+
+        List<Pending> run = new ArrayList<>();
+        synchronized (queue) {
+            while (run.size() < maxBatch && !queue.waiting.isEmpty()) {
+                run.add(queue.waiting.poll());
+            }
+            queue.leader = null;
+        }
+
+        try {
+            List<BalanceUpdate> updates = new ArrayList<>(run.size());
+            for (Pending p : run) updates.add(p.update);
+            List<BalanceUpdateResult> results = bankService.applyBalanceUpdates(queue.accountNumber, updates);
+            metrics.coalescedBatch(run.size());
+            for (int i = 0; i < run.size(); i++) {
+                run.get(i).result.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            for (Pending p : run) p.result.completeExceptionally(e);
+        } finally {
+            Pending next;
+            synchronized (queue) {
+                next = queue.waiting.peek();
+                if (next == null) {
+                    queue.busy = false;
+                    queue.removed = true;
+                    queues.remove(queue.accountNumber, queue);
+                }
+            }
+            if (next != null) next.turn.complete(null);
+        }
+    }
+
+    private void linger(AccountQueue queue) {
+        if (windowNanos <= 0) return;
+
+        long deadline = System.nanoTime() + windowNanos;
+        while (true) {
+            synchronized (queue) {
+                if (queue.waiting.size() >= maxBatch) return;
+            }
+            long left = deadline - System.nanoTime();
+            if (left <= 0) return;
+            LockSupport.parkNanos(this, left);
+        }
+    }
+
+    private static Money normalize(Money value) {
+        if (value == null) throw new IllegalArgumentException("Amount is required");
+        if (!value.isPositive()) throw new IllegalArgumentException("amount must be > 0");
+        return value;
+    }
+
+    private static BalanceUpdateResult await(CompletableFuture<BalanceUpdateResult> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.persistence.AccountSnapshot;
+
+/** {@code account} as of right after the update, or the reason the update was rejected. */
+public record BalanceUpdateResult(
+        AccountSnapshot account,
+        String error
+) {
+    public static BalanceUpdateResult applied(AccountSnapshot account) {
+        return new BalanceUpdateResult(account, null);
+    }
+
+    public static BalanceUpdateResult rejected(String error) {
+        return new BalanceUpdateResult(null, error);
+    }
+}
@@ -0,0 +1,126 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.AccountNotFoundException;
+import com.mauricio.bank.ContentionTracker;
+import com.mauricio.bank.IdempotencyKeyReusedException;
+import com.mauricio.bank.InsufficientFundsException;
+import com.mauricio.bank.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters of {@link BankService}:
+ * <ul>
+ *   <li>{@code bank.operations} timer (percentile histogram) tagged with {@code operation} and
+ *       {@code outcome} ({@code success}, {@code insufficient_funds}, {@code not_found}, {@code invalid},
+ *       {@code busy}, {@code conflict}, {@code error});</li>
+ *   <li>{@code bank.insufficient.funds} counter per operation;</li>
+ *   <li>{@code bank.lock.wait} timer per locking {@code statement}: time until the row locks are held
+ *       ({@code select_for_update}, {@code batch_select_for_update}) or the locking update returns
+ *       ({@code atomic_update}).</li>
+ *   <li>{@code bank.coalescing.batch.size}: deposits/withdrawals applied per coalesced transaction.</li>
+ * </ul>
+ * Single-account lock waits of at least {@code bank.contention.min-wait} are also reported to the
+ * {@link ContentionTracker}: the database does not say whether a lock was free, a slow acquisition does.
+ */
+@Component
+public class BankMetrics {
+    private final MeterRegistry registry;
+    private final ContentionTracker contention;
+    private final long contentionMinWaitNanos;
+    private final Map<String, Timer> operationTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> lockTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> insufficientFunds = new ConcurrentHashMap<>();
+    private final DistributionSummary coalescedBatches;
+
+    public BankMetrics(MeterRegistry registry,
+                       ContentionTracker contention,
+                       @Value("${bank.contention.min-wait:2ms}") Duration contentionMinWait) {
+        this.registry = registry;
+        this.contention = contention;
+        this.contentionMinWaitNanos = contentionMinWait.toNanos();
+        this.coalescedBatches = DistributionSummary.builder("bank.coalescing.batch.size")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    <T> T operation(String operation, Supplier<T> work) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } catch (InsufficientFundsException e) {
+            outcome = "insufficient_funds";
+            insufficientFunds.computeIfAbsent(operation, op -> Counter.builder("bank.insufficient.funds")
+                    .tag("operation", op)
+                    .register(registry)).increment();
+            throw e;
+        } catch (AccountNotFoundException e) {
+            outcome = "not_found";
+            throw e;
+        } catch (IllegalArgumentException e) {
+            outcome = "invalid";
+            throw e;
+        } catch (ServiceBusyException e) {
+            outcome = "busy";
+            throw e;
+        } catch (IdempotencyKeyReusedException e) {
+            outcome = "conflict";
+            throw e;
+        } finally {
+            operationTimer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void operation(String operation, Runnable work) {
+        operation(operation, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    <T> T lockWait(String statement, Supplier<T> lock) {
+        return lockWait(statement, null, lock);
+    }
+
+    /** Same as {@link #lockWait(String, Supplier)} for a lock on one account, feeding the contention tracker. */
+    <T> T lockWait(String statement, String accountNumber, Supplier<T> lock) {
+        long start = System.nanoTime();
+        try {
+            return lock.get();
+        } finally {
+            long wait = System.nanoTime() - start;
+            lockTimers.computeIfAbsent(statement, s -> Timer.builder("bank.lock.wait")
+                    .tag("statement", s)
+                    .publishPercentileHistogram()
+                    .register(registry)).record(wait, TimeUnit.NANOSECONDS);
+            if (accountNumber != null && wait >= contentionMinWaitNanos) {
+                contention.record(accountNumber, wait);
+            }
+        }
+    }
+
+    void coalescedBatch(int size) {
+        coalescedBatches.record(size);
+    }
+
+    private Timer operationTimer(String operation, String outcome) {
+        return operationTimers.computeIfAbsent(operation + '|' + outcome, k -> Timer.builder("bank.operations")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
@@ -2,120 +2,557 @@ package com.mauricio.bank.service;
 
 import com.mauricio.bank.InsufficientFundsException;
 import com.mauricio.bank.AccountNotFoundException;
+import com.mauricio.bank.Money;
 import com.mauricio.bank.TransactionType;
+import com.mauricio.bank.UuidV7;
 import com.mauricio.bank.persistence.*;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 @Service
 public class BankService {
+    private static final int MAX_HISTORY_LIMIT = 200;
+
     private final AccountRepository accountRepo;
     private final TransactionRepository txRepo;
-
-    public BankService(AccountRepository accountRepo, TransactionRepository txRepo) {
+    private final TransactionBatchWriter txBatchWriter;
+    private final BalanceCache balanceCache;
+    private final LockingExecutor locking;
+    private final ShardedBalances shardedBalances;
+    private final IdempotencyService idempotency;
+    private final TransferRequestRepository transferRequestRepo;
+    private final TransactionArchive archive;
+    private final BankMetrics metrics;
+    private final ShardRouter shards;
+    private final TransferOutboxRepository outboxRepo;
+    private final DailyRollupWriter rollups;
+    private final AccountPartitions partitions;
+    private final TransferOutboxRelay relay;
+
+    // El relay depende de este servicio: se inyecta un proxy lazy
+    public BankService(AccountRepository accountRepo, TransactionRepository txRepo, TransactionBatchWriter txBatchWriter,
+                       BalanceCache balanceCache, LockingExecutor locking, ShardedBalances shardedBalances,
+                       IdempotencyService idempotency, TransferRequestRepository transferRequestRepo,
+                       TransactionArchive archive, BankMetrics metrics, ShardRouter shards,
+                       TransferOutboxRepository outboxRepo, DailyRollupWriter rollups,
+                       AccountPartitions partitions, @Lazy TransferOutboxRelay relay) {
         this.accountRepo = accountRepo;
         this.txRepo = txRepo;
+        this.txBatchWriter = txBatchWriter;
+        this.balanceCache = balanceCache;
+        this.locking = locking;
+        this.shardedBalances = shardedBalances;
+        this.idempotency = idempotency;
+        this.transferRequestRepo = transferRequestRepo;
+        this.archive = archive;
+        this.metrics = metrics;
+        this.shards = shards;
+        this.outboxRepo = outboxRepo;
+        this.rollups = rollups;
+        this.partitions = partitions;
+        this.relay = relay;
     }
 
     @Transactional
-    public AccountEntity createAccount(String accountNumber, String ownerName, BigDecimal initialBalance) {
+    public AccountEntity createAccount(String accountNumber, String ownerName, Money initialBalance) {
         validateAccountNumber(accountNumber);
         validateOwnerName(ownerName);
 
-        BigDecimal init = normalizeInitialBalance(initialBalance);
+        Money init = normalizeInitialBalance(initialBalance);
+
+        return shards.onShardOf(accountNumber, () -> {
+            if (accountRepo.existsById(accountNumber)) {
+                throw new IllegalArgumentException("Account already exists: " + accountNumber);
+            }
+
+            AccountEntity account = new AccountEntity(accountNumber, ownerName, init);
+            accountRepo.save(account);
+
+            record(accountNumber, TransactionType.ACCOUNT_CREATED, init,
+                    Money.ZERO, init, "Account created");
+
+            balanceCache.putAfterCommit(account);
+            return account;
+        });
+    }
+
+    // Sin @Transactional: un hit en cache no toma conexion del pool
+    public AccountSnapshot getAccount(String accountNumber) {
+        return balanceCache.get(accountNumber, n -> shards.onShardOf(n, () -> shardedBalances.bucketCount(n) > 0
+                ? shardedBalances.total(n)
+                : accountRepo.findById(n)
+                        .map(AccountSnapshot::of)
+                        .orElseThrow(() -> new AccountNotFoundException(n))));
+    }
+
+    public AccountSnapshot enableSharding(String accountNumber, int buckets) {
+        AccountSnapshot snapshot = shards.onShardOf(accountNumber, () -> shardedBalances.enable(accountNumber, buckets));
+        balanceCache.invalidate(accountNumber);
+        return snapshot;
+    }
+
+    // deposit/withdraw/transfer: la transaccion la abre LockingExecutor (puede reintentar)
+    // Las cuentas sharded siempre usan UPDATE atomicos sobre sus buckets
+    // Con bank.execution.partitions corren en el hilo de la particion de la cuenta (AccountPartitions)
+    public AccountSnapshot deposit(String accountNumber, Money amount) {
+        return deposit(accountNumber, amount, null);
+    }
+
+    /** {@code idempotencyKey} may be {@code null}; see {@link IdempotencyService}. */
+    public AccountSnapshot deposit(String accountNumber, Money amount, String idempotencyKey) {
+        return metrics.operation("deposit", () -> {
+            Money normalized = normalizeMoney(amount);
+            IdempotencyService.Request request = idempotency.request(idempotencyKey, "DEPOSIT", accountNumber, normalized);
+
+            return onAccount(accountNumber, () -> idempotency.execute(request, () -> rerouted(() -> {
+                int buckets = shardedBalances.bucketCount(accountNumber);
+                if (buckets > 0) {
+                    return locking.inTransaction(() ->
+                            idempotency.record(request, applyAtomicDeposit(accountNumber, buckets, normalized)));
+                }
+                return locking.execute(mode ->
+                        idempotency.record(request, applyDeposit(accountNumber, normalized, mode)), accountNumber);
+            })));
+        });
+    }
+
+    public AccountSnapshot withdraw(String accountNumber, Money amount) {
+        return withdraw(accountNumber, amount, null);
+    }
+
+    public AccountSnapshot withdraw(String accountNumber, Money amount, String idempotencyKey) {
+        return metrics.operation("withdraw", () -> {
+            Money normalized = normalizeMoney(amount);
+            IdempotencyService.Request request = idempotency.request(idempotencyKey, "WITHDRAW", accountNumber, normalized);
+
+            return onAccount(accountNumber, () -> idempotency.execute(request, () -> rerouted(() -> {
+                int buckets = shardedBalances.bucketCount(accountNumber);
+                if (buckets > 0) {
+                    return locking.inTransaction(() ->
+                            idempotency.record(request, applyAtomicWithdraw(accountNumber, buckets, normalized)));
+                }
+                return locking.execute(mode ->
+                        idempotency.record(request, applyWithdraw(accountNumber, normalized, mode)), accountNumber);
+            })));
+        });
+    }
 
-        if (accountRepo.existsById(accountNumber)) {
-            throw new IllegalArgumentException("Account already exists: " + accountNumber);
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount) {
+        transfer(fromAccountNumber, toAccountNumber, amount, null);
+    }
+
+    public void transfer(String fromAccountNumber, String toAccountNumber, Money amount, String idempotencyKey) {
+        metrics.operation("transfer", () -> {
+            if (fromAccountNumber.equals(toAccountNumber)) {
+                throw new IllegalArgumentException("from and to accounts must be different");
+            }
+
+            Money normalized = normalizeMoney(amount);
+            IdempotencyService.Request request = idempotency.request(idempotencyKey, "TRANSFER",
+                    fromAccountNumber, toAccountNumber, normalized);
+
+            if (!shards.sameShard(fromAccountNumber, toAccountNumber)) {
+                reserveTransfer(fromAccountNumber, toAccountNumber, normalized, request);
+                return;
+            }
+            if (!partitions.samePartition(fromAccountNumber, toAccountNumber)) {
+                transferAcrossPartitions(fromAccountNumber, toAccountNumber, normalized, request);
+                return;
+            }
+
+            onAccount(fromAccountNumber, () -> idempotency.execute(request, () -> rerouted(() -> {
+                int fromBuckets = shardedBalances.bucketCount(fromAccountNumber);
+                int toBuckets = shardedBalances.bucketCount(toAccountNumber);
+                if (fromBuckets > 0 || toBuckets > 0) {
+                    return locking.inTransaction(() -> {
+                        applyAtomicTransfer(fromAccountNumber, fromBuckets, toAccountNumber, toBuckets, normalized);
+                        return idempotency.record(request, null);
+                    });
+                }
+
+                return locking.execute(mode -> {
+                    applyTransfer(fromAccountNumber, toAccountNumber, normalized, mode);
+                    return idempotency.record(request, null);
+                }, fromAccountNumber, toAccountNumber);
+            })));
+        });
+    }
+
+    /**
+     * Applies many transfers in one DB transaction. All involved accounts are locked with a single
+     * ordered SELECT ... FOR UPDATE, moves are applied in memory in request order and the journal
+     * is written with one JDBC batch. A failed item (unknown account, insufficient funds, balance
+     * overflow...) does not affect the others. With database shards every account of the batch must
+     * live on one shard.
+     */
+    @Transactional
+    public List<TransferResult> transferBatch(List<TransferCommand> transfers) {
+        if (transfers == null || transfers.isEmpty()) {
+            throw new IllegalArgumentException("transfers are required");
         }
+        return metrics.operation("transfer_batch", () -> shards.onShard(batchShard(transfers), () -> applyBatch(transfers)));
+    }
 
-        AccountEntity account = new AccountEntity(accountNumber, ownerName, init);
-        accountRepo.save(account);
+    /**
+     * Takes up to {@code limit} pending async transfer requests (skipping rows another worker holds),
+     * applies them like {@link #transferBatch} and stores each outcome in the same transaction. A
+     * request that throws is stored as FAILED, so it is not polled again. Returns how many requests
+     * were processed.
+     */
+    @Transactional
+    public int processQueuedTransfers(int limit) {
+        List<TransferRequestEntity> pending = transferRequestRepo.findPendingForUpdate(PageRequest.ofSize(limit));
+        if (pending.isEmpty()) return 0;
+
+        List<TransferCommand> commands = pending.stream()
+                .map(r -> new TransferCommand(r.getFromAccountNumber(), r.getToAccountNumber(), r.getAmount()))
+                .toList();
+        List<TransferResult> results = applyBatch(commands);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < pending.size(); i++) {
+            TransferResult result = results.get(i);
+            if (result.success()) pending.get(i).complete(now);
+            else pending.get(i).fail(result.error(), now);
+        }
+        return pending.size();
+    }
 
-        record(accountNumber, TransactionType.ACCOUNT_CREATED, init,
-                new BigDecimal("0.00"), init, "Account created");
+    /**
+     * Applies a run of deposits and withdrawals on one account in one transaction (see
+     * {@link BalanceUpdateCoalescer}): one row lock, one balance update and one journal row per
+     * update, in order. A withdrawal the running balance cannot cover is rejected alone. Each
+     * result carries the balance right after its own update and the version the run committed.
+     */
+    List<BalanceUpdateResult> applyBalanceUpdates(String accountNumber, List<BalanceUpdate> updates) {
+        return shards.onShardOf(accountNumber, () -> locking.inTransaction(() -> {
+            AccountEntity account = loadForWrite(accountNumber, LockingMode.PESSIMISTIC);
+
+            Money balance = account.getBalance();
+            Money[] balances = new Money[updates.size()];
+            String[] errors = new String[updates.size()];
+            List<TransactionEntity> journal = new ArrayList<>(updates.size());
+
+            for (int i = 0; i < updates.size(); i++) {
+                BalanceUpdate update = updates.get(i);
+                Money amount = update.amount();
+                if (update.debit() && balance.isLessThan(amount)) {
+                    errors[i] = "Insufficient funds. Balance=" + balance + ", amount=" + amount;
+                    continue;
+                }
+
+                Money after = update.debit() ? balance.minus(amount) : balance.plus(amount);
+                journal.add(newEntry(accountNumber, update.debit() ? TransactionType.WITHDRAW : TransactionType.DEPOSIT,
+                        amount, balance, after, update.debit() ? "Withdraw" : "Deposit"));
+                balances[i] = after;
+                balance = after;
+            }
+
+            if (!journal.isEmpty()) {
+                account.setBalance(balance);
+                // flush: la version de la respuesta es la que queda en la fila
+                accountRepo.saveAndFlush(account);
+                txBatchWriter.insertAll(journal);
+                rollups.addAll(journal, this::rollupSlot);
+                balanceCache.putAfterCommit(account);
+            }
+
+            List<BalanceUpdateResult> results = new ArrayList<>(updates.size());
+            for (int i = 0; i < updates.size(); i++) {
+                results.add(errors[i] != null
+                        ? BalanceUpdateResult.rejected(errors[i])
+                        : BalanceUpdateResult.applied(new AccountSnapshot(accountNumber, account.getOwnerName(),
+                                                                          balances[i], account.getVersion())));
+            }
+            return results;
+        }));
+    }
 
-        return account;
+    @Transactional(readOnly = true)
+    public Page<TransactionEntity> getTransactions(String accountNumber, Pageable pageable) {
+        return metrics.operation("transactions", () -> {
+            return shards.onShardOf(accountNumber, () -> {
+                // valida existencia
+                if (!accountRepo.existsById(accountNumber)) {
+                    throw new AccountNotFoundException(accountNumber);
+                }
+                return txRepo.findByAccountNumber(accountNumber, pageable);
+            });
+        });
     }
 
     @Transactional(readOnly = true)
-    public AccountEntity getAccount(String accountNumber) {
-        return accountRepo.findById(accountNumber)
-                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+    public Slice<TransactionEntity> getTransactionHistory(String accountNumber, String after, int limit) {
+        return metrics.operation("history", () -> shards.onShardOf(accountNumber, () -> loadHistory(accountNumber, after, limit)));
     }
 
-    @Transactional
-    public AccountEntity deposit(String accountNumber, BigDecimal amount) {
-        BigDecimal normalized = normalizeMoney(amount);
+    /**
+     * Destination side of a cross-shard transfer, in the caller's transaction on the destination
+     * shard: credits {@code toAccountNumber} and journals {@code TRANSFER_IN}.
+     */
+    AccountSnapshot receiveTransfer(String fromAccountNumber, String toAccountNumber, Money amount) {
+        // El UPDATE rechazado no escribio nada: se puede rerutear dentro de la misma transaccion
+        return rerouted(() -> {
+            int buckets = shardedBalances.bucketCount(toAccountNumber);
+            AccountSnapshot to = creditAtomically(toAccountNumber, buckets, amount);
+            Money after = to.balance();
+            record(toAccountNumber, TransactionType.TRANSFER_IN, amount, after.minus(amount), after,
+                    "Transfer from " + fromAccountNumber);
+            refreshCacheAfterCommit(to, buckets);
+            return to;
+        });
+    }
 
-        AccountEntity account = accountRepo.findByAccountNumberForUpdate(accountNumber)
-                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+    /**
+     * Compensation of a cross-shard transfer the destination rejected, in the caller's transaction
+     * on the source shard: gives the amount back with a {@code TRANSFER_REVERSAL} entry.
+     */
+    AccountSnapshot reverseTransfer(String fromAccountNumber, String toAccountNumber, Money amount) {
+        return rerouted(() -> {
+            int buckets = shardedBalances.bucketCount(fromAccountNumber);
+            AccountSnapshot from = creditAtomically(fromAccountNumber, buckets, amount);
+            Money after = from.balance();
+            record(fromAccountNumber, TransactionType.TRANSFER_REVERSAL, amount, after.minus(amount), after,
+                    "Reversal of transfer to " + toAccountNumber);
+            refreshCacheAfterCommit(from, buckets);
+            return from;
+        });
+    }
+
+    // --- Helpers
+
+    // Particion y shard de la cuenta: la particion primero, la seleccion de shard es del hilo que corre el trabajo
+    private <T> T onAccount(String accountNumber, Supplier<T> work) {
+        return partitions.execute(accountNumber, () -> shards.onShardOf(accountNumber, work));
+    }
+
+    // El bucket count sale de una cache por instancia: si la fila ya esta sharded (otra instancia activo el
+    // sharding hace menos de un TTL) no se escribio nada; se actualiza la cache y se vuelve a rutear.
+    // El sharding no se desactiva, asi que cada cuenta reintenta a lo sumo una vez.
+    private <T> T rerouted(Supplier<T> work) {
+        while (true) {
+            try {
+                return work.get();
+            } catch (BucketCountChangedException e) {
+                shardedBalances.bucketCountChanged(e.getAccountNumber(), e.getBucketCount());
+            }
+        }
+    }
+
+    // Particiones distintas en el mismo shard: reserva (debito + outbox) en la particion de origen y commit
+    // (credito + inbox) en la de destino, sin esperar al relay. Si el commit falla queda pendiente en el outbox
+    // y el relay lo reintenta: el debito ya confirmado nunca se pierde.
+    private void transferAcrossPartitions(String fromAccountNumber, String toAccountNumber, Money normalized,
+                                          IdempotencyService.Request request) {
+        TransferOutboxEntity message = reserveTransfer(fromAccountNumber, toAccountNumber, normalized, request);
+        // null: repeticion de una Idempotency-Key, el primer intento ya dejo su mensaje
+        if (message != null) relay.deliver(message);
+    }
+
+    // Origen y destino en shards (o particiones) distintos: el debito y el mensaje al outbox van en una transaccion
+    // del shard de origen; TransferOutboxRelay acredita el destino despues (o revierte si lo rechaza)
+    private TransferOutboxEntity reserveTransfer(String fromAccountNumber, String toAccountNumber, Money normalized,
+                                                 IdempotencyService.Request request) {
+        // Solo se devuelve un mensaje confirmado: un intento con rollback (reintento, key repetida) no cuenta
+        AtomicReference<TransferOutboxEntity> reserved = new AtomicReference<>();
+        onAccount(fromAccountNumber, () -> idempotency.execute(request, () -> rerouted(() -> {
+            if (!shards.onShardOf(toAccountNumber, () -> accountRepo.existsById(toAccountNumber))) {
+                throw new AccountNotFoundException(toAccountNumber);
+            }
+
+            int fromBuckets = shardedBalances.bucketCount(fromAccountNumber);
+            if (fromBuckets > 0) {
+                return locking.inTransaction(() -> {
+                    TransferOutboxEntity message = applyTransferOut(fromAccountNumber, fromBuckets, toAccountNumber,
+                            normalized, LockingMode.ATOMIC);
+                    AfterCommit.run(() -> reserved.set(message));
+                    return idempotency.record(request, null);
+                });
+            }
+            return locking.execute(mode -> {
+                TransferOutboxEntity message = applyTransferOut(fromAccountNumber, 0, toAccountNumber, normalized, mode);
+                AfterCommit.run(() -> reserved.set(message));
+                return idempotency.record(request, null);
+            }, fromAccountNumber);
+        })));
+        return reserved.get();
+    }
+
+    private TransferOutboxEntity applyTransferOut(String fromAccountNumber, int buckets, String toAccountNumber,
+                                                  Money normalized, LockingMode mode) {
+        Money after;
+        if (mode == LockingMode.ATOMIC) {
+            AccountSnapshot from = debitAtomically(fromAccountNumber, buckets, normalized);
+            after = from.balance();
+            refreshCacheAfterCommit(from, buckets);
+        } else {
+            AccountEntity from = loadForWrite(fromAccountNumber, mode);
+            Money before = from.getBalance();
+            if (before.isLessThan(normalized)) {
+                throw new InsufficientFundsException("Insufficient funds. Balance=" + before + ", amount=" + normalized);
+            }
+            after = before.minus(normalized);
+            from.setBalance(after);
+            accountRepo.save(from);
+            balanceCache.putAfterCommit(from);
+        }
+
+        record(fromAccountNumber, TransactionType.TRANSFER_OUT, normalized, after.plus(normalized), after,
+                "Transfer to " + toAccountNumber);
+        return outboxRepo.save(new TransferOutboxEntity(UuidV7.next(), fromAccountNumber, toAccountNumber, normalized,
+                LocalDateTime.now()));
+    }
+
+    private int batchShard(List<TransferCommand> transfers) {
+        int shard = -1;
+        for (TransferCommand t : transfers) {
+            for (String accountNumber : new String[] {t.fromAccountNumber(), t.toAccountNumber()}) {
+                if (accountNumber == null) continue;
+                int s = shards.shardOf(accountNumber);
+                if (shard >= 0 && s != shard) {
+                    throw new IllegalArgumentException("Batch transfers must stay within one database shard");
+                }
+                shard = s;
+            }
+        }
+        return Math.max(shard, 0);
+    }
+
+    private Slice<TransactionEntity> loadHistory(String accountNumber, String after, int limit) {
+        if (limit < 1 || limit > MAX_HISTORY_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_HISTORY_LIMIT);
+        }
+        if (!accountRepo.existsById(accountNumber)) {
+            throw new AccountNotFoundException(accountNumber);
+        }
+
+        Pageable page = PageRequest.ofSize(limit);
+        HistoryCursor cursor = after == null || after.isBlank() ? null : HistoryCursor.decode(after);
+        Slice<TransactionEntity> slice = cursor == null
+                ? txRepo.findHistory(accountNumber, page)
+                : txRepo.findHistoryAfter(accountNumber, cursor.occurredAt(), cursor.id(), page);
+        if (slice.hasNext()) return slice;
+
+        // Filas de particiones archivadas: siempre mas viejas que las que quedan en la base
+        List<TransactionEntity> rows = new ArrayList<>(slice.getContent());
+        HistoryCursor last = rows.isEmpty() ? cursor : HistoryCursor.of(rows.getLast());
+        List<TransactionEntity> archived = archive.findHistoryBefore(accountNumber,
+                last == null ? null : last.occurredAt(), last == null ? null : last.id(), limit - rows.size() + 1);
+        if (archived.isEmpty()) return slice;
+
+        boolean hasNext = archived.size() > limit - rows.size();
+        rows.addAll(hasNext ? archived.subList(0, limit - rows.size()) : archived);
+        return new SliceImpl<>(rows, page, hasNext);
+    }
+
+    private List<TransferResult> applyBatch(List<TransferCommand> transfers) {
+        Set<String> accountNumbers = new TreeSet<>();
+        for (TransferCommand t : transfers) {
+            if (t.fromAccountNumber() != null) accountNumbers.add(t.fromAccountNumber());
+            if (t.toAccountNumber() != null) accountNumbers.add(t.toAccountNumber());
+        }
+
+        Map<String, AccountEntity> locked = new HashMap<>();
+        List<AccountEntity> lockedRows = metrics.lockWait("batch_select_for_update",
+                () -> accountRepo.findAllByAccountNumberForUpdate(accountNumbers));
+        for (AccountEntity account : lockedRows) {
+            locked.put(account.getAccountNumber(), account);
+        }
 
-        BigDecimal before = account.getBalance();
-        BigDecimal after = before.add(normalized);
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        List<TransactionEntity> journal = new ArrayList<>(transfers.size() * 2);
+
+        for (int i = 0; i < transfers.size(); i++) {
+            try {
+                applyBatchTransfer(transfers.get(i), locked, journal);
+                results.add(TransferResult.completed(i));
+            } catch (RuntimeException e) {
+                // Solo falla este item: applyBatchTransfer no toca la base ni cambia saldos antes de validar
+                results.add(TransferResult.failed(i, e.getMessage() != null ? e.getMessage() : e.toString()));
+            }
+        }
+
+        // Los saldos se escriben al hacer flush (entidades administradas)
+        txBatchWriter.insertAll(journal);
+        rollups.addAll(journal, this::rollupSlot);
+        locked.values().forEach(balanceCache::putAfterCommit);
+        return results;
+    }
+
+    private AccountSnapshot applyDeposit(String accountNumber, Money normalized, LockingMode mode) {
+        if (mode == LockingMode.ATOMIC) {
+            return applyAtomicDeposit(accountNumber, 0, normalized);
+        }
+
+        AccountEntity account = loadForWrite(accountNumber, mode);
+
+        Money before = account.getBalance();
+        Money after = before.plus(normalized);
 
         account.setBalance(after);
         accountRepo.save(account);
 
         record(accountNumber, TransactionType.DEPOSIT, normalized, before, after, "Deposit");
-        return account;
+        balanceCache.putAfterCommit(account);
+        return AccountSnapshot.of(account);
     }
 
-    @Transactional
-    public AccountEntity withdraw(String accountNumber, BigDecimal amount) {
-        BigDecimal normalized = normalizeMoney(amount);
+    private AccountSnapshot applyWithdraw(String accountNumber, Money normalized, LockingMode mode) {
+        if (mode == LockingMode.ATOMIC) {
+            return applyAtomicWithdraw(accountNumber, 0, normalized);
+        }
 
-        AccountEntity account = accountRepo.findByAccountNumberForUpdate(accountNumber)
-                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        AccountEntity account = loadForWrite(accountNumber, mode);
 
-        BigDecimal before = account.getBalance();
-        if (before.compareTo(normalized) < 0) {
+        Money before = account.getBalance();
+        if (before.isLessThan(normalized)) {
             throw new InsufficientFundsException("Insufficient funds. Balance=" + before + ", amount=" + normalized);
         }
 
-        BigDecimal after = before.subtract(normalized);
+        Money after = before.minus(normalized);
         account.setBalance(after);
         accountRepo.save(account);
 
         record(accountNumber, TransactionType.WITHDRAW, normalized, before, after, "Withdraw");
-        return account;
+        balanceCache.putAfterCommit(account);
+        return AccountSnapshot.of(account);
     }
 
-    @Transactional
-    public void transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount) {
-        if (fromAccountNumber.equals(toAccountNumber)) {
-            throw new IllegalArgumentException("from and to accounts must be different");
+    private void applyTransfer(String fromAccountNumber, String toAccountNumber, Money normalized, LockingMode mode) {
+        if (mode == LockingMode.ATOMIC) {
+            applyAtomicTransfer(fromAccountNumber, 0, toAccountNumber, 0, normalized);
+            return;
         }
 
-        BigDecimal normalized = normalizeMoney(amount);
-
         // Orden para evitar deadlocks a nivel DB también
         String first = fromAccountNumber.compareTo(toAccountNumber) < 0 ? fromAccountNumber : toAccountNumber;
         String second = fromAccountNumber.compareTo(toAccountNumber) < 0 ? toAccountNumber : fromAccountNumber;
 
-        AccountEntity firstAcc = accountRepo.findByAccountNumberForUpdate(first)
-                .orElseThrow(() -> new AccountNotFoundException(first));
-        AccountEntity secondAcc = accountRepo.findByAccountNumberForUpdate(second)
-                .orElseThrow(() -> new AccountNotFoundException(second));
+        AccountEntity firstAcc = loadForWrite(first, mode);
+        AccountEntity secondAcc = loadForWrite(second, mode);
 
         AccountEntity from = fromAccountNumber.equals(first) ? firstAcc : secondAcc;
         AccountEntity to = toAccountNumber.equals(first) ? firstAcc : secondAcc;
 
-        BigDecimal fromBefore = from.getBalance();
-        if (fromBefore.compareTo(normalized) < 0) {
+        Money fromBefore = from.getBalance();
+        if (fromBefore.isLessThan(normalized)) {
             throw new InsufficientFundsException("Insufficient funds. Balance=" + fromBefore + ", amount=" + normalized);
         }
-        BigDecimal fromAfter = fromBefore.subtract(normalized);
+        Money fromAfter = fromBefore.minus(normalized);
+        Money toBefore = to.getBalance();
+        Money toAfter = toBefore.plus(normalized);
         from.setBalance(fromAfter);
-
-        BigDecimal toBefore = to.getBalance();
-        BigDecimal toAfter = toBefore.add(normalized);
         to.setBalance(toAfter);
 
         accountRepo.save(from);
@@ -125,24 +562,162 @@ public class BankService {
                 "Transfer to " + toAccountNumber);
         record(toAccountNumber, TransactionType.TRANSFER_IN, normalized, toBefore, toAfter,
                 "Transfer from " + fromAccountNumber);
+
+        balanceCache.putAfterCommit(from);
+        balanceCache.putAfterCommit(to);
     }
 
-    @Transactional(readOnly = true)
-    public Page<TransactionEntity> getTransactions(String accountNumber, Pageable pageable) {
-        // valida existencia
-        if (!accountRepo.existsById(accountNumber)) {
-            throw new AccountNotFoundException(accountNumber);
+    // buckets = 0: cuenta normal (UPDATE sobre accounts); > 0: cuenta sharded (UPDATE sobre un bucket)
+
+    private AccountSnapshot applyAtomicDeposit(String accountNumber, int buckets, Money normalized) {
+        AccountSnapshot updated = creditAtomically(accountNumber, buckets, normalized);
+
+        Money after = updated.balance();
+        record(accountNumber, TransactionType.DEPOSIT, normalized, after.minus(normalized), after, "Deposit");
+        refreshCacheAfterCommit(updated, buckets);
+        return updated;
+    }
+
+    private AccountSnapshot applyAtomicWithdraw(String accountNumber, int buckets, Money normalized) {
+        AccountSnapshot updated = debitAtomically(accountNumber, buckets, normalized);
+
+        Money after = updated.balance();
+        record(accountNumber, TransactionType.WITHDRAW, normalized, after.plus(normalized), after, "Withdraw");
+        refreshCacheAfterCommit(updated, buckets);
+        return updated;
+    }
+
+    private void applyAtomicTransfer(String fromAccountNumber, int fromBuckets, String toAccountNumber, int toBuckets,
+                                     Money normalized) {
+        // Los UPDATE toman los locks de fila: se ejecutan en orden de numero de cuenta para evitar deadlocks.
+        // Si el retiro falla despues del deposito, la excepcion hace rollback de ambos.
+        AccountSnapshot from;
+        AccountSnapshot to;
+        if (fromAccountNumber.compareTo(toAccountNumber) < 0) {
+            from = debitAtomically(fromAccountNumber, fromBuckets, normalized);
+            to = creditAtomically(toAccountNumber, toBuckets, normalized);
+        } else {
+            to = creditAtomically(toAccountNumber, toBuckets, normalized);
+            from = debitAtomically(fromAccountNumber, fromBuckets, normalized);
         }
-        return txRepo.findByAccountNumber(accountNumber, pageable);
+
+        Money fromAfter = from.balance();
+        Money toAfter = to.balance();
+
+        record(fromAccountNumber, TransactionType.TRANSFER_OUT, normalized, fromAfter.plus(normalized), fromAfter,
+                "Transfer to " + toAccountNumber);
+        record(toAccountNumber, TransactionType.TRANSFER_IN, normalized, toAfter.minus(normalized), toAfter,
+                "Transfer from " + fromAccountNumber);
+
+        refreshCacheAfterCommit(from, fromBuckets);
+        refreshCacheAfterCommit(to, toBuckets);
     }
 
-    // --- Helpers
+    private AccountSnapshot creditAtomically(String accountNumber, int buckets, Money normalized) {
+        if (buckets > 0) {
+            return metrics.lockWait("atomic_update", accountNumber, () -> shardedBalances.credit(accountNumber, buckets, normalized));
+        }
+        Optional<AccountSnapshot> updated = metrics.lockWait("atomic_update", accountNumber,
+                () -> accountRepo.addToBalance(accountNumber, normalized));
+        if (updated.isPresent()) return updated.get();
 
-    private void record(String accountNumber, TransactionType type, BigDecimal amount,
-                        BigDecimal before, BigDecimal after, String description) {
+        // Sin fila actualizada: la cuenta no existe o ya esta sharded
+        AccountEntity account = accountRepo.findById(accountNumber)
+                .filter(a -> a.getBucketCount() > 0)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        throw new BucketCountChangedException(accountNumber, account.getBucketCount());
+    }
+
+    private AccountSnapshot debitAtomically(String accountNumber, int buckets, Money normalized) {
+        if (buckets > 0) {
+            return metrics.lockWait("atomic_update", accountNumber, () -> shardedBalances.debit(accountNumber, buckets, normalized));
+        }
+
+        Optional<AccountSnapshot> updated = metrics.lockWait("atomic_update", accountNumber,
+                () -> accountRepo.subtractFromBalance(accountNumber, normalized));
+        if (updated.isPresent()) return updated.get();
+
+        // Sin fila actualizada: la cuenta no existe, ya esta sharded o no alcanza el saldo
+        AccountEntity account = accountRepo.findById(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        if (account.getBucketCount() > 0) {
+            throw new BucketCountChangedException(accountNumber, account.getBucketCount());
+        }
+        throw new InsufficientFundsException("Insufficient funds. Balance=" + account.getBalance() + ", amount=" + normalized);
+    }
+
+    private void refreshCacheAfterCommit(AccountSnapshot snapshot, int buckets) {
+        // En cuentas sharded el total no lleva version propia: se invalida y se recalcula al leer
+        if (buckets > 0) {
+            balanceCache.invalidateAfterCommit(snapshot.accountNumber());
+        } else {
+            balanceCache.putAfterCommit(snapshot);
+        }
+    }
+
+    private AccountEntity loadForWrite(String accountNumber, LockingMode mode) {
+        Optional<AccountEntity> account = mode == LockingMode.PESSIMISTIC
+                ? metrics.lockWait("select_for_update", accountNumber, () -> accountRepo.findByAccountNumberForUpdate(accountNumber))
+                : accountRepo.findById(accountNumber);
+        AccountEntity loaded = account.orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        if (loaded.getBucketCount() > 0) {
+            throw new BucketCountChangedException(accountNumber, loaded.getBucketCount());
+        }
+        return loaded;
+    }
+
+    private void applyBatchTransfer(TransferCommand t, Map<String, AccountEntity> locked, List<TransactionEntity> journal) {
+        if (t.fromAccountNumber() == null || t.toAccountNumber() == null) {
+            throw new IllegalArgumentException("from and to accounts are required");
+        }
+        if (t.fromAccountNumber().equals(t.toAccountNumber())) {
+            throw new IllegalArgumentException("from and to accounts must be different");
+        }
+
+        Money normalized = normalizeMoney(t.amount());
+
+        AccountEntity from = locked.get(t.fromAccountNumber());
+        if (from == null) throw new AccountNotFoundException(t.fromAccountNumber());
+        AccountEntity to = locked.get(t.toAccountNumber());
+        if (to == null) throw new AccountNotFoundException(t.toAccountNumber());
+        if (from.getBucketCount() > 0 || to.getBucketCount() > 0) {
+            throw new IllegalArgumentException("Sharded accounts are not supported in batch transfers");
+        }
+
+        Money fromBefore = from.getBalance();
+        if (fromBefore.isLessThan(normalized)) {
+            throw new InsufficientFundsException("Insufficient funds. Balance=" + fromBefore + ", amount=" + normalized);
+        }
+        Money fromAfter = fromBefore.minus(normalized);
+        Money toBefore = to.getBalance();
+        Money toAfter = toBefore.plus(normalized);
+        from.setBalance(fromAfter);
+        to.setBalance(toAfter);
+
+        journal.add(newEntry(t.fromAccountNumber(), TransactionType.TRANSFER_OUT, normalized, fromBefore, fromAfter,
+                "Transfer to " + t.toAccountNumber()));
+        journal.add(newEntry(t.toAccountNumber(), TransactionType.TRANSFER_IN, normalized, toBefore, toAfter,
+                "Transfer from " + t.fromAccountNumber()));
+    }
+
+    private void record(String accountNumber, TransactionType type, Money amount,
+                        Money before, Money after, String description) {
+
+        TransactionEntity entry = newEntry(accountNumber, type, amount, before, after, description);
+        txRepo.save(entry);
+        rollups.addAll(List.of(entry), this::rollupSlot);
+    }
+
+    // Cuentas sharded: el mismo reparto por hilo que sus buckets, asi los creditos no chocan en la fila del rollup
+    private int rollupSlot(TransactionEntity entry) {
+        int buckets = shardedBalances.bucketCount(entry.getAccountNumber());
+        return buckets > 0 ? ShardedBalances.homeBucket(buckets) : 0;
+    }
 
-        txRepo.save(new TransactionEntity(
-                UUID.randomUUID(),
+    private TransactionEntity newEntry(String accountNumber, TransactionType type, Money amount,
+                                       Money before, Money after, String description) {
+        return new TransactionEntity(
+                UuidV7.next(),
                 accountNumber,
                 type,
                 amount,
@@ -150,7 +725,7 @@ public class BankService {
                 after,
                 description,
                 LocalDateTime.now()
-        ));
+        );
     }
 
     private void validateAccountNumber(String accountNumber) {
@@ -165,15 +740,15 @@ public class BankService {
         }
     }
 
-    private BigDecimal normalizeMoney(BigDecimal value) {
+    private Money normalizeMoney(Money value) {
         if (value == null) throw new IllegalArgumentException("Amount is required");
-        if (value.compareTo(BigDecimal.ZERO) <= 0) throw new IllegalArgumentException("amount must be > 0");
-        return value.setScale(2, RoundingMode.HALF_UP);
+        if (!value.isPositive()) throw new IllegalArgumentException("amount must be > 0");
+        return value;
     }
 
-    private BigDecimal normalizeInitialBalance(BigDecimal value) {
+    private Money normalizeInitialBalance(Money value) {
         if (value == null) throw new IllegalArgumentException("InitialBalance is required");
-        if (value.compareTo(BigDecimal.ZERO) < 0) throw new IllegalArgumentException("Initial balance must be >= 0");
-        return value.setScale(2, RoundingMode.HALF_UP);
+        if (value.isNegative()) throw new IllegalArgumentException("Initial balance must be >= 0");
+        return value;
     }
 }
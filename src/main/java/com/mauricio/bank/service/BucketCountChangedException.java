@@ -0,0 +1,19 @@
+package com.mauricio.bank.service;
+
+/**
+ * The row says the account is sharded but the caller routed it with a stale (cached) bucket count
+ * of 0. Nothing was written for that account; BankService refreshes the count and reroutes.
+ */
+class BucketCountChangedException extends RuntimeException {
+    private final String accountNumber;
+    private final int bucketCount;
+
+    BucketCountChangedException(String accountNumber, int bucketCount) {
+        super("Account " + accountNumber + " is sharded in " + bucketCount + " buckets");
+        this.accountNumber = accountNumber;
+        this.bucketCount = bucketCount;
+    }
+
+    String getAccountNumber() { return accountNumber; }
+    int getBucketCount() { return bucketCount; }
+}
@@ -0,0 +1,83 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many balance updates hold a DB connection at the same time. With virtual threads
+ * thousands of requests can reach the service at once; instead of all of them queueing inside
+ * the connection pool (and timing out there), they wait here on a fair semaphore and get a
+ * {@link ServiceBusyException} (503) after {@code acquire-timeout}.
+ * <p>
+ * {@code max-concurrency <= 0} disables the limit. Calls made inside an already open
+ * transaction do not take a second permit.
+ * <p>
+ * Meters: {@code bank.db.permits.available} gauge, {@code bank.db.permit.wait} timer and
+ * {@code bank.db.permit.rejected} counter.
+ */
+@Component
+public class DbConcurrencyLimiter implements MeterBinder {
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private volatile Timer waitTimer;
+    private volatile Counter rejected;
+
+    public DbConcurrencyLimiter(@Value("${bank.db.max-concurrency:0}") int maxConcurrency,
+                                @Value("${bank.db.acquire-timeout:5s}") Duration acquireTimeout) {
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency, true) : null;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    public <T> T call(Supplier<T> work) {
+        if (permits == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+
+        acquire();
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (permits == null) return;
+        Gauge.builder("bank.db.permits.available", permits, Semaphore::availablePermits).register(registry);
+        waitTimer = Timer.builder("bank.db.permit.wait").publishPercentileHistogram().register(registry);
+        rejected = Counter.builder("bank.db.permit.rejected").register(registry);
+    }
+
+    /** -1 when the limit is disabled. */
+    public int availablePermits() {
+        return permits == null ? -1 : permits.availablePermits();
+    }
+
+    private void acquire() {
+        long start = System.nanoTime();
+        try {
+            boolean acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+            if (waitTimer != null) waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                if (rejected != null) rejected.increment();
+                throw new ServiceBusyException("Too many concurrent requests, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for a database slot");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.persistence.TransactionEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in an account history: the (occurredAt, id) of the last row returned.
+ * Clients only see it as an opaque base64url string.
+ */
+public record HistoryCursor(LocalDateTime occurredAt, UUID id) {
+
+    public static HistoryCursor of(TransactionEntity tx) {
+        return new HistoryCursor(tx.getOccurredAt(), tx.getId());
+    }
+
+    public static HistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = occurredAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,41 @@
+package com.mauricio.bank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flags an account as hot when it collects {@code conflict-threshold} optimistic conflicts within
+ * {@code window}. Hot accounts go straight to pessimistic locking for {@code cooldown}.
+ * Both maps are bounded caches, so memory does not grow with the number of accounts.
+ */
+@Component
+public class HotAccountDetector {
+    private final Cache<String, AtomicInteger> conflicts;
+    private final Cache<String, Boolean> hotAccounts;
+    private final int conflictThreshold;
+
+    public HotAccountDetector(@Value("${bank.locking.hot.conflict-threshold:3}") int conflictThreshold,
+                              @Value("${bank.locking.hot.window:1s}") Duration window,
+                              @Value("${bank.locking.hot.cooldown:30s}") Duration cooldown) {
+        this.conflictThreshold = conflictThreshold;
+        this.conflicts = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(window).build();
+        this.hotAccounts = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(cooldown).build();
+    }
+
+    public void recordConflict(String accountNumber) {
+        int count = conflicts.get(accountNumber, n -> new AtomicInteger()).incrementAndGet();
+        if (count >= conflictThreshold) {
+            hotAccounts.put(accountNumber, Boolean.TRUE);
+            conflicts.invalidate(accountNumber);
+        }
+    }
+
+    public boolean isHot(String accountNumber) {
+        return hotAccounts.getIfPresent(accountNumber) != null;
+    }
+}
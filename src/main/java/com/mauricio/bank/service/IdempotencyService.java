@@ -0,0 +1,146 @@
+package com.mauricio.bank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mauricio.bank.IdempotencyKeyReusedException;
+import com.mauricio.bank.persistence.AccountSnapshot;
+import com.mauricio.bank.persistence.IdempotencyKeyEntity;
+import com.mauricio.bank.persistence.IdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * {@code Idempotency-Key} support for deposit, withdraw and transfer.
+ * <p>
+ * The key row is inserted inside the operation's transaction, so it exists only if the money
+ * moved. A retry is answered from a bounded in-memory cache or with a plain read of the key row,
+ * without opening a write transaction or locking the account. Two requests racing with the same
+ * key both run; the second one fails on the primary key, rolls back and replays the first result.
+ * Failed operations are not recorded: retrying them runs them again.
+ */
+@Component
+public class IdempotencyService {
+    public static final int MAX_KEY_LENGTH = 100;
+
+    /** A keyed request; {@code fingerprint} hashes the operation and its arguments. */
+    record Request(String key, String operation, String fingerprint) {}
+
+    private record Stored(String fingerprint, AccountSnapshot result) {
+        static Stored of(IdempotencyKeyEntity entity) {
+            return new Stored(entity.getFingerprint(), entity.toSnapshot());
+        }
+    }
+
+    private final IdempotencyKeyRepository repo;
+    private final ShardRouter shards;
+    private final TransactionTemplate tx;
+    private final Cache<String, Stored> cache;
+    private final Duration retention;
+
+    public IdempotencyService(IdempotencyKeyRepository repo, ShardRouter shards,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${bank.idempotency.cache-size:100000}") long cacheSize,
+                              @Value("${bank.idempotency.cache-ttl:10m}") Duration cacheTtl,
+                              @Value("${bank.idempotency.retention:24h}") Duration retention) {
+        this.repo = repo;
+        this.shards = shards;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        this.retention = retention;
+    }
+
+    /** Returns {@code null} when the client sent no key. */
+    Request request(String key, String operation, Object... arguments) {
+        if (key == null) return null;
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must have 1-" + MAX_KEY_LENGTH + " characters");
+        }
+
+        StringBuilder canonical = new StringBuilder(operation);
+        for (Object argument : arguments) {
+            canonical.append('|').append(argument);
+        }
+        return new Request(key, operation, sha256(canonical.toString()));
+    }
+
+    /** Runs {@code work} unless the key was already used; {@code work} must call {@link #record}. */
+    AccountSnapshot execute(Request request, Supplier<AccountSnapshot> work) {
+        if (request == null) return work.get();
+
+        Stored stored = lookup(request.key());
+        if (stored != null) return replay(request, stored);
+
+        try {
+            return work.get();
+        } catch (DataIntegrityViolationException e) {
+            // Otro request con la misma key confirmo primero
+            Stored winner = lookup(request.key());
+            if (winner == null) throw e;
+            return replay(request, winner);
+        }
+    }
+
+    /** Inserts the key row in the current transaction; caches it once the transaction commits. */
+    AccountSnapshot record(Request request, AccountSnapshot result) {
+        if (request == null) return result;
+
+        IdempotencyKeyEntity entity = new IdempotencyKeyEntity(request.key(), request.operation(),
+                request.fingerprint(), result, LocalDateTime.now());
+        repo.saveAndFlush(entity);
+        AfterCommit.run(() -> cache.put(request.key(), Stored.of(entity)));
+        return result;
+    }
+
+    // Una transaccion por shard de base de datos
+    @Scheduled(fixedDelayString = "${bank.idempotency.purge-interval:PT1H}")
+    public int purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int purged = 0;
+        for (int shard = 0; shard < shards.shards(); shard++) {
+            purged += shards.onShard(shard, () -> tx.execute(status -> repo.deleteCreatedBefore(cutoff)));
+        }
+        return purged;
+    }
+
+    // --Helpers
+
+    private Stored lookup(String key) {
+        Stored stored = cache.getIfPresent(key);
+        if (stored != null) return stored;
+
+        stored = repo.findById(key).map(Stored::of).orElse(null);
+        if (stored != null) cache.put(key, stored);
+        return stored;
+    }
+
+    private AccountSnapshot replay(Request request, Stored stored) {
+        if (!stored.fingerprint().equals(request.fingerprint())) {
+            throw new IdempotencyKeyReusedException(request.key());
+        }
+        return stored.result();
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
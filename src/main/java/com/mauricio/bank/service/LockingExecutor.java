@@ -0,0 +1,99 @@
+package com.mauricio.bank.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs a balance update in its own transaction with the configured {@link LockingMode}.
+ * <p>
+ * In optimistic mode the work reads without locks and relies on the {@code @Version} check at
+ * flush time. A conflict retries the whole transaction with exponential backoff and jitter; after
+ * {@code max-attempts} conflicts, or when any involved account is hot, it runs pessimistically.
+ * Atomic mode never conflicts, so it always runs once.
+ * <p>
+ * Every attempt holds a {@link DbConcurrencyLimiter} permit; backoff sleeps happen without one.
+ */
+@Component
+public class LockingExecutor {
+    private final TransactionTemplate tx;
+    private final HotAccountDetector hotAccounts;
+    private final DbConcurrencyLimiter limiter;
+    private final LockingMode mode;
+    private final int maxAttempts;
+    private final long backoffNanos;
+
+    public LockingExecutor(PlatformTransactionManager transactionManager,
+                           HotAccountDetector hotAccounts,
+                           DbConcurrencyLimiter limiter,
+                           @Value("${bank.locking.mode:pessimistic}") LockingMode mode,
+                           @Value("${bank.locking.optimistic.max-attempts:3}") int maxAttempts,
+                           @Value("${bank.locking.optimistic.backoff:2ms}") Duration backoff) {
+        this.tx = new TransactionTemplate(transactionManager);
+        this.hotAccounts = hotAccounts;
+        this.limiter = limiter;
+        this.mode = mode;
+        this.maxAttempts = maxAttempts;
+        this.backoffNanos = backoff.toNanos();
+    }
+
+    public <T> T execute(Function<LockingMode, T> work, String... accountNumbers) {
+        if (mode == LockingMode.ATOMIC) {
+            return run(() -> work.apply(LockingMode.ATOMIC));
+        }
+        if (mode == LockingMode.PESSIMISTIC || anyHot(accountNumbers)) {
+            return run(() -> work.apply(LockingMode.PESSIMISTIC));
+        }
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return run(() -> work.apply(LockingMode.OPTIMISTIC));
+            } catch (ConcurrencyFailureException e) {
+                for (String accountNumber : accountNumbers) {
+                    hotAccounts.recordConflict(accountNumber);
+                }
+                backoff(attempt);
+            }
+        }
+
+        return run(() -> work.apply(LockingMode.PESSIMISTIC));
+    }
+
+    /** Single transaction, no retries: for work that does its own row locking. */
+    public <T> T inTransaction(Supplier<T> work) {
+        return run(work);
+    }
+
+    public LockingMode mode() {
+        return mode;
+    }
+
+    private <T> T run(Supplier<T> work) {
+        return limiter.call(() -> tx.execute(status -> work.get()));
+    }
+
+    private boolean anyHot(String[] accountNumbers) {
+        for (String accountNumber : accountNumbers) {
+            if (hotAccounts.isHot(accountNumber)) return true;
+        }
+        return false;
+    }
+
+    private void backoff(int attempt) {
+        long base = backoffNanos << (attempt - 1);
+        long sleep = base + ThreadLocalRandom.current().nextLong(base + 1);
+        try {
+            Thread.sleep(Duration.ofNanos(sleep));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying balance update", e);
+        }
+    }
+}
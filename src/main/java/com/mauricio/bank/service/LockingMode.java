@@ -0,0 +1,10 @@
+package com.mauricio.bank.service;
+
+public enum LockingMode {
+    // SELECT ... FOR UPDATE antes de modificar el saldo
+    PESSIMISTIC,
+    // Lectura sin lock + UPDATE ... WHERE version = ?; reintento si hubo conflicto
+    OPTIMISTIC,
+    // Un solo UPDATE ... SET balance = balance +/- ? que devuelve la fila, sin cargar la entidad
+    ATOMIC
+}
@@ -0,0 +1,95 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.persistence.ShardRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Maps account numbers to database shards ({@code bank.shards.urls}) with consistent hashing:
+ * every shard owns {@code VIRTUAL_NODES} points of a 64-bit ring and an account belongs to the
+ * first point at or after its hash. Adding a shard at the end of the list only moves the accounts
+ * the new shard takes over.
+ * <p>
+ * {@link #onShard} selects a shard for the work it runs; the selection must happen before the
+ * transaction's first statement, and a transaction cannot move to another shard. Without
+ * configured shards there is one shard and nothing is selected.
+ */
+@Component
+public class ShardRouter {
+    static final int VIRTUAL_NODES = 128;
+
+    private final int shards;
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+
+    public ShardRouter(@Value("${bank.shards.urls:}") List<String> urls) {
+        this.shards = Math.max(1, urls.size());
+        for (int shard = 0; shard < shards; shard++) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                ring.put(hash("shard-" + shard + "#" + v), shard);
+            }
+        }
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    public int shardOf(String accountNumber) {
+        if (shards == 1) return 0;
+        Map.Entry<Long, Integer> point = ring.ceilingEntry(hash(accountNumber));
+        return point != null ? point.getValue() : ring.firstEntry().getValue();
+    }
+
+    public boolean sameShard(String accountNumber, String otherAccountNumber) {
+        return shardOf(accountNumber) == shardOf(otherAccountNumber);
+    }
+
+    public <T> T onShardOf(String accountNumber, Supplier<T> work) {
+        return onShard(shardOf(accountNumber), work);
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        try (Selection ignored = select(shard)) {
+            return work.get();
+        }
+    }
+
+    /** For work that throws checked exceptions: {@code try (var s = router.select(shard)) {...}}. */
+    public Selection select(int shard) {
+        if (shards == 1) return () -> { };
+
+        Integer current = ShardRoutingDataSource.current();
+        if (current != null && current != shard && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Transaction on shard " + current + " cannot use shard " + shard);
+        }
+        Integer previous = ShardRoutingDataSource.select(shard);
+        return () -> ShardRoutingDataSource.select(previous);
+    }
+
+    public interface Selection extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    // FNV-1a de 64 bits con el finalizador de MurmurHash3: numeros de cuenta parecidos quedan lejos en el anillo
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,139 @@
+package com.mauricio.bank.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.mauricio.bank.AccountNotFoundException;
+import com.mauricio.bank.InsufficientFundsException;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.persistence.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opt-in "sharded account" mode for hot accounts: the balance is split across N rows of
+ * {@code account_buckets}, so concurrent credits lock different rows.
+ * <ul>
+ *   <li>Credits go to one bucket picked by the calling thread.</li>
+ *   <li>Debits first try that same bucket with a conditional UPDATE; if it does not cover the
+ *       amount, all buckets are locked in order, the amount is drawn from the total and what is
+ *       left is spread evenly again (rebalancing).</li>
+ *   <li>The account balance is {@code accounts.balance} (0 once sharded) plus the sum of buckets.</li>
+ * </ul>
+ * Credits to different buckets do not serialize, so the balanceBefore/balanceAfter journaled for
+ * a sharded account is the total seen by that transaction, not a strict sequence.
+ * <p>
+ * Credit/debit methods must run inside the caller's transaction.
+ */
+@Component
+public class ShardedBalances {
+    public static final int MAX_BUCKETS = 64;
+
+    private final AccountRepository accountRepo;
+    private final AccountBucketRepository bucketRepo;
+    private final LoadingCache<String, Integer> bucketCounts;
+
+    public ShardedBalances(AccountRepository accountRepo, AccountBucketRepository bucketRepo, ShardRouter shards,
+                           @Value("${bank.sharding.bucket-count-ttl:30s}") Duration bucketCountTtl) {
+        this.accountRepo = accountRepo;
+        this.bucketRepo = bucketRepo;
+        this.bucketCounts = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(bucketCountTtl)
+                .build(n -> shards.onShardOf(n, () -> accountRepo.findById(n).map(AccountEntity::getBucketCount).orElse(0)));
+    }
+
+    /** 0 for regular (or unknown) accounts. */
+    public int bucketCount(String accountNumber) {
+        return bucketCounts.get(accountNumber);
+    }
+
+    // La fila mostro un bucket count distinto al cacheado (p. ej. otra instancia activo el sharding)
+    void bucketCountChanged(String accountNumber, int buckets) {
+        bucketCounts.put(accountNumber, buckets);
+    }
+
+    @Transactional
+    public AccountSnapshot enable(String accountNumber, int buckets) {
+        if (buckets < 2 || buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("buckets must be between 2 and " + MAX_BUCKETS);
+        }
+
+        AccountEntity account = accountRepo.findByAccountNumberForUpdate(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        if (account.getBucketCount() > 0) {
+            throw new IllegalArgumentException("Account is already sharded: " + accountNumber);
+        }
+
+        // El saldo actual se reparte entre los buckets; accounts.balance queda en 0
+        List<AccountBucketEntity> rows = new ArrayList<>(buckets);
+        long[] parts = split(account.getBalance().minorUnits(), buckets);
+        for (int b = 0; b < buckets; b++) {
+            rows.add(new AccountBucketEntity(accountNumber, b, Money.ofMinor(parts[b])));
+        }
+        bucketRepo.saveAll(rows);
+
+        Money total = account.getBalance();
+        account.setBalance(Money.ZERO);
+        account.setBucketCount(buckets);
+
+        AfterCommit.run(() -> bucketCounts.put(accountNumber, buckets));
+        return new AccountSnapshot(accountNumber, account.getOwnerName(), total, account.getVersion());
+    }
+
+    public AccountSnapshot credit(String accountNumber, int buckets, Money amount) {
+        if (bucketRepo.credit(accountNumber, homeBucket(buckets), amount.toBigDecimal()) == 0) {
+            throw new AccountNotFoundException(accountNumber);
+        }
+        return total(accountNumber);
+    }
+
+    public AccountSnapshot debit(String accountNumber, int buckets, Money amount) {
+        if (bucketRepo.debit(accountNumber, homeBucket(buckets), amount.toBigDecimal()) == 1) {
+            return total(accountNumber);
+        }
+
+        List<AccountBucketEntity> rows = bucketRepo.findAllForUpdate(accountNumber);
+        if (rows.isEmpty()) throw new AccountNotFoundException(accountNumber);
+
+        long available = 0;
+        for (AccountBucketEntity row : rows) {
+            available += row.getBalance().minorUnits();
+        }
+        if (available < amount.minorUnits()) {
+            throw new InsufficientFundsException("Insufficient funds. Balance=" + Money.ofMinor(available) + ", amount=" + amount);
+        }
+
+        long[] parts = split(available - amount.minorUnits(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).setBalance(Money.ofMinor(parts[i]));
+        }
+        return total(accountNumber);
+    }
+
+    public AccountSnapshot total(String accountNumber) {
+        return bucketRepo.findTotal(accountNumber)
+                .map(AccountSnapshot::of)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+    }
+
+    // --- Helpers
+
+    static int homeBucket(int buckets) {
+        return (int) (Thread.currentThread().threadId() % buckets);
+    }
+
+    private static long[] split(long total, int parts) {
+        long[] result = new long[parts];
+        long each = total / parts;
+        long remainder = total % parts;
+        for (int i = 0; i < parts; i++) {
+            result[i] = each + (i < remainder ? 1 : 0);
+        }
+        return result;
+    }
+}
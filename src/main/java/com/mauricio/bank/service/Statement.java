@@ -0,0 +1,18 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransactionType;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/** Monthly statement: one line per {@link TransactionType}, in declaration order, zeros included. */
+public record Statement(
+        String accountNumber,
+        YearMonth month,
+        Money openingBalance,
+        Money closingBalance,
+        List<Line> lines
+) {
+    public record Line(TransactionType type, long count, Money total) {}
+}
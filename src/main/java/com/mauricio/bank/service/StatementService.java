@@ -0,0 +1,87 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.AccountNotFoundException;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransactionType;
+import com.mauricio.bank.persistence.*;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Monthly statements from {@code daily_rollups}, without reading {@code transactions}.
+ * <p>
+ * The month's lines sum at most one rollup row per day, type and slot. The opening balance is the
+ * latest balance snapshot before the month plus the rollups between that snapshot and the month
+ * (every rollup before the month when there is no snapshot); the closing balance adds the month's
+ * net change.
+ */
+@Service
+public class StatementService {
+    private static final LocalDate MIN = LocalDate.of(1, 1, 1);
+
+    private final AccountRepository accountRepo;
+    private final DailyRollupRepository rollupRepo;
+    private final BalanceSnapshotRepository snapshotRepo;
+    private final ShardRouter shards;
+
+    public StatementService(AccountRepository accountRepo, DailyRollupRepository rollupRepo,
+                            BalanceSnapshotRepository snapshotRepo, ShardRouter shards) {
+        this.accountRepo = accountRepo;
+        this.rollupRepo = rollupRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.shards = shards;
+    }
+
+    @Transactional(readOnly = true)
+    public Statement monthly(String accountNumber, YearMonth month) {
+        if (month == null) throw new IllegalArgumentException("month is required");
+
+        return shards.onShardOf(accountNumber, () -> {
+            if (!accountRepo.existsById(accountNumber)) {
+                throw new AccountNotFoundException(accountNumber);
+            }
+
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+
+            Map<TransactionType, RollupTotalView> totals = new EnumMap<>(TransactionType.class);
+            for (RollupTotalView total : rollupRepo.sumByType(accountNumber, from, to)) {
+                totals.put(TransactionType.valueOf(total.getType()), total);
+            }
+
+            Money opening = openingBalance(accountNumber, from);
+            Money closing = opening;
+            List<Statement.Line> lines = new ArrayList<>(TransactionType.values().length);
+            for (TransactionType type : TransactionType.values()) {
+                RollupTotalView total = totals.get(type);
+                Money amount = total == null ? Money.ZERO : Money.of(total.getAmountTotal());
+                lines.add(new Statement.Line(type, total == null ? 0 : total.getEntryCount(), amount));
+                closing = isDebit(type) ? closing.minus(amount) : closing.plus(amount);
+            }
+            return new Statement(accountNumber, month, opening, closing, lines);
+        });
+    }
+
+    // --Helpers
+
+    // Saldo al inicio de day: snapshot anterior + rollups de los dias siguientes
+    private Money openingBalance(String accountNumber, LocalDate day) {
+        Optional<BalanceSnapshotEntity> snapshot = snapshotRepo
+                .findFirstByAccountNumberAndSnapshotDateLessThanOrderBySnapshotDateDesc(accountNumber, day);
+        LocalDate from = snapshot.map(s -> s.getSnapshotDate().plusDays(1)).orElse(MIN);
+        Money base = snapshot.map(BalanceSnapshotEntity::getBalance).orElse(Money.ZERO);
+        return base.plus(Money.of(rollupRepo.sumNetChange(accountNumber, from, day)));
+    }
+
+    private static boolean isDebit(TransactionType type) {
+        return type == TransactionType.WITHDRAW || type == TransactionType.TRANSFER_OUT;
+    }
+}
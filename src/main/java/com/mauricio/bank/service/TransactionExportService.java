@@ -0,0 +1,147 @@
+package com.mauricio.bank.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mauricio.bank.AccountNotFoundException;
+import com.mauricio.bank.persistence.AccountRepository;
+import com.mauricio.bank.persistence.TransactionArchive;
+import com.mauricio.bank.persistence.TransactionEntity;
+import com.mauricio.bank.persistence.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Full account history as NDJSON or CSV, oldest first. Rows of archived months come first, one
+ * archive block at a time, then the database rows from a forward-only cursor, detached as soon as
+ * they are written, so memory stays flat whatever the history size. The read transaction (and its
+ * connection) stays open until the last row is written. Both steps run on the account's database shard.
+ */
+@Service
+public class TransactionExportService {
+    // Rango abierto: sin filtros se exporta todo
+    private static final LocalDateTime MIN = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime MAX = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final int FLUSH_EVERY = 1000;
+    private static final JsonFactory JSON = new JsonFactory();
+
+    public enum Format { NDJSON, CSV }
+
+    /** A checked export; {@code from} is inclusive and {@code to} exclusive. */
+    public record ExportRequest(String accountNumber, LocalDateTime from, LocalDateTime to) {}
+
+    private final AccountRepository accountRepo;
+    private final TransactionRepository txRepo;
+    private final TransactionArchive archive;
+    private final ShardRouter shards;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public TransactionExportService(AccountRepository accountRepo, TransactionRepository txRepo,
+                                    TransactionArchive archive, ShardRouter shards) {
+        this.accountRepo = accountRepo;
+        this.txRepo = txRepo;
+        this.archive = archive;
+        this.shards = shards;
+    }
+
+    /** Validates before the response is committed, so errors still map to 400/404. */
+    @Transactional(readOnly = true)
+    public ExportRequest prepare(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (!shards.onShardOf(accountNumber, () -> accountRepo.existsById(accountNumber))) {
+            throw new AccountNotFoundException(accountNumber);
+        }
+        return new ExportRequest(accountNumber, from != null ? from : MIN, to != null ? to : MAX);
+    }
+
+    @Transactional(readOnly = true)
+    public long write(ExportRequest request, Format format, OutputStream out) throws IOException {
+        try (ShardRouter.Selection shard = shards.select(shards.shardOf(request.accountNumber()));
+             Stream<TransactionEntity> live = txRepo.streamForExport(request.accountNumber(), request.from(), request.to())) {
+            // Las particiones archivadas siempre son mas viejas que las filas que quedan en la base
+            Stream<TransactionEntity> archived = StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                    archive.iterate(request.accountNumber(), request.from(), request.to()), Spliterator.ORDERED), false);
+            Iterator<TransactionEntity> rows = Stream.concat(archived, live).iterator();
+            return format == Format.CSV ? writeCsv(rows, out) : writeNdjson(rows, out);
+        }
+    }
+
+    // --Helpers
+
+    private long writeNdjson(Iterator<TransactionEntity> rows, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator json = JSON.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            json.setRootValueSeparator(null);
+            while (rows.hasNext()) {
+                TransactionEntity t = rows.next();
+                json.writeStartObject();
+                json.writeStringField("id", t.getId().toString());
+                json.writeStringField("accountNumber", t.getAccountNumber());
+                json.writeStringField("type", t.getType().name());
+                json.writeNumberField("amount", t.getAmount().toBigDecimal());
+                json.writeNumberField("balanceBefore", t.getBalanceBefore().toBigDecimal());
+                json.writeNumberField("balanceAfter", t.getBalanceAfter().toBigDecimal());
+                json.writeStringField("description", t.getDescription());
+                json.writeStringField("occurredAt", t.getOccurredAt().toString());
+                json.writeEndObject();
+                json.writeRaw('\n');
+
+                em.detach(t);
+                if (++count % FLUSH_EVERY == 0) json.flush();
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<TransactionEntity> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        csv.write("id,accountNumber,type,amount,balanceBefore,balanceAfter,description,occurredAt\n");
+        while (rows.hasNext()) {
+            TransactionEntity t = rows.next();
+            csv.write(t.getId().toString());
+            csv.write(',');
+            csv.write(t.getAccountNumber());
+            csv.write(',');
+            csv.write(t.getType().name());
+            csv.write(',');
+            csv.write(t.getAmount().toBigDecimal().toPlainString());
+            csv.write(',');
+            csv.write(t.getBalanceBefore().toBigDecimal().toPlainString());
+            csv.write(',');
+            csv.write(t.getBalanceAfter().toBigDecimal().toPlainString());
+            csv.write(',');
+            csv.write(csvField(t.getDescription()));
+            csv.write(',');
+            csv.write(t.getOccurredAt().toString());
+            csv.write('\n');
+
+            em.detach(t);
+            if (++count % FLUSH_EVERY == 0) csv.flush();
+        }
+        csv.flush();
+        return count;
+    }
+
+    private static String csvField(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,227 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransactionType;
+import com.mauricio.bank.persistence.TransactionArchive;
+import com.mauricio.bank.persistence.TransactionEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly range partitions of {@code transactions} on {@code occurred_at} (PostgreSQL only).
+ * <p>
+ * The partitioned table is created by the {@code V2} migration. A daily job keeps
+ * {@code months-ahead} partitions ready and archives partitions that ended more than
+ * {@code retention-months} ago (including {@code transactions_legacy}, the rows from before the
+ * migration): rows are written to a {@link TransactionArchive} file first, then the partition is
+ * detached and dropped. The history endpoint reads archived rows on demand.
+ * <p>
+ * With database shards every shard is maintained; archive files get an {@code s<shard>_} prefix.
+ * On other databases (H2 in tests) the manager does nothing.
+ */
+@Component
+public class TransactionPartitionManager {
+    private static final Logger log = Logger.getLogger(TransactionPartitionManager.class.getName());
+
+    private static final String TABLE = "transactions";
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('(\\d{4}-\\d{2}-\\d{2})");
+
+    private final JdbcTemplate jdbc;
+    private final JdbcTemplate cursorJdbc;
+    private final TransactionTemplate tx;
+    private final TransactionArchive archive;
+    private final ShardRouter shards;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public TransactionPartitionManager(DataSource dataSource,
+                                       PlatformTransactionManager transactionManager,
+                                       TransactionArchive archive,
+                                       ShardRouter shards,
+                                       @Value("${bank.partitioning.enabled:false}") boolean enabled,
+                                       @Value("${bank.partitioning.months-ahead:3}") int monthsAhead,
+                                       @Value("${bank.partitioning.retention-months:12}") int retentionMonths) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.cursorJdbc = new JdbcTemplate(dataSource);
+        this.cursorJdbc.setFetchSize(1000);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.archive = archive;
+        this.shards = shards;
+        this.enabled = enabled && isPostgres(dataSource);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${bank.partitioning.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!enabled) return;
+
+        for (int shard = 0; shard < shards.shards(); shard++) {
+            String prefix = shards.shards() > 1 ? "s" + shard + "_" : "";
+            shards.onShard(shard, () -> {
+                maintainShard(prefix);
+                return null;
+            });
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("%s_%04d_%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    /** First day after the partition's range, from {@code pg_get_expr(relpartbound)}; null if unbounded. */
+    static LocalDate parseUpperBound(String bound) {
+        Matcher m = UPPER_BOUND.matcher(bound);
+        return m.find() ? LocalDate.parse(m.group(1)) : null;
+    }
+
+    /**
+     * First month to create a partition for: the current one, or the first month after the existing
+     * partitions when they already reach further ({@code transactions_legacy} ends after the newest
+     * row it had, which can be this month or a later one). All bounds are first days of a month.
+     */
+    static YearMonth firstMonthToCreate(YearMonth current, Collection<LocalDate> upperBounds) {
+        YearMonth first = current;
+        for (LocalDate upper : upperBounds) {
+            if (upper != null && YearMonth.from(upper).isAfter(first)) {
+                first = YearMonth.from(upper);
+            }
+        }
+        return first;
+    }
+
+    // --Helpers
+
+    private void maintainShard(String archivePrefix) {
+        YearMonth current = YearMonth.now();
+        Map<String, LocalDate> upperBounds = new LinkedHashMap<>();
+        for (String partition : partitions()) {
+            upperBounds.put(partition, upperBound(partition));
+        }
+
+        // Un mes que se solapa con una particion existente haria fallar el create
+        YearMonth last = current.plusMonths(monthsAhead);
+        for (YearMonth month = firstMonthToCreate(current, upperBounds.values()); !month.isAfter(last);
+             month = month.plusMonths(1)) {
+            createPartition(month);
+        }
+
+        LocalDate cutoff = current.minusMonths(retentionMonths).atDay(1);
+        upperBounds.forEach((partition, upper) -> {
+            if (upper != null && !upper.isAfter(cutoff)) {
+                archivePartition(partition, archivePrefix);
+            }
+        });
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        jdbc.execute("create table if not exists " + name + " partition of " + TABLE
+                + " for values from ('" + month.atDay(1) + "') to ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    private List<String> partitions() {
+        return jdbc.queryForList("""
+                select c.relname from pg_inherits i
+                join pg_class c on c.oid = i.inhrelid
+                join pg_class p on p.oid = i.inhparent
+                where p.relname = ?
+                order by c.relname
+                """, String.class, TABLE);
+    }
+
+    private LocalDate upperBound(String partition) {
+        String bound = jdbc.queryForObject(
+                "select pg_get_expr(c.relpartbound, c.oid) from pg_class c where c.relname = ?", String.class, partition);
+        return bound == null ? null : parseUpperBound(bound);
+    }
+
+    private void archivePartition(String partition, String archivePrefix) {
+        Path file = archive.directory().resolve(archivePrefix + partition + TransactionArchive.SUFFIX);
+        try {
+            Files.createDirectories(archive.directory());
+            long rows;
+            if (Files.exists(file)) {
+                // Un intento anterior escribio el archivo pero no llego a borrar la particion
+                rows = -1;
+            } else {
+                rows = writeArchive(partition, file);
+            }
+            archive.refresh();
+
+            tx.executeWithoutResult(status -> {
+                jdbc.execute("alter table " + TABLE + " detach partition " + partition);
+                jdbc.execute("drop table " + partition);
+            });
+            log.info(() -> "Archived partition " + partition + (rows >= 0 ? " (" + rows + " rows)" : "") + " to " + file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot archive partition " + partition, e);
+        }
+    }
+
+    private long writeArchive(String partition, Path file) throws IOException {
+        try (TransactionArchive.Writer writer = TransactionArchive.writer(file)) {
+            // El cursor del driver de Postgres solo trae de a fetch size dentro de una transaccion
+            tx.executeWithoutResult(status -> cursorJdbc.query("""
+                    select id, account_number, type, amount, balance_before, balance_after, description, occurred_at
+                    from %s
+                    order by account_number collate "C", occurred_at, id
+                    """.formatted(partition), rs -> {
+                try {
+                    writer.append(new TransactionEntity(
+                            rs.getObject(1, UUID.class),
+                            rs.getString(2),
+                            TransactionType.valueOf(rs.getString(3)),
+                            Money.of(rs.getBigDecimal(4)),
+                            Money.of(rs.getBigDecimal(5)),
+                            Money.of(rs.getBigDecimal(6)),
+                            rs.getString(7),
+                            rs.getObject(8, LocalDateTime.class)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            writer.finish();
+            return writer.rows();
+        }
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot read database metadata", e);
+        }
+    }
+}
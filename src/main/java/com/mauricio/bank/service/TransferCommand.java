@@ -0,0 +1,9 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.Money;
+
+public record TransferCommand(
+        String fromAccountNumber,
+        String toAccountNumber,
+        Money amount
+) {}
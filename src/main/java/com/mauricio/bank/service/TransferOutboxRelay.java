@@ -0,0 +1,141 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.AccountNotFoundException;
+import com.mauricio.bank.persistence.TransferInboxEntity;
+import com.mauricio.bank.persistence.TransferInboxRepository;
+import com.mauricio.bank.persistence.TransferOutboxEntity;
+import com.mauricio.bank.persistence.TransferOutboxRepository;
+import com.mauricio.bank.persistence.TransferOutboxStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Second half of a cross-shard transfer (see {@link BankService#transfer}). The source shard
+ * debited the amount and wrote a {@code transfer_outbox} row in one transaction; the relay
+ * delivers every pending row:
+ * <ol>
+ *   <li>on the destination shard it credits the account and inserts the {@code transfer_inbox}
+ *       row in one transaction. If the credit is rejected (the account is gone) only the inbox
+ *       row is written, with the error. The inbox row fixes the outcome: a redelivery reads it
+ *       back instead of crediting twice;</li>
+ *   <li>on the source shard it closes the outbox row as {@code COMPLETED}, or as {@code REVERSED}
+ *       together with a {@code TRANSFER_REVERSAL} credit that gives the money back.</li>
+ * </ol>
+ * Any other failure (a shard down, a timeout) leaves the row pending with its attempt count and
+ * error, and the next pass retries it. Without database shards or {@link AccountPartitions} there is
+ * nothing to relay.
+ * <p>
+ * With partitions the credit runs on the destination's partition and the close on the source's, and
+ * {@link BankService} delivers a cross-partition transfer right after reserving it; the pass only
+ * picks up what that delivery could not finish.
+ */
+@Component
+public class TransferOutboxRelay {
+    private static final Logger log = Logger.getLogger(TransferOutboxRelay.class.getName());
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final BankService bankService;
+    private final ShardRouter shards;
+    private final AccountPartitions partitions;
+    private final TransferOutboxRepository outboxRepo;
+    private final TransferInboxRepository inboxRepo;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+
+    public TransferOutboxRelay(BankService bankService, ShardRouter shards, AccountPartitions partitions,
+                               TransferOutboxRepository outboxRepo, TransferInboxRepository inboxRepo,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${bank.shards.relay-batch-size:100}") int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("bank.shards.relay-batch-size must be >= 1");
+        this.bankService = bankService;
+        this.shards = shards;
+        this.partitions = partitions;
+        this.outboxRepo = outboxRepo;
+        this.inboxRepo = inboxRepo;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /** Delivers up to {@code relay-batch-size} pending messages per shard; returns how many were closed. */
+    @Scheduled(fixedDelayString = "${bank.shards.relay-interval:PT1S}")
+    public int relayPending() {
+        if (shards.shards() == 1 && !partitions.enabled()) return 0;
+
+        int closed = 0;
+        for (int shard = 0; shard < shards.shards(); shard++) {
+            List<TransferOutboxEntity> pending = shards.onShard(shard,
+                    () -> outboxRepo.findPending(PageRequest.ofSize(batchSize)));
+            for (TransferOutboxEntity message : pending) {
+                if (deliver(message)) closed++;
+            }
+        }
+        return closed;
+    }
+
+    /** Credits (or rejects) one message and closes it; false if it stays pending for the next pass. */
+    boolean deliver(TransferOutboxEntity message) {
+        String to = message.getToAccountNumber();
+        String from = message.getFromAccountNumber();
+        TransferInboxEntity outcome;
+        try {
+            outcome = partitions.execute(to, () -> shards.onShardOf(to, () -> receive(message)));
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Cannot deliver transfer " + message.getId() + ", will retry", e);
+            shards.onShardOf(message.getFromAccountNumber(), () ->
+                    tx.execute(status -> outboxRepo.recordFailedAttempt(message.getId(), truncate(String.valueOf(e.getMessage())))));
+            return false;
+        }
+
+        return partitions.execute(from, () -> shards.onShardOf(from, () -> tx.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (outcome.isApplied()) {
+                return outboxRepo.close(message.getId(), TransferOutboxStatus.COMPLETED, null, now) == 1;
+            }
+            // Solo quien cierra el mensaje devuelve el dinero
+            if (outboxRepo.close(message.getId(), TransferOutboxStatus.REVERSED, outcome.getError(), now) == 0) {
+                return false;
+            }
+            bankService.reverseTransfer(message.getFromAccountNumber(), message.getToAccountNumber(), message.getAmount());
+            log.info(() -> "Reversed transfer " + message.getId() + ": " + outcome.getError());
+            return true;
+        })));
+    }
+
+    // --Helpers
+
+    // Corre en el shard de destino
+    private TransferInboxEntity receive(TransferOutboxEntity message) {
+        Optional<TransferInboxEntity> decided = inboxRepo.findById(message.getId());
+        if (decided.isPresent()) return decided.get();
+
+        try {
+            try {
+                return tx.execute(status -> {
+                    bankService.receiveTransfer(message.getFromAccountNumber(), message.getToAccountNumber(), message.getAmount());
+                    return inboxRepo.saveAndFlush(new TransferInboxEntity(message.getId(), true, null, LocalDateTime.now()));
+                });
+            } catch (AccountNotFoundException | IllegalArgumentException e) {
+                return tx.execute(status -> inboxRepo.saveAndFlush(
+                        new TransferInboxEntity(message.getId(), false, e.getMessage(), LocalDateTime.now())));
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Otro relay decidio primero
+            return inboxRepo.findById(message.getId()).orElseThrow(() -> e);
+        }
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
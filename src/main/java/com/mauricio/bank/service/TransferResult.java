@@ -0,0 +1,15 @@
+package com.mauricio.bank.service;
+
+public record TransferResult(
+        int index,
+        boolean success,
+        String error
+) {
+    public static TransferResult completed(int index) {
+        return new TransferResult(index, true, null);
+    }
+
+    public static TransferResult failed(int index, String error) {
+        return new TransferResult(index, false, error);
+    }
+}
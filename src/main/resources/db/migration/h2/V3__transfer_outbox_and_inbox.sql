@@ -0,0 +1,24 @@
+-- Transferencias entre shards de base de datos: el outbox vive en el shard de origen, el inbox en el de destino
+
+create table transfer_outbox (
+    id                  uuid           not null,
+    from_account_number varchar(20)    not null,
+    to_account_number   varchar(20)    not null,
+    amount              numeric(19, 2) not null,
+    status              varchar(20)    not null,
+    attempts            integer        not null,
+    last_error          varchar(255),
+    created_at          timestamp(6)   not null,
+    completed_at        timestamp(6),
+    primary key (id)
+);
+
+create index idx_transfer_outbox_status_id on transfer_outbox (status, id);
+
+create table transfer_inbox (
+    id           uuid         not null,
+    applied      boolean      not null,
+    error        varchar(255),
+    processed_at timestamp(6) not null,
+    primary key (id)
+);
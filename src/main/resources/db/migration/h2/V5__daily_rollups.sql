@@ -0,0 +1,15 @@
+-- Mismo esquema que postgresql/V5, sin fillfactor
+create table daily_rollups (
+    account_number varchar(20)    not null,
+    rollup_date    date           not null,
+    type           varchar(20)    not null,
+    slot           integer        not null,
+    entry_count    bigint         not null,
+    amount_total   numeric(19, 2) not null,
+    primary key (account_number, rollup_date, type, slot)
+);
+
+insert into daily_rollups (account_number, rollup_date, type, slot, entry_count, amount_total)
+select account_number, cast(occurred_at as date), type, 0, count(*), sum(amount)
+from transactions
+group by account_number, cast(occurred_at as date), type;
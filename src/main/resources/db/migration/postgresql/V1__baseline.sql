@@ -0,0 +1,62 @@
+-- Esquema inicial, igual al que generaba ddl-auto=update (bases existentes se registran en esta version)
+
+create table accounts (
+    account_number varchar(20)    not null,
+    owner_name     varchar(255)   not null,
+    balance        numeric(19, 2) not null,
+    bucket_count   integer        default 0 not null,
+    version        bigint         not null,
+    primary key (account_number)
+);
+
+create table account_buckets (
+    account_number varchar(20)    not null,
+    bucket         integer        not null,
+    balance        numeric(19, 2) not null,
+    version        bigint         not null,
+    primary key (account_number, bucket)
+);
+
+create table transactions (
+    id             uuid           not null,
+    account_number varchar(20)    not null,
+    type           varchar(255)   not null,
+    amount         numeric(19, 2) not null,
+    balance_before numeric(19, 2) not null,
+    balance_after  numeric(19, 2) not null,
+    description    varchar(255)   not null,
+    occurred_at    timestamp(6)   not null,
+    primary key (id)
+);
+
+create index idx_transactions_account_occurred_id on transactions (account_number, occurred_at, id);
+
+create table idempotency_keys (
+    idempotency_key varchar(100)   not null,
+    operation       varchar(20)    not null,
+    fingerprint     varchar(64)    not null,
+    account_number  varchar(20),
+    owner_name      varchar(255),
+    balance         numeric(19, 2),
+    account_version bigint,
+    created_at      timestamp(6)   not null,
+    primary key (idempotency_key)
+);
+
+create index idx_idempotency_keys_created_at on idempotency_keys (created_at);
+
+create table transfer_requests (
+    id                  uuid           not null,
+    idempotency_key     varchar(100),
+    from_account_number varchar(20)    not null,
+    to_account_number   varchar(20)    not null,
+    amount              numeric(19, 2) not null,
+    status              varchar(20)    not null,
+    error               varchar(255),
+    created_at          timestamp(6)   not null,
+    completed_at        timestamp(6),
+    primary key (id),
+    constraint uk_transfer_requests_idempotency_key unique (idempotency_key)
+);
+
+create index idx_transfer_requests_status_id on transfer_requests (status, id);
@@ -0,0 +1,56 @@
+-- accounts / account_buckets: cada operacion reescribe la fila. Con espacio libre en la pagina la nueva
+-- version queda en la misma pagina (HOT update: balance y version no estan indexados, no se tocan indices).
+-- Solo aplica a paginas nuevas; VACUUM FULL (o pg_repack) reescribe las existentes.
+alter table accounts set (fillfactor = 80);
+alter table account_buckets set (fillfactor = 70);
+
+-- El worker de transferencias async solo busca pendientes: indice parcial, chico aunque la tabla crezca
+drop index if exists idx_transfer_requests_status_id;
+create index idx_transfer_requests_pending on transfer_requests (id) where status = 'PENDING';
+
+-- transactions: particiones mensuales por occurred_at. Las filas existentes quedan en transactions_legacy;
+-- TransactionPartitionManager crea los meses siguientes y archiva los viejos.
+-- Con una base en uso (baseline-on-migrate) la tabla ya tiene filas de este mes: ATTACH valida que todas
+-- entren en el rango, asi que transactions_legacy termina el 1 del mes siguiente a su fila mas nueva y las
+-- particiones mensuales empiezan ahi. Los inserts de ese mes caen en transactions_legacy hasta que termina.
+do $$
+declare
+    first_month date := date_trunc('month', now())::date;
+begin
+    if (select c.relkind from pg_class c where c.relname = 'transactions' and pg_table_is_visible(c.oid)) = 'r' then
+        alter table transactions rename to transactions_legacy;
+        alter table transactions_legacy rename constraint transactions_pkey to transactions_legacy_pkey;
+        drop index if exists idx_transactions_account_occurred_id;
+
+        create table transactions (like transactions_legacy including defaults including constraints)
+            partition by range (occurred_at);
+        -- La clave de particion tiene que ser parte de la PK
+        alter table transactions add primary key (id, occurred_at);
+
+        if exists (select 1 from transactions_legacy) then
+            select greatest(first_month, (date_trunc('month', max(occurred_at)) + interval '1 month')::date)
+              into first_month
+              from transactions_legacy;
+            execute format('alter table transactions attach partition transactions_legacy for values from (minvalue) to (%L)',
+                           first_month);
+        else
+            drop table transactions_legacy;
+        end if;
+    end if;
+
+    for i in 0..3 loop
+        execute format('create table if not exists %I partition of transactions for values from (%L) to (%L)',
+                       'transactions_' || to_char(first_month + make_interval(months => i), 'YYYY_MM'),
+                       (first_month + make_interval(months => i))::date,
+                       (first_month + make_interval(months => i + 1))::date);
+    end loop;
+end $$;
+
+-- Historial por cuenta: filtro, orden y desempate del cursor salen de la clave; INCLUDE cubre el resto
+-- de las columnas, asi /history y el export son index-only scans en particiones ya vacuumed.
+drop index if exists idx_transactions_account_occurred_id;
+create index idx_transactions_account_occurred_id on transactions (account_number, occurred_at, id)
+    include (type, amount, balance_before, balance_after, description);
+
+-- Rangos de fecha sin cuenta (export, archivado, reportes): BRIN ocupa unos KB y occurred_at crece con el insert
+create index idx_transactions_occurred_at_brin on transactions using brin (occurred_at);
@@ -0,0 +1,11 @@
+-- Saldo al cierre de cada dia con movimientos (BalanceSnapshotService); el saldo a una fecha lee el
+-- snapshot anterior por PK y suma solo los movimientos posteriores del journal
+create table balance_snapshots (
+    account_number varchar(20)    not null,
+    snapshot_date  date           not null,
+    balance        numeric(19, 2) not null,
+    primary key (account_number, snapshot_date)
+);
+
+-- El job diario busca el ultimo dia procesado y reescribe un dia completo
+create index idx_balance_snapshots_date on balance_snapshots (snapshot_date);
@@ -0,0 +1,20 @@
+-- Totales diarios por cuenta y tipo de movimiento (DailyRollupWriter, en la misma transaccion del movimiento);
+-- los extractos mensuales suman estas filas en lugar de recorrer transactions
+create table daily_rollups (
+    account_number varchar(20)    not null,
+    rollup_date    date           not null,
+    type           varchar(20)    not null,
+    slot           integer        not null,
+    entry_count    bigint         not null,
+    amount_total   numeric(19, 2) not null,
+    primary key (account_number, rollup_date, type, slot)
+);
+
+-- Cada movimiento reescribe su fila del dia: espacio libre para HOT updates, como en accounts
+alter table daily_rollups set (fillfactor = 80);
+
+-- Historial existente (las particiones ya archivadas no se recuperan)
+insert into daily_rollups (account_number, rollup_date, type, slot, entry_count, amount_total)
+select account_number, cast(occurred_at as date), type, 0, count(*), sum(amount)
+from transactions
+group by account_number, cast(occurred_at as date), type;
@@ -0,0 +1,37 @@
+package com.mauricio.bank;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BankMetricsTest {
+
+    @Test
+    void operations_areTimedByOutcome() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Bank bank = new Bank(new ConcurrentLedgerEngine(), registry);
+        bank.createAccount("001", "Mauricio", new BigDecimal("100.00"));
+        bank.createAccount("002", "Fanny", BigDecimal.ZERO);
+
+        bank.deposit("001", new BigDecimal("10.00"));
+        bank.transfer("001", "002", new BigDecimal("50.00"));
+        bank.getTransactions("001");
+        assertThrows(InsufficientFundsException.class, () -> bank.withdraw("002", new BigDecimal("80.00")));
+        assertThrows(IllegalArgumentException.class, () -> bank.deposit("999", new BigDecimal("1.00")));
+
+        assertEquals(1, timerCount(registry, "deposit", "success"));
+        assertEquals(1, timerCount(registry, "transfer", "success"));
+        assertEquals(1, timerCount(registry, "transactions", "success"));
+        assertEquals(1, timerCount(registry, "withdraw", "insufficient_funds"));
+        assertEquals(0, timerCount(registry, "withdraw", "success"));
+        assertEquals(1, timerCount(registry, "deposit", "invalid"));
+        assertEquals(1.0, registry.get("bank.ledger.insufficient.funds").tag("operation", "withdraw").counter().count());
+    }
+
+    private static long timerCount(SimpleMeterRegistry registry, String operation, String outcome) {
+        return registry.get("bank.ledger.operations").tag("operation", operation).tag("outcome", outcome).timer().count();
+    }
+}
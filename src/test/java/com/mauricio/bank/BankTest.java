@@ -7,19 +7,25 @@ import java.util.concurrent.TimeUnit;
 import  static org.junit.jupiter.api.Assertions.*;
 
 class BankTest {
+
+    // Las subclases corren los mismos tests contra otro LedgerEngine
+    Bank newBank() {
+        return new Bank();
+    }
+
     @Test
     void createAccount_createsAccountAndRecordsTransaction(){
-        Bank bank   = new Bank();
+        Bank bank   = newBank();
         bank.createAccount("001", "Mauricio", new BigDecimal("100.00"));
 
-        assertEquals(new BigDecimal("100.00"), bank.getAccount("001").getBalance());
+        assertEquals(new BigDecimal("100.00"), bank.getAccount("001").getBalance().toBigDecimal());
         assertEquals(1, bank.getTransactions("001").size());
         assertEquals(TransactionType.ACCOUNT_CREATED, bank.getTransactions("001").getFirst().type());
     }
 
     @Test
     void withdraw_withoutEnoughFounds_throwException(){
-        Bank bank = new Bank();
+        Bank bank = newBank();
         bank.createAccount("001", "Mauricio", new BigDecimal("300.00"));
 
         assertThrows(InsufficientFundsException.class, () -> bank.withdraw("001", new BigDecimal("400.00")));
@@ -27,7 +33,7 @@ class BankTest {
 
     @Test
     void transfer_createsTwoTransactions() {
-        Bank bank = new Bank();
+        Bank bank = newBank();
         bank.createAccount("001", "Mauricio", new BigDecimal("400.00"));
         bank.createAccount("003", "Fanny", new BigDecimal("500.00"));
 
@@ -39,7 +45,7 @@ class BankTest {
 
     @Test
     void createAccount_withInvalidAccountNumber_throwsException(){
-        Bank bank = new Bank();
+        Bank bank = newBank();
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () ->bank.createAccount("001a",
@@ -51,7 +57,7 @@ class BankTest {
 
     @Test
     void deposit_withZeroOrNegativeAmount_throwsException(){
-        Bank bank = new Bank();
+        Bank bank = newBank();
         bank.createAccount("001", "Mauricio", new BigDecimal("10.00"));
 
         assertThrows(IllegalArgumentException.class, () -> bank.deposit("001", new BigDecimal("0.00")));
@@ -60,7 +66,7 @@ class BankTest {
 
     @Test
     void transfer_toSameAccount_throwsException(){
-        Bank bank = new Bank();
+        Bank bank = newBank();
         bank.createAccount("001", "Mauricio", new BigDecimal("100.00"));
 
         assertThrows(IllegalArgumentException.class, () -> bank.transfer("001", "001", new BigDecimal("10.00")));
@@ -69,30 +75,30 @@ class BankTest {
 
     @Test
     void transfer_updatesBalanceCorrectly(){
-        Bank bank = new Bank();
+        Bank bank = newBank();
         bank.createAccount("001", "Mauricio", new BigDecimal("100.00"));
         bank.createAccount("002", "Fanny", new BigDecimal("50.00"));
 
         bank.transfer("001", "002", new BigDecimal("20.00"));
 
-        assertEquals(new BigDecimal("80.00"), bank.getAccount("001").getBalance());
-        assertEquals(new BigDecimal("70.00"), bank.getAccount("002").getBalance());
+        assertEquals(new BigDecimal("80.00"), bank.getAccount("001").getBalance().toBigDecimal());
+        assertEquals(new BigDecimal("70.00"), bank.getAccount("002").getBalance().toBigDecimal());
 
     }
 
     @Test
     void deposit_normalizesMoneyToTwoDecimals(){
-        Bank bank = new Bank();
+        Bank bank = newBank();
         bank.createAccount("001", "Mauricio", new BigDecimal("0.00"));
 
         bank.deposit("001", new BigDecimal("10.1"));
 
-        assertEquals(new BigDecimal("10.10"), bank.getAccount("001").getBalance());
+        assertEquals(new BigDecimal("10.10"), bank.getAccount("001").getBalance().toBigDecimal());
     }
 
     @Test
     void concurrentTransfers_doNotLoseMoney() throws Exception {
-        Bank bank = new Bank();
+        Bank bank = newBank();
         bank.createAccount("001", "A", new BigDecimal("1000.00"));
         bank.createAccount("002", "B", new BigDecimal("1000.00"));
 
@@ -115,14 +121,14 @@ class BankTest {
             assertTrue(finished);
         }
 
-        BigDecimal total = bank.getAccount("001").getBalance().add(bank.getAccount("002").getBalance());
+        BigDecimal total = bank.getAccount("001").getBalance().toBigDecimal().add(bank.getAccount("002").getBalance().toBigDecimal());
         assertEquals(new BigDecimal("2000.00"), total);
     }
 
 
     @Test
     void concurrentDeposits_sameAccount_doNotLoseMoney() throws Exception {
-        Bank bank = new Bank();
+        Bank bank = newBank();
         bank.createAccount("001", "A", new BigDecimal("0.00"));
 
         int threads = 20;
@@ -144,8 +150,76 @@ class BankTest {
         }
 
         BigDecimal expected = amount.multiply(new BigDecimal(threads * depositsPerThread));
-        assertEquals(expected, bank.getAccount("001").getBalance());
+        assertEquals(expected, bank.getAccount("001").getBalance().toBigDecimal());
     }
 
+    @Test
+    void concurrentCreateAccount_sameNumber_onlyOneSucceeds() throws Exception {
+        Bank bank = newBank();
+
+        int threads = 20;
+        var created = new java.util.concurrent.atomic.AtomicInteger();
+
+        try (var executor = java.util.concurrent.Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++){
+                executor.submit(() -> {
+                    try {
+                        bank.createAccount("001", "A", new BigDecimal("10.00"));
+                        created.incrementAndGet();
+                    } catch (IllegalArgumentException ignored) {
+                    }
+                });
+            }
+
+            executor.shutdown();
+            boolean finished = executor.awaitTermination(20, TimeUnit.SECONDS);
+            assertTrue(finished);
+        }
 
+        assertEquals(1, created.get());
+        assertEquals(1, bank.getTransactions("001").size());
+    }
+
+    @Test
+    void concurrentOperations_keepEachHistoryABalanceChain() throws Exception {
+        Bank bank = newBank();
+        bank.createAccount("001", "A", new BigDecimal("1000.00"));
+        bank.createAccount("002", "B", new BigDecimal("1000.00"));
+
+        int threads = 8;
+        try (var executor = java.util.concurrent.Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        bank.deposit("001", new BigDecimal("1.00"));
+                        bank.transfer("001", "002", new BigDecimal("2.00"));
+                        bank.transfer("002", "001", new BigDecimal("1.00"));
+                    }
+                });
+            }
+
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(20, TimeUnit.SECONDS));
+        }
+
+        for (String accountNumber : new String[] {"001", "002"}) {
+            var history = bank.getTransactions(accountNumber);
+            for (int i = 1; i < history.size(); i++) {
+                assertEquals(history.get(i - 1).balanceAfter(), history.get(i).balanceBefore(), accountNumber + " entry " + i);
+            }
+            assertEquals(bank.getAccount(accountNumber).getBalance(), history.getLast().balanceAfter());
+        }
+    }
+
+    @Test
+    void transfer_whenCreditOverflows_keepsBothBalances() {
+        Bank bank = newBank();
+        bank.createAccount("001", "A", new BigDecimal("10.00"));
+        bank.createAccount("002", "B", Money.ofMinor(Long.MAX_VALUE).toBigDecimal());
+
+        assertThrows(ArithmeticException.class, () -> bank.transfer("001", "002", new BigDecimal("1.00")));
+
+        assertEquals(new BigDecimal("10.00"), bank.getAccount("001").getBalance().toBigDecimal());
+        assertEquals(Money.ofMinor(Long.MAX_VALUE), bank.getAccount("002").getBalance());
+    }
 }
@@ -0,0 +1,55 @@
+package com.mauricio.bank;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentionTrackerTest {
+
+    @Test
+    void top_keepsHeavyHittersWithinCapacity() {
+        ContentionTracker tracker = new ContentionTracker(8, 1);
+
+        for (int i = 0; i < 1000; i++) {
+            tracker.record("001", 2_000_000);
+            if (i % 2 == 0) tracker.record("002", 1_000_000);
+            tracker.record(String.format("%03d", 100 + i % 500), 10_000);
+        }
+
+        List<ContentionTracker.Hotspot> top = tracker.top(2);
+        assertEquals("001", top.get(0).accountNumber());
+        assertEquals("002", top.get(1).accountNumber());
+        assertTrue(top.get(0).events() - top.get(0).error() <= 1000);
+        assertTrue(top.get(0).events() >= 1000);
+        assertEquals(Duration.ofMillis(2), top.get(0).maxWait());
+        assertEquals(2500, tracker.events());
+        assertEquals(8, tracker.top(100).size());
+    }
+
+    @Test
+    void sampling_weightsRecordedEvents() {
+        ContentionTracker tracker = new ContentionTracker(4, 4);
+
+        for (int i = 0; i < 40_000; i++) {
+            tracker.record("001", 1_000);
+        }
+
+        long events = tracker.top(1).getFirst().events();
+        assertEquals(0, events % 4);
+        assertTrue(events > 36_000 && events < 44_000, "estimate " + events);
+    }
+
+    @Test
+    void reset_clearsCounters() {
+        ContentionTracker tracker = new ContentionTracker(4, 1);
+        tracker.record("001", 1_000);
+
+        tracker.reset();
+
+        assertTrue(tracker.top(10).isEmpty());
+        assertEquals(0, tracker.events());
+    }
+}
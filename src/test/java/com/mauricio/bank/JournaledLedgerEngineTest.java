@@ -0,0 +1,156 @@
+package com.mauricio.bank;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledLedgerEngineTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopen_restoresBalancesAndHistory() throws IOException {
+        try (JournaledLedgerEngine engine = JournaledLedgerEngine.open(dir, 4096, 0)) {
+            Bank bank = new Bank(engine);
+            bank.createAccount("001", "Mauricio", Money.of("100.00"));
+            bank.createAccount("002", "Fanny", Money.ZERO);
+            bank.deposit("001", Money.of("50.00"));
+            bank.transfer("001", "002", Money.of("30.00"));
+            bank.withdraw("002", Money.of("10.00"));
+        }
+
+        try (JournaledLedgerEngine engine = JournaledLedgerEngine.open(dir, 4096, 0)) {
+            Bank bank = new Bank(engine);
+            assertEquals(Money.of("120.00"), bank.getAccount("001").getBalance());
+            assertEquals(Money.of("20.00"), bank.getAccount("002").getBalance());
+            assertEquals("Fanny", bank.getAccount("002").getOwnerName());
+
+            bank.deposit("002", Money.of("1.00"));
+            assertEquals(Money.of("21.00"), bank.getAccount("002").getBalance());
+        }
+    }
+
+    @Test
+    void recovery_replaysOnlyFramesAfterSnapshot_acrossSegments() throws Exception {
+        // Segmentos chicos para forzar rotaciones; snapshot cada 50 frames
+        try (JournaledLedgerEngine engine = JournaledLedgerEngine.open(dir, 1024, 50)) {
+            Bank bank = new Bank(engine);
+            bank.createAccount("001", "A", Money.of("1000.00"));
+            bank.createAccount("002", "B", Money.of("1000.00"));
+
+            try (var executor = Executors.newFixedThreadPool(4)) {
+                for (int t = 0; t < 4; t++) {
+                    executor.submit(() -> {
+                        for (int i = 0; i < 50; i++) {
+                            bank.transfer("001", "002", Money.of("1.00"));
+                            bank.transfer("002", "001", Money.of("2.00"));
+                        }
+                    });
+                }
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            }
+            engine.snapshot();
+            bank.deposit("001", Money.of("0.50"));
+        }
+
+        assertTrue(files("journal-").size() > 1);
+        assertFalse(files("snapshot-").isEmpty());
+
+        try (JournaledLedgerEngine engine = JournaledLedgerEngine.open(dir, 1024, 50)) {
+            Bank bank = new Bank(engine);
+            assertEquals(Money.of("1200.50"), bank.getAccount("001").getBalance());
+            assertEquals(Money.of("800.00"), bank.getAccount("002").getBalance());
+
+            // Historial completo: lo anterior al snapshot sale de los segmentos del journal
+            List<Transaction> history = bank.getTransactions("001");
+            assertEquals(402, history.size());
+            for (int i = 1; i < history.size(); i++) {
+                assertEquals(history.get(i - 1).balanceAfter(), history.get(i).balanceBefore());
+            }
+            assertEquals(Money.of("1200.50"), history.getLast().balanceAfter());
+        }
+    }
+
+    @Test
+    void recovery_ignoresTornFrameAtTail() throws IOException {
+        try (JournaledLedgerEngine engine = JournaledLedgerEngine.open(dir, 4096, 0)) {
+            Bank bank = new Bank(engine);
+            bank.createAccount("001", "A", Money.of("10.00"));
+            bank.deposit("001", Money.of("5.00"));
+        }
+        files("snapshot-").forEach(p -> p.toFile().delete());
+
+        // Simula un frame a medio escribir despues del ultimo frame valido
+        Path segment = files("journal-").getLast();
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
+            int pos = 0;
+            while (buf.getInt(pos) != 0) pos += Journal.HEADER + buf.getInt(pos);
+            buf.putInt(pos, 200).putInt(pos + 4, 12345).putLong(pos + 8, 3);
+        }
+
+        try (JournaledLedgerEngine engine = JournaledLedgerEngine.open(dir, 4096, 0)) {
+            Bank bank = new Bank(engine);
+            assertEquals(Money.of("15.00"), bank.getAccount("001").getBalance());
+            assertEquals(2, bank.getTransactions("001").size());
+            bank.deposit("001", Money.of("1.00"));
+        }
+
+        try (JournaledLedgerEngine engine = JournaledLedgerEngine.open(dir, 4096, 0)) {
+            assertEquals(Money.of("16.00"), new Bank(engine).getAccount("001").getBalance());
+        }
+    }
+
+    @Test
+    void failedAppend_leavesBalancesAlone_andRefusesLaterWrites() throws IOException {
+        JournaledLedgerEngine engine = JournaledLedgerEngine.open(dir, 1024, 0);
+        Bank bank = new Bank(engine);
+        bank.createAccount("001", "A", Money.of("100.00"));
+        bank.createAccount("002", "B", Money.ZERO);
+
+        // Sin directorio la proxima rotacion de segmento falla
+        for (Path file : files("")) Files.delete(file);
+        Files.delete(dir);
+
+        Money before = bank.getAccount("001").getBalance();
+        RuntimeException failure = null;
+        for (int i = 0; i < 100 && failure == null; i++) {
+            before = bank.getAccount("001").getBalance();
+            try {
+                bank.deposit("001", Money.of("1.00"));
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        assertNotNull(failure);
+        assertEquals(before, bank.getAccount("001").getBalance());
+        assertEquals(bank.getAccount("001").getBalance(), bank.getTransactions("001").getLast().balanceAfter());
+
+        assertThrows(IllegalStateException.class, () -> bank.deposit("001", Money.of("1.00")));
+        assertThrows(IllegalStateException.class, () -> bank.transfer("001", "002", Money.of("1.00")));
+        assertEquals(before, bank.getAccount("001").getBalance());
+        assertEquals(Money.ZERO, bank.getAccount("002").getBalance());
+
+        Files.createDirectories(dir);
+        engine.close();
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.mauricio.bank;
+
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+    @Test
+    void of_roundsHalfUpToTwoDecimals(){
+        assertEquals(1010, Money.of(new BigDecimal("10.1")).minorUnits());
+        assertEquals(1001, Money.of(new BigDecimal("10.005")).minorUnits());
+        assertEquals(new BigDecimal("10.10"), Money.of("10.1").toBigDecimal());
+    }
+
+    @Test
+    void arithmetic_keepsMinorUnits(){
+        Money a = Money.of("100.00");
+        Money b = Money.of("0.01");
+
+        assertEquals(Money.of("100.01"), a.plus(b));
+        assertEquals(Money.of("99.99"), a.minus(b));
+        assertTrue(b.isLessThan(a));
+        assertEquals("99.99", a.minus(b).toString());
+    }
+
+    @Test
+    void of_withOutOfRangeOrNull_throwsException(){
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("100000000000000000000.00")));
+        assertThrows(IllegalArgumentException.class, () -> Money.of((BigDecimal) null));
+    }
+}
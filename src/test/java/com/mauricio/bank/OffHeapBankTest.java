@@ -0,0 +1,9 @@
+package com.mauricio.bank;
+
+class OffHeapBankTest extends BankTest {
+
+    @Override
+    Bank newBank() {
+        return new Bank(new ConcurrentLedgerEngine(new OffHeapHistory()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.mauricio.bank;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapHistoryTest {
+
+    @Test
+    void chunks_coverEveryIndexWithoutGaps() {
+        int expectedChunk = 0;
+        for (int i = 0; i < 50_000; i++) {
+            int chunk = OffHeapHistory.chunkOf(i);
+            if (chunk != expectedChunk) {
+                assertEquals(expectedChunk + 1, chunk);
+                assertEquals(i, OffHeapHistory.chunkStart(chunk));
+                expectedChunk = chunk;
+            }
+            assertTrue(i - OffHeapHistory.chunkStart(chunk) < OffHeapHistory.chunkCapacity(chunk));
+        }
+    }
+
+    @Test
+    void append_thenView_roundTripsEveryField() {
+        OffHeapHistory history = new OffHeapHistory();
+        TransactionLog log = history.newLog("001");
+
+        int count = 20_000;
+        LocalDateTime now = LocalDateTime.of(2026, 1, 2, 3, 4, 5, 123_456_789);
+        Transaction[] written = new Transaction[count];
+        for (int i = 0; i < count; i++) {
+            written[i] = new Transaction(UuidV7.next(), "001",
+                    i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.TRANSFER_OUT,
+                    Money.ofMinor(i + 1), Money.ofMinor(i * 10L), Money.ofMinor(i * 10L + 1),
+                    i % 2 == 0 ? "Deposit" : "Transfer to " + (i % 7), now.plusSeconds(i));
+            log.append(written[i]);
+        }
+
+        List<Transaction> view = log.view();
+        assertEquals(count, view.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(written[i], view.get(i));
+        }
+        assertTrue(history.allocatedBytes() >= (long) count * OffHeapHistory.ROW_WIDTH);
+    }
+
+    @Test
+    void view_whileAppending_seesCompleteEntries() throws Exception {
+        Bank bank = new Bank(new ConcurrentLedgerEngine(new OffHeapHistory()));
+        bank.createAccount("001", "A", Money.ZERO);
+        AtomicBoolean done = new AtomicBoolean();
+
+        try (var executor = Executors.newFixedThreadPool(2)) {
+            var reader = executor.submit(() -> {
+                while (!done.get()) {
+                    List<Transaction> view = bank.getTransactions("001");
+                    for (int i = 1; i < view.size(); i++) {
+                        assertEquals(Money.ofMinor(100L * (i - 1)), view.get(i).balanceBefore());
+                    }
+                }
+                return null;
+            });
+
+            for (int i = 0; i < 10_000; i++) {
+                bank.deposit("001", Money.of("1.00"));
+            }
+            done.set(true);
+            reader.get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(10_001, bank.getTransactions("001").size());
+    }
+}
@@ -0,0 +1,27 @@
+package com.mauricio.bank;
+
+import org.junit.jupiter.api.AfterEach;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class PartitionedBankTest extends BankTest {
+
+    private final List<PartitionedLedgerEngine> engines = new ArrayList<>();
+
+    // Pocas particiones: hay transferencias dentro de una particion y entre particiones
+    @Override
+    Bank newBank() {
+        PartitionedLedgerEngine engine = new PartitionedLedgerEngine(3);
+        engines.add(engine);
+        return new Bank(engine);
+    }
+
+    // Cada engine tiene sus propios hilos
+    @AfterEach
+    void closeEngines() {
+        for (PartitionedLedgerEngine engine : engines) {
+            engine.close();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.mauricio.bank;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedLedgerEngineTest {
+
+    @Test
+    void crossPartitionTransfers_onVirtualThreads_keepTotal() throws Exception {
+        try (PartitionedLedgerEngine engine = new PartitionedLedgerEngine(4, Thread.ofVirtual().factory(), null)) {
+            List<String> accounts = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                String number = String.format("%03d", i);
+                engine.createAccount(number, "Owner " + i, Money.of("100.00"));
+                accounts.add(number);
+            }
+
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int t = 0; t < 32; t++) {
+                    int seed = t;
+                    executor.submit(() -> {
+                        for (int i = 0; i < 200; i++) {
+                            String from = accounts.get((seed + i) % accounts.size());
+                            String to = accounts.get((seed * 7 + i * 3 + 1) % accounts.size());
+                            if (from.equals(to)) continue;
+                            try {
+                                engine.transfer(from, to, Money.of("7.00"));
+                            } catch (InsufficientFundsException ignored) {
+                                // Esperado cuando una cuenta se vacia
+                            }
+                        }
+                    });
+                }
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+            }
+
+            long total = 0;
+            for (String number : accounts) {
+                Account account = engine.getAccount(number);
+                assertFalse(account.getBalance().isNegative());
+                total += account.getBalance().minorUnits();
+
+                // El historial de cada cuenta encadena sus saldos
+                List<Transaction> history = engine.getTransactions(number);
+                for (int i = 1; i < history.size(); i++) {
+                    assertEquals(history.get(i - 1).balanceAfter(), history.get(i).balanceBefore());
+                }
+                assertEquals(account.getBalance(), history.getLast().balanceAfter());
+            }
+            assertEquals(20 * 10_000L, total);
+        }
+    }
+
+    @Test
+    void transfer_withoutFunds_abortsBeforeCrediting() {
+        try (PartitionedLedgerEngine engine = new PartitionedLedgerEngine(8)) {
+            String from = "001";
+            String to = "002";
+            for (int i = 2; engine.partitionOf(from) == engine.partitionOf(to); i++) {
+                to = String.format("%03d", i);
+            }
+            engine.createAccount(from, "A", Money.of("5.00"));
+            engine.createAccount(to, "B", Money.ZERO);
+
+            String target = to;
+            assertThrows(InsufficientFundsException.class, () -> engine.transfer(from, target, Money.of("5.01")));
+            assertThrows(IllegalArgumentException.class, () -> engine.transfer(from, "999", Money.of("1.00")));
+
+            assertEquals(Money.of("5.00"), engine.getAccount(from).getBalance());
+            assertEquals(Money.ZERO, engine.getAccount(to).getBalance());
+            assertEquals(1, engine.getTransactions(to).size());
+        }
+    }
+
+    @Test
+    void asyncCommands_onOnePartition_runInOrder() {
+        try (PartitionedLedgerEngine engine = new PartitionedLedgerEngine(2)) {
+            engine.createAccount("001", "A", Money.ZERO);
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(engine.depositAsync("001", Money.of("1.00")));
+            }
+            CompletableFuture<Void> withdraw = engine.withdrawAsync("001", Money.of("100.00"));
+            futures.forEach(CompletableFuture::join);
+            withdraw.join();
+
+            assertEquals(Money.ZERO, engine.getAccount("001").getBalance());
+            engine.close();
+            assertThrows(IllegalStateException.class, () -> engine.deposit("001", Money.of("1.00")));
+        }
+    }
+
+    @Test
+    void crossPartitionTransfer_whenCommitFails_reversesTheSource() {
+        try (PartitionedLedgerEngine engine = new PartitionedLedgerEngine(8)) {
+            String from = "001";
+            String to = otherPartition(engine, from);
+            engine.createAccount(from, "A", Money.of("10.00"));
+            engine.createAccount(to, "B", Money.ofMinor(Long.MAX_VALUE));
+
+            assertThrows(ArithmeticException.class, () -> engine.transfer(from, to, Money.of("1.00")));
+
+            assertEquals(Money.of("10.00"), engine.getAccount(from).getBalance());
+            List<Transaction> history = engine.getTransactions(from);
+            assertEquals(TransactionType.TRANSFER_OUT, history.get(1).type());
+            assertEquals(TransactionType.TRANSFER_REVERSAL, history.get(2).type());
+            assertEquals(Money.of("10.00"), history.get(2).balanceAfter());
+        }
+    }
+
+    @Test
+    void close_finishesTransfersInFlight() {
+        PartitionedLedgerEngine engine = new PartitionedLedgerEngine(8);
+        String from = "001";
+        String to = otherPartition(engine, from);
+        engine.createAccount(from, "A", Money.of("1000.00"));
+        engine.createAccount(to, "B", Money.ZERO);
+
+        List<CompletableFuture<Void>> transfers = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            transfers.add(engine.transferAsync(from, to, Money.of("1.00")));
+        }
+        engine.close();
+
+        transfers.forEach(CompletableFuture::join);
+        assertEquals(Money.of("500.00"), engine.getAccount(from).getBalance());
+        assertEquals(Money.of("500.00"), engine.getAccount(to).getBalance());
+        assertThrows(IllegalStateException.class, () -> engine.transfer(from, to, Money.of("1.00")));
+    }
+
+    private static String otherPartition(PartitionedLedgerEngine engine, String accountNumber) {
+        String other = "002";
+        for (int i = 2; engine.partitionOf(accountNumber) == engine.partitionOf(other); i++) {
+            other = String.format("%03d", i);
+        }
+        return other;
+    }
+}
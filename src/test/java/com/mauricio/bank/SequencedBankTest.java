@@ -0,0 +1,28 @@
+package com.mauricio.bank;
+
+import org.junit.jupiter.api.AfterEach;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+class SequencedBankTest extends BankTest {
+
+    private final List<SequencedLedgerEngine> engines = new ArrayList<>();
+
+    // Ring chico: los tests concurrentes tambien pasan por la espera de slots libres
+    @Override
+    Bank newBank() {
+        SequencedLedgerEngine engine = new SequencedLedgerEngine(16, null);
+        engines.add(engine);
+        return new Bank(engine);
+    }
+
+    // Cada engine tiene sus propios hilos
+    @AfterEach
+    void closeEngines() throws IOException {
+        for (SequencedLedgerEngine engine : engines) {
+            engine.close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.mauricio.bank;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequencedLedgerEngineTest {
+
+    @Test
+    void asyncCommands_completeInOrderWithTheirOutcome() throws IOException {
+        try (SequencedLedgerEngine engine = new SequencedLedgerEngine(4, null)) {
+            engine.createAccount("001", "A", Money.of("10.00"));
+
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(engine.depositAsync("001", Money.of("1.00")));
+            }
+            CompletableFuture<?> tooMuch = engine.withdrawAsync("001", Money.of("1000.00"));
+            futures.forEach(CompletableFuture::join);
+
+            CompletionException ex = assertThrows(CompletionException.class, tooMuch::join);
+            assertInstanceOf(InsufficientFundsException.class, ex.getCause());
+            assertEquals(Money.of("110.00"), engine.getAccount("001").getBalance());
+            assertEquals(101, engine.getTransactions("001").size());
+        }
+    }
+
+    @Test
+    void close_rejectsNewCommands() throws IOException {
+        SequencedLedgerEngine engine = new SequencedLedgerEngine(8, null);
+        engine.createAccount("001", "A", Money.ZERO);
+        engine.close();
+
+        assertThrows(IllegalStateException.class, () -> engine.deposit("001", Money.of("1.00")));
+        assertEquals(Money.ZERO, engine.getAccount("001").getBalance());
+    }
+
+    @Test
+    void close_racingPublishers_leavesNoCommandPending() throws Exception {
+        SequencedLedgerEngine engine = new SequencedLedgerEngine(8, null);
+        engine.createAccount("001", "A", Money.ZERO);
+
+        ConcurrentLinkedQueue<CompletableFuture<?>> accepted = new ConcurrentLinkedQueue<>();
+        CountDownLatch started = new CountDownLatch(4);
+        ExecutorService publishers = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            publishers.submit(() -> {
+                started.countDown();
+                try {
+                    while (true) accepted.add(engine.depositAsync("001", Money.of("1.00")));
+                } catch (IllegalStateException closed) {
+                    // El ring se cerro: no se aceptan mas
+                }
+            });
+        }
+        started.await();
+
+        // Dos close() a la vez: ambos vuelven cuando termina el unico STOP
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+            try {
+                engine.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        engine.close();
+        other.get(10, TimeUnit.SECONDS);
+        publishers.shutdown();
+        assertTrue(publishers.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Todo comando aceptado antes del STOP se aplico
+        CompletableFuture.allOf(accepted.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        assertEquals(Money.ofMinor(accepted.size() * 100L), engine.getAccount("001").getBalance());
+    }
+
+    @Test
+    void errorOnBusinessThread_failsPendingAndLaterCommands() throws Exception {
+        SequencedLedgerEngine engine = new SequencedLedgerEngine(8, null) {
+            @Override
+            protected void journal(String ownerName, Transaction... entries) {
+                if (entries[0].amount().equals(Money.of("13.00"))) throw new StackOverflowError("test");
+            }
+        };
+        engine.createAccount("001", "A", Money.ZERO);
+
+        CompletableFuture<?> fatal = engine.depositAsync("001", Money.of("13.00"));
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> fatal.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, ex.getCause().getCause());
+
+        IllegalStateException later = assertThrows(IllegalStateException.class, () -> engine.deposit("001", Money.of("1.00")));
+        assertInstanceOf(StackOverflowError.class, later.getCause());
+        assertEquals(Money.ZERO, engine.getAccount("001").getBalance());
+        engine.close();
+    }
+
+    @Test
+    void open_journalsEveryBatchAndRecovers(@TempDir Path dir) throws IOException {
+        try (SequencedLedgerEngine engine = SequencedLedgerEngine.open(dir, 64, null)) {
+            Bank bank = new Bank(engine);
+            bank.createAccount("001", "A", Money.of("100.00"));
+            bank.createAccount("002", "B", Money.ZERO);
+            for (int i = 0; i < 10; i++) {
+                engine.transferAsync("001", "002", Money.of("5.00"));
+            }
+            bank.withdraw("002", Money.of("1.00"));
+        }
+
+        try (SequencedLedgerEngine engine = SequencedLedgerEngine.open(dir, 64, null)) {
+            assertEquals(Money.of("50.00"), engine.getAccount("001").getBalance());
+            assertEquals(Money.of("49.00"), engine.getAccount("002").getBalance());
+            // close() dejo un snapshot: el historial anterior se lee del journal al pedirlo
+            List<Transaction> history = engine.getTransactions("002");
+            assertEquals(12, history.size());
+            assertEquals(TransactionType.ACCOUNT_CREATED, history.getFirst().type());
+            assertEquals(Money.of("49.00"), history.getLast().balanceAfter());
+
+            engine.deposit("002", Money.of("1.00"));
+            assertEquals(13, engine.getTransactions("002").size());
+            assertEquals(Money.of("50.00"), engine.getTransactions("002").getLast().balanceAfter());
+        }
+    }
+}
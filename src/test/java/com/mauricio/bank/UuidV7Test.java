@@ -0,0 +1,22 @@
+package com.mauricio.bank;
+
+import org.junit.jupiter.api.Test;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7Test {
+    @Test
+    void next_isVersion7_andMonotonic(){
+        UUID previous = UuidV7.next();
+
+        for (int i = 0; i < 10_000; i++){
+            UUID current = UuidV7.next();
+
+            assertEquals(7, current.version());
+            assertEquals(2, current.variant());
+            assertTrue(Long.compareUnsigned(previous.getMostSignificantBits(), current.getMostSignificantBits()) < 0);
+            previous = current;
+        }
+    }
+}
@@ -7,7 +7,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import com.jayway.jsonpath.JsonPath;
 
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -71,4 +76,261 @@ public class BankControllerITTest {
                 .andExpect(jsonPath("$.error").exists());
 
     }
+
+    @Test
+    void transferBatch_appliesValidItems_andReportsFailures() throws Exception {
+        mockMvc.perform(post("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "accountNumber": "020", "ownerName": "A", "initialBalance": 100.00 }
+                """)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "accountNumber": "021", "ownerName": "B", "initialBalance": 0.00 }
+                """)).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/transfers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  {
+                    "transfers": [
+                      { "fromAccountNumber": "020", "toAccountNumber": "021", "amount": 60.00 },
+                      { "fromAccountNumber": "020", "toAccountNumber": "021", "amount": 60.00 },
+                      { "fromAccountNumber": "021", "toAccountNumber": "999", "amount": 1.00 }
+                    ]
+                  }
+                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$.results[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[2].error").value("Account not found: 999"));
+
+        mockMvc.perform(get("/api/accounts/021"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(60.00));
+
+        mockMvc.perform(get("/api/accounts/021/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    void transferBatch_creditOverflow_failsOnlyThatItem() throws Exception {
+        mockMvc.perform(post("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "accountNumber": "070", "ownerName": "A", "initialBalance": 10.00 }
+                """)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "accountNumber": "071", "ownerName": "B", "initialBalance": 92233720368547758.07 }
+                """)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "accountNumber": "072", "ownerName": "C", "initialBalance": 0.00 }
+                """)).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/transfers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  {
+                    "transfers": [
+                      { "fromAccountNumber": "070", "toAccountNumber": "071", "amount": 1.00 },
+                      { "fromAccountNumber": "070", "toAccountNumber": "072", "amount": 1.00 }
+                    ]
+                  }
+                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[1].status").value("COMPLETED"));
+
+        mockMvc.perform(get("/api/accounts/070"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(9.00));
+    }
+
+    @Test
+    void history_pagesWithCursor() throws Exception {
+        mockMvc.perform(post("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "accountNumber": "030", "ownerName": "A", "initialBalance": 10.00 }
+                """)).andExpect(status().isOk());
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/accounts/030/deposit")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "amount": 5.00 }
+                            """))
+                    .andExpect(status().isOk());
+        }
+
+        String body = mockMvc.perform(get("/api/accounts/030/history").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].balanceAfter").value(20.00))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString();
+
+        String cursor = com.jayway.jsonpath.JsonPath.read(body, "$.nextCursor");
+
+        mockMvc.perform(get("/api/accounts/030/history").param("limit", "2").param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].type").value("ACCOUNT_CREATED"))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void transfer_withoutFunds_rollsBackBothAccounts() throws Exception {
+        mockMvc.perform(post("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "accountNumber": "041", "ownerName": "A", "initialBalance": 5.00 }
+                """)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "accountNumber": "040", "ownerName": "B", "initialBalance": 0.00 }
+                """)).andExpect(status().isOk());
+
+        // "040" < "041": el deposito al destino se aplica antes que el retiro que falla
+        mockMvc.perform(post("/api/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "fromAccountNumber": "041", "toAccountNumber": "040", "amount": 10.00 }
+                """))
+                .andExpect(status().isUnprocessableEntity());
+
+        mockMvc.perform(post("/api/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "fromAccountNumber": "041", "toAccountNumber": "040", "amount": 2.00 }
+                """))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/accounts/040"))
+                .andExpect(jsonPath("$.balance").value(2.00));
+        mockMvc.perform(get("/api/accounts/041"))
+                .andExpect(jsonPath("$.balance").value(3.00));
+        mockMvc.perform(get("/api/accounts/041/history"))
+                .andExpect(jsonPath("$.items[0].balanceBefore").value(5.00))
+                .andExpect(jsonPath("$.items[0].balanceAfter").value(3.00));
+    }
+
+    @Test
+    void export_streamsHistoryAsNdjsonAndCsv() throws Exception {
+        mockMvc.perform(post("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "accountNumber": "050", "ownerName": "A", "initialBalance": 10.00 }
+                """)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/accounts/050/deposit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "amount": 5.00 }
+                        """))
+                .andExpect(status().isOk());
+
+        MvcResult ndjson = mockMvc.perform(get("/api/accounts/050/transactions/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("ACCOUNT_CREATED", JsonPath.read(lines[0], "$.type"));
+        assertEquals(15.0, ((Number) JsonPath.read(lines[1], "$.balanceAfter")).doubleValue());
+
+        MvcResult csv = mockMvc.perform(get("/api/accounts/050/transactions/export")
+                        .param("format", "csv")
+                        .param("from", "2000-01-01T00:00:00")
+                        .param("to", "2000-01-02T00:00:00"))
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("id,accountNumber,type,amount,balanceBefore,balanceAfter,description,occurredAt\n", body);
+
+        mockMvc.perform(get("/api/accounts/999/transactions/export"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/accounts/050/transactions/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void contention_listsTrackersAndRejectsUnknownSource() throws Exception {
+        mockMvc.perform(get("/api/admin/contention").param("source", "ledger").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.source").value("ledger"))
+                .andExpect(jsonPath("$.capacity").value(256))
+                .andExpect(jsonPath("$.top").isArray());
+
+        mockMvc.perform(delete("/api/admin/contention"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/admin/contention"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events").value(0));
+
+        mockMvc.perform(get("/api/admin/contention").param("source", "cache"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void balanceAt_replaysJournalUpToTheInstant() throws Exception {
+        mockMvc.perform(post("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "accountNumber": "060", "ownerName": "A", "initialBalance": 10.00 }
+                """)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/accounts/060/deposit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "amount": 5.00 }
+                        """)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/accounts/060/balance").param("at", "2999-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(15.00))
+                .andExpect(jsonPath("$.snapshotDate").doesNotExist());
+
+        // Antes de que existiera la cuenta
+        mockMvc.perform(get("/api/accounts/060/balance").param("at", "2000-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/accounts/999/balance").param("at", "2999-01-01T00:00:00"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void statement_listsEveryTypeWithTotals() throws Exception {
+        mockMvc.perform(post("/api/accounts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                  { "accountNumber": "061", "ownerName": "A", "initialBalance": 10.00 }
+                """)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/accounts/061/withdraw")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "amount": 4.00 }
+                        """)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/accounts/061/statement").param("month", YearMonth.now().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.openingBalance").value(0))
+                .andExpect(jsonPath("$.closingBalance").value(6.00))
+                .andExpect(jsonPath("$.lines[?(@.type == 'WITHDRAW')].count").value(1))
+                .andExpect(jsonPath("$.lines[?(@.type == 'WITHDRAW')].total").value(4.00));
+
+        mockMvc.perform(get("/api/accounts/061/statement").param("month", "2024-13"))
+                .andExpect(status().isBadRequest());
+    }
 }
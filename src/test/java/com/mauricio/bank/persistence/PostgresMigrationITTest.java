@@ -0,0 +1,99 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import com.mauricio.bank.service.BankService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Migraciones de PostgreSQL (V1-V5) contra un Postgres real; sin Docker se saltea
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+public class PostgresMigrationITTest {
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @Autowired
+    BankService bankService;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Test
+    void freshDatabase_migratesToPartitionedSchema_matchingEntities() {
+        assertEquals(List.of("1", "2", "3", "4", "5"), jdbc.queryForList(
+                "select version from flyway_schema_history where success order by installed_rank", String.class));
+        assertEquals(1, jdbc.queryForObject(
+                "select count(*) from pg_partitioned_table p join pg_class c on c.oid = p.partrelid where c.relname = 'transactions'",
+                Integer.class));
+
+        bankService.createAccount("600", "A", Money.of("100.00"));
+        bankService.createAccount("601", "B", Money.ZERO);
+        bankService.transfer("600", "601", Money.of("40.00"), "pg-migration-1");
+
+        assertEquals(Money.of("40.00"), bankService.getAccount("601").balance());
+        assertEquals(2, bankService.getTransactionHistory("600", null, 10).getNumberOfElements());
+    }
+
+    @Test
+    void existingDatabase_keepsItsRowsInTheLegacyPartition() {
+        jdbc.execute("create database bank_legacy");
+        var dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl().replace("/" + POSTGRES.getDatabaseName(), "/bank_legacy"),
+                POSTGRES.getUsername(), POSTGRES.getPassword());
+        JdbcTemplate legacy = new JdbcTemplate(dataSource);
+
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/postgresql")
+                .target("1").load().migrate();
+        LocalDateTime old = LocalDateTime.now().minusMonths(14);
+        LocalDateTime recent = LocalDateTime.now().withDayOfMonth(1).plusHours(1);
+        legacy.update("insert into accounts (account_number, owner_name, balance, bucket_count, version) values ('700', 'A', 15.00, 0, 0)");
+        for (LocalDateTime at : List.of(old, recent)) {
+            legacy.update("""
+                    insert into transactions (id, account_number, type, amount, balance_before, balance_after, description, occurred_at)
+                    values (gen_random_uuid(), '700', 'DEPOSIT', 7.50, 0, 7.50, 'Deposit', ?)
+                    """, at);
+        }
+
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/postgresql").load().migrate();
+
+        assertEquals(2, legacy.queryForObject("select count(*) from transactions where account_number = '700'", Integer.class));
+        LocalDate firstMonth = LocalDate.now().withDayOfMonth(1).plusMonths(1);
+        assertEquals("FOR VALUES FROM (MINVALUE) TO ('" + firstMonth + " 00:00:00')", legacy.queryForObject(
+                "select pg_get_expr(c.relpartbound, c.oid) from pg_class c where c.relname = 'transactions_legacy'",
+                String.class));
+        // Los meses siguientes tienen particion: un insert de dentro de dos meses no falla
+        legacy.update("""
+                insert into transactions (id, account_number, type, amount, balance_before, balance_after, description, occurred_at)
+                values (gen_random_uuid(), '700', 'DEPOSIT', 1.00, 15.00, 16.00, 'Deposit', ?)
+                """, firstMonth.plusMonths(1).atTime(9, 0));
+        assertEquals(Money.of("16.00").toBigDecimal(), legacy.queryForObject(
+                "select sum(amount) from transactions where account_number = '700'", BigDecimal.class));
+    }
+}
@@ -0,0 +1,32 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import com.mauricio.bank.service.BankService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Flyway crea el esquema y Hibernate lo valida contra las entidades (perfil test)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:bankmigration;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+public class SchemaMigrationITTest {
+    @Autowired
+    BankService bankService;
+
+    @Test
+    void migratedSchema_matchesEntities_andSupportsOperations() {
+        bankService.createAccount("500", "A", Money.of("100.00"));
+        bankService.createAccount("501", "B", Money.ZERO);
+        bankService.enableSharding("501", 2);
+
+        bankService.transfer("500", "501", Money.of("40.00"), "migration-1");
+        bankService.transfer("500", "501", Money.of("40.00"), "migration-1");
+
+        assertEquals(Money.of("60.00"), bankService.getAccount("500").balance());
+        assertEquals(Money.of("40.00"), bankService.getAccount("501").balance());
+        assertEquals(2, bankService.getTransactionHistory("500", null, 10).getNumberOfElements());
+    }
+}
@@ -0,0 +1,120 @@
+package com.mauricio.bank.persistence;
+
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionArchiveTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void findHistoryBefore_pagesNewestFirstAcrossFiles() throws IOException {
+        LocalDateTime jan = LocalDateTime.of(2023, 1, 10, 12, 0);
+        LocalDateTime feb = LocalDateTime.of(2023, 2, 10, 12, 0);
+        write("transactions_2023_01", row("001", jan, 1), row("001", jan.plusDays(1), 2), row("002", jan, 3));
+        write("transactions_2023_02", row("001", feb, 4), row("003", feb, 5));
+
+        TransactionArchive archive = new TransactionArchive(dir);
+        try {
+            List<TransactionEntity> first = archive.findHistoryBefore("001", null, null, 2);
+            assertEquals(List.of(4L, 2L), first.stream().map(t -> t.getAmount().minorUnits()).toList());
+
+            TransactionEntity last = first.getLast();
+            List<TransactionEntity> next = archive.findHistoryBefore("001", last.getOccurredAt(), last.getId(), 2);
+            assertEquals(List.of(1L), next.stream().map(t -> t.getAmount().minorUnits()).toList());
+            assertEquals("Deposit", next.getFirst().getDescription());
+            assertEquals(jan, next.getFirst().getOccurredAt());
+
+            assertTrue(archive.findHistoryBefore("004", null, null, 10).isEmpty());
+        } finally {
+            archive.close();
+        }
+    }
+
+    @Test
+    void writer_rejectsUnorderedAccounts_andLeavesNoFile() throws IOException {
+        Path file = dir.resolve("transactions_2023_03" + TransactionArchive.SUFFIX);
+        try (TransactionArchive.Writer writer = TransactionArchive.writer(file)) {
+            writer.append(row("002", LocalDateTime.of(2023, 3, 1, 0, 0), 1));
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.append(row("001", LocalDateTime.of(2023, 3, 1, 0, 0), 2)));
+        }
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void largeAccount_isSplitIntoBoundedBlocks_andReadAcrossThem() throws IOException {
+        LocalDateTime start = LocalDateTime.of(2023, 4, 1, 0, 0);
+        String description = "x".repeat(50_000);
+        try (TransactionArchive.Writer writer = TransactionArchive.writer(dir.resolve("transactions_2023_04" + TransactionArchive.SUFFIX))) {
+            for (int i = 0; i < 60; i++) {
+                writer.append(new TransactionEntity(UUID.randomUUID(), "001", TransactionType.DEPOSIT, Money.ofMinor(i + 1),
+                        Money.ZERO, Money.ofMinor(i + 1), description, start.plusHours(i)));
+            }
+            writer.append(row("002", start, 100));
+            writer.finish();
+        }
+        // ~3 MB de filas de 001: tres bloques mas el de 002 (entries esta en el trailer, 32 bytes antes del final)
+        byte[] file = Files.readAllBytes(dir.resolve("transactions_2023_04" + TransactionArchive.SUFFIX));
+        assertEquals(4, ByteBuffer.wrap(file, file.length - 32, 4).getInt());
+
+        TransactionArchive archive = new TransactionArchive(dir);
+        try {
+            // Pagina que cruza el limite entre bloques
+            TransactionEntity cursor = archive.findHistoryBefore("001", null, null, 25).getLast();
+            assertEquals(36, cursor.getAmount().minorUnits());
+            List<TransactionEntity> next = archive.findHistoryBefore("001", cursor.getOccurredAt(), cursor.getId(), 30);
+            assertEquals(30, next.size());
+            assertEquals(35, next.getFirst().getAmount().minorUnits());
+            assertEquals(6, next.getLast().getAmount().minorUnits());
+
+            List<Long> range = new ArrayList<>();
+            archive.iterate("001", start.plusHours(20), start.plusHours(45)).forEachRemaining(t -> range.add(t.getAmount().minorUnits()));
+            assertEquals(LongStream.rangeClosed(21, 45).boxed().toList(), range);
+
+            assertEquals(Money.ofMinor(60 * 61 / 2), archive.sumNetChange("001", LocalDateTime.MIN, start.plusDays(30)));
+            assertEquals(List.of(100L), archive.findHistoryBefore("002", null, null, 10).stream()
+                    .map(t -> t.getAmount().minorUnits()).toList());
+        } finally {
+            archive.close();
+        }
+    }
+
+    @Test
+    void writer_rejectsUnorderedRowsOfAnAccount() throws IOException {
+        Path file = dir.resolve("transactions_2023_05" + TransactionArchive.SUFFIX);
+        try (TransactionArchive.Writer writer = TransactionArchive.writer(file)) {
+            writer.append(row("001", LocalDateTime.of(2023, 5, 2, 0, 0), 1));
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.append(row("001", LocalDateTime.of(2023, 5, 1, 0, 0), 2)));
+        }
+    }
+
+    private void write(String partition, TransactionEntity... rows) throws IOException {
+        try (TransactionArchive.Writer writer = TransactionArchive.writer(dir.resolve(partition + TransactionArchive.SUFFIX))) {
+            for (TransactionEntity row : rows) writer.append(row);
+            writer.finish();
+        }
+    }
+
+    private static TransactionEntity row(String account, LocalDateTime at, long minor) {
+        return new TransactionEntity(UUID.randomUUID(), account, TransactionType.DEPOSIT, Money.ofMinor(minor),
+                Money.ZERO, Money.ofMinor(minor), "Deposit", at);
+    }
+}
@@ -0,0 +1,120 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransactionType;
+import com.mauricio.bank.UuidV7;
+import com.mauricio.bank.persistence.TransactionArchive;
+import com.mauricio.bank.persistence.TransactionEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bankarchive;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "bank.partitioning.archive-dir=target/test-archive"
+})
+@ActiveProfiles("test")
+public class ArchivedHistoryITTest {
+    @Autowired
+    BankService bankService;
+
+    @Autowired
+    TransactionArchive archive;
+
+    @Autowired
+    BalanceSnapshotService snapshots;
+
+    @Autowired
+    TransactionExportService export;
+
+    @Test
+    void history_continuesIntoArchivedPartitions() throws Exception {
+        bankService.createAccount("400", "A", Money.of("10.00"));
+        bankService.deposit("400", Money.of("5.00"));
+
+        Files.createDirectories(archive.directory());
+        try (TransactionArchive.Writer writer = TransactionArchive.writer(
+                archive.directory().resolve("transactions_2020_01" + TransactionArchive.SUFFIX))) {
+            for (int day = 1; day <= 3; day++) {
+                writer.append(new TransactionEntity(UuidV7.next(), "400", TransactionType.DEPOSIT, Money.of("1.00"),
+                        Money.ZERO, Money.of("1.00"), "Archived " + day, LocalDateTime.of(2020, 1, day, 9, 0)));
+            }
+            writer.finish();
+        }
+        archive.refresh();
+
+        Slice<TransactionEntity> first = bankService.getTransactionHistory("400", null, 3);
+        assertEquals(List.of("Deposit", "Account created", "Archived 3"), descriptions(first));
+        assertTrue(first.hasNext());
+
+        String cursor = HistoryCursor.of(first.getContent().getLast()).encode();
+        Slice<TransactionEntity> second = bankService.getTransactionHistory("400", cursor, 3);
+        assertEquals(List.of("Archived 2", "Archived 1"), descriptions(second));
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void balanceAt_sumsArchivedMonths() throws Exception {
+        bankService.createAccount("401", "A", Money.ZERO);
+
+        Files.createDirectories(archive.directory());
+        try (TransactionArchive.Writer writer = TransactionArchive.writer(
+                archive.directory().resolve("transactions_2019_06" + TransactionArchive.SUFFIX))) {
+            writer.append(new TransactionEntity(UuidV7.next(), "401", TransactionType.ACCOUNT_CREATED, Money.of("10.00"),
+                    Money.ZERO, Money.of("10.00"), "Account created", LocalDateTime.of(2019, 6, 1, 9, 0)));
+            writer.append(new TransactionEntity(UuidV7.next(), "401", TransactionType.WITHDRAW, Money.of("4.00"),
+                    Money.of("10.00"), Money.of("6.00"), "Withdraw", LocalDateTime.of(2019, 6, 2, 9, 0)));
+            writer.append(new TransactionEntity(UuidV7.next(), "401", TransactionType.DEPOSIT, Money.of("1.00"),
+                    Money.of("6.00"), Money.of("7.00"), "Deposit", LocalDateTime.of(2019, 6, 3, 9, 0)));
+            writer.finish();
+        }
+        archive.refresh();
+
+        assertEquals(Money.of("6.00"), snapshots.balanceAt("401", LocalDateTime.of(2019, 6, 2, 12, 0)).balance());
+        assertEquals(Money.of("7.00"), snapshots.balanceAt("401", LocalDateTime.of(2019, 7, 1, 0, 0)).balance());
+        assertThrows(IllegalArgumentException.class,
+                () -> snapshots.balanceAt("401", LocalDateTime.of(2019, 5, 31, 0, 0)));
+    }
+
+    @Test
+    void export_streamsArchivedRowsBeforeDatabaseRows() throws Exception {
+        bankService.createAccount("402", "A", Money.of("10.00"));
+
+        Files.createDirectories(archive.directory());
+        try (TransactionArchive.Writer writer = TransactionArchive.writer(
+                archive.directory().resolve("transactions_2019_07" + TransactionArchive.SUFFIX))) {
+            for (int day = 1; day <= 3; day++) {
+                writer.append(new TransactionEntity(UuidV7.next(), "402", TransactionType.DEPOSIT, Money.of("1.00"),
+                        Money.ZERO, Money.of("1.00"), "Archived " + day, LocalDateTime.of(2019, 7, day, 9, 0)));
+            }
+            writer.finish();
+        }
+        archive.refresh();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(4, export.write(export.prepare("402", null, null), TransactionExportService.Format.CSV, out));
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().skip(1).toList();
+        assertTrue(lines.get(0).contains("Archived 1"));
+        assertTrue(lines.get(3).contains("Account created"));
+
+        out.reset();
+        TransactionExportService.ExportRequest range = export.prepare("402",
+                LocalDateTime.of(2019, 7, 2, 0, 0), LocalDateTime.of(2019, 7, 3, 9, 0));
+        assertEquals(1, export.write(range, TransactionExportService.Format.NDJSON, out));
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("Archived 2"));
+    }
+
+    private static List<String> descriptions(Slice<TransactionEntity> slice) {
+        return slice.getContent().stream().map(TransactionEntity::getDescription).toList();
+    }
+}
@@ -0,0 +1,105 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.Money;
+import com.mauricio.bank.persistence.AccountEntity;
+import com.mauricio.bank.persistence.AccountSnapshot;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalanceCacheTest {
+    private final BalanceCache cache = new BalanceCache(100, Duration.ofMinutes(5));
+
+    @Test
+    void get_afterARead_isAHit() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(Money.of("10.00"), cache.get("001", n -> {
+            loads.incrementAndGet();
+            return snapshot(n, "10.00", 1);
+        }).balance());
+        assertEquals(Money.of("10.00"), cache.get("001", n -> {
+            loads.incrementAndGet();
+            return snapshot(n, "99.00", 2);
+        }).balance());
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    void putAfterCommit_publishesOnlyOnCommit() {
+        cache.get("001", n -> snapshot(n, "10.00", 1));
+
+        inTransaction(true, () -> {
+            cache.putAfterCommit(snapshot("001", "20.00", 2));
+            // Dentro de la transaccion se sigue viendo lo confirmado
+            assertEquals(Money.of("10.00"), cached("001").balance());
+        });
+
+        assertEquals(Money.of("20.00"), cached("001").balance());
+    }
+
+    @Test
+    void putAfterCommit_onRollback_cachesNothing() {
+        inTransaction(false, () -> cache.putAfterCommit(snapshot("001", "20.00", 2)));
+        assertEquals(0, cache.estimatedSize());
+
+        cache.get("002", n -> snapshot(n, "10.00", 1));
+        inTransaction(false, () -> cache.invalidateAfterCommit("002"));
+        assertEquals(Money.of("10.00"), cached("002").balance());
+    }
+
+    @Test
+    void putAfterCommit_readsTheEntityAtCommit() {
+        AccountEntity account = new AccountEntity("001", "A", Money.of("10.00"));
+
+        inTransaction(true, () -> {
+            cache.putAfterCommit(account);
+            account.setBalance(Money.of("15.00"));
+        });
+
+        assertEquals(Money.of("15.00"), cached("001").balance());
+    }
+
+    @Test
+    void olderVersion_doesNotReplaceNewerOne() {
+        // Dos commits cuyos callbacks llegan en orden inverso
+        cache.putAfterCommit(snapshot("001", "30.00", 3));
+        cache.putAfterCommit(snapshot("001", "20.00", 2));
+        assertEquals(3, cached("001").version());
+        assertEquals(Money.of("30.00"), cached("001").balance());
+
+        cache.putAfterCommit(snapshot("001", "31.00", 3));
+        assertEquals(Money.of("31.00"), cached("001").balance());
+    }
+
+    // --Helpers
+
+    private AccountSnapshot cached(String accountNumber) {
+        return cache.get(accountNumber, n -> fail("not cached: " + n));
+    }
+
+    private static AccountSnapshot snapshot(String accountNumber, String balance, long version) {
+        return new AccountSnapshot(accountNumber, "Owner", Money.of(balance), version);
+    }
+
+    // Simula el ciclo de una transaccion sin transaction manager
+    private static void inTransaction(boolean commit, Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            if (commit) TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                    commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
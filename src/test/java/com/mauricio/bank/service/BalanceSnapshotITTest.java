@@ -0,0 +1,85 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransactionType;
+import com.mauricio.bank.UuidV7;
+import com.mauricio.bank.persistence.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:banksnapshots;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+public class BalanceSnapshotITTest {
+    private static final LocalDate DAY1 = LocalDate.now().minusDays(3);
+    private static final LocalDate DAY2 = DAY1.plusDays(1);
+    private static final LocalDate DAY3 = DAY1.plusDays(2);
+
+    @Autowired
+    BalanceSnapshotService snapshots;
+
+    @Autowired
+    BalanceSnapshotRepository snapshotRepo;
+
+    @Autowired
+    AccountRepository accountRepo;
+
+    @Autowired
+    TransactionRepository txRepo;
+
+    @Test
+    void snapshots_closeEachDay_andPointInTimeQueriesReplayOnlyTheDelta() {
+        // 800: creada el dia 1, mueve el 1 y el 3; 801: solo el dia 2
+        accountRepo.save(new AccountEntity("800", "A", Money.of("70.00")));
+        accountRepo.save(new AccountEntity("801", "B", Money.of("20.00")));
+        journal("800", TransactionType.ACCOUNT_CREATED, "100.00", "0.00", DAY1.atTime(9, 0));
+        journal("800", TransactionType.WITHDRAW, "30.00", "100.00", DAY1.atTime(18, 0));
+        journal("801", TransactionType.ACCOUNT_CREATED, "0.00", "0.00", DAY2.atTime(10, 0));
+        journal("801", TransactionType.TRANSFER_IN, "20.00", "0.00", DAY2.atTime(11, 0));
+        journal("800", TransactionType.DEPOSIT, "20.00", "70.00", DAY3.atTime(8, 0));
+        journal("800", TransactionType.TRANSFER_OUT, "20.00", "90.00", DAY3.atTime(12, 0));
+
+        // Sin snapshots se recorre el journal completo
+        BalanceAt replayed = snapshots.balanceAt("800", DAY3.atTime(9, 0));
+        assertEquals(Money.of("90.00"), replayed.balance());
+        assertNull(replayed.snapshotDate());
+
+        assertEquals(3, snapshots.snapshot());
+        assertEquals(Money.of("70.00"), snapshot("800", DAY1));
+        assertEquals(Money.of("20.00"), snapshot("801", DAY2));
+        assertEquals(Money.of("70.00"), snapshot("800", DAY3));
+        assertTrue(snapshotRepo.findById(new BalanceSnapshotId("800", DAY2)).isEmpty());
+
+        BalanceAt fromSnapshot = snapshots.balanceAt("800", DAY3.atTime(9, 0));
+        assertEquals(Money.of("90.00"), fromSnapshot.balance());
+        assertEquals(DAY1, fromSnapshot.snapshotDate());
+
+        assertEquals(Money.of("100.00"), snapshots.balanceAt("800", DAY1.atTime(12, 0)).balance());
+        assertEquals(Money.of("70.00"), snapshots.balanceAt("800", DAY2.atTime(23, 0)).balance());
+        assertEquals(Money.of("70.00"), snapshots.balanceAt("800", DAY3.atTime(12, 0)).balance());
+        assertEquals(Money.of("20.00"), snapshots.balanceAt("801", LocalDateTime.now()).balance());
+        assertThrows(IllegalArgumentException.class, () -> snapshots.balanceAt("801", DAY1.atTime(12, 0)));
+
+        // Volver a correr reescribe el ultimo dia con los mismos saldos
+        snapshots.snapshot();
+        assertEquals(Money.of("70.00"), snapshot("800", DAY3));
+    }
+
+    private void journal(String accountNumber, TransactionType type, String amount, String before, LocalDateTime at) {
+        Money value = Money.of(amount);
+        Money balanceBefore = Money.of(before);
+        Money after = type == TransactionType.WITHDRAW || type == TransactionType.TRANSFER_OUT
+                ? balanceBefore.minus(value) : balanceBefore.plus(value);
+        txRepo.save(new TransactionEntity(UuidV7.next(), accountNumber, type, value, balanceBefore, after, type.name(), at));
+    }
+
+    private Money snapshot(String accountNumber, LocalDate day) {
+        return snapshotRepo.findById(new BalanceSnapshotId(accountNumber, day)).orElseThrow().getBalance();
+    }
+}
@@ -0,0 +1,120 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.InsufficientFundsException;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.persistence.AccountBucketRepository;
+import com.mauricio.bank.persistence.AccountRepository;
+import com.mauricio.bank.persistence.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bankcoalescing;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "bank.coalescing.enabled=true",
+        "bank.coalescing.window=2ms",
+        "bank.coalescing.max-batch=16"
+})
+@ActiveProfiles("test")
+public class BalanceUpdateCoalescerITTest {
+    @Autowired
+    BankService bankService;
+
+    @Autowired
+    BalanceUpdateCoalescer coalescer;
+
+    @Autowired
+    TransactionRepository txRepo;
+
+    @Autowired
+    ShardedBalances shardedBalances;
+
+    @Autowired
+    AccountRepository accountRepo;
+
+    @Autowired
+    AccountBucketRepository bucketRepo;
+
+    @Autowired
+    ShardRouter shards;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentUpdates_sameAccount_areAppliedOnceEach() throws Exception {
+        bankService.createAccount("600", "Merchant", Money.of("5.00"));
+
+        int threads = 16;
+        int perThread = 20;
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                boolean withdraws = t % 4 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        if (withdraws) {
+                            try {
+                                coalescer.withdraw("600", Money.of("3.00"), null);
+                            } catch (InsufficientFundsException e) {
+                                rejected.incrementAndGet();
+                            }
+                        } else {
+                            coalescer.deposit("600", Money.of("1.00"), null);
+                        }
+                    }
+                }));
+            }
+
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        }
+        for (Future<?> f : futures) f.get();
+
+        int deposits = 12 * perThread;
+        int withdrawals = 4 * perThread - rejected.get();
+        Money expected = Money.of("5.00").plus(Money.ofMinor(100L * deposits)).minus(Money.ofMinor(300L * withdrawals));
+        assertEquals(expected, bankService.getAccount("600").balance());
+        // Una fila de diario por operacion aplicada, mas la de creacion
+        assertEquals(1 + deposits + withdrawals, txRepo.findByAccountNumber("600", Pageable.unpaged()).getTotalElements());
+    }
+
+    @Test
+    void run_withUnknownAccount_failsEveryCaller() {
+        assertThrows(com.mauricio.bank.AccountNotFoundException.class,
+                () -> coalescer.deposit("699", Money.of("1.00"), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> coalescer.deposit("600", Money.ZERO, null));
+    }
+
+    @Test
+    void run_onAccountShardedElsewhere_fallsBackToBankService() {
+        bankService.createAccount("610", "Merchant", Money.of("10.00"));
+        assertEquals(0, shardedBalances.bucketCount("610"));
+
+        // Otra instancia activa el sharding; la cache de esta sigue diciendo 0 buckets
+        ShardedBalances otherInstance = new ShardedBalances(accountRepo, bucketRepo, shards, Duration.ofSeconds(30));
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> otherInstance.enable("610", 2));
+
+        assertEquals(Money.of("15.00"), coalescer.deposit("610", Money.of("5.00"), null).balance());
+        assertEquals(Money.of("12.00"), coalescer.withdraw("610", Money.of("3.00"), null).balance());
+        assertEquals(2, shardedBalances.bucketCount("610"));
+        assertEquals(Money.of("12.00"), bankService.getAccount("610").balance());
+    }
+}
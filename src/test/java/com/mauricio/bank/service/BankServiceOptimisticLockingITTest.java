@@ -0,0 +1,55 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bankoptimistic;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "bank.locking.mode=optimistic"
+})
+@ActiveProfiles("test")
+public class BankServiceOptimisticLockingITTest {
+    @Autowired
+    BankService bankService;
+
+    @Test
+    void concurrentDeposits_sameAccount_doNotLoseMoney() throws Exception {
+        bankService.createAccount("100", "A", Money.ZERO);
+
+        int threads = 8;
+        int depositsPerThread = 25;
+
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < depositsPerThread; i++) {
+                        bankService.deposit("100", Money.of("1.00"));
+                    }
+                });
+            }
+
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        }
+
+        assertEquals(Money.of("200.00"), bankService.getAccount("100").balance());
+    }
+
+    @Test
+    void transfer_withoutFunds_keepsBalance() {
+        bankService.createAccount("101", "A", Money.of("5.00"));
+        bankService.createAccount("102", "B", Money.ZERO);
+
+        assertThrows(com.mauricio.bank.InsufficientFundsException.class,
+                () -> bankService.transfer("101", "102", Money.of("10.00")));
+        assertEquals(Money.of("5.00"), bankService.getAccount("101").balance());
+    }
+}
@@ -0,0 +1,46 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.ServiceBusyException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DbConcurrencyLimiterTest {
+
+    @Test
+    void call_whenAllPermitsBusy_failsAfterTimeout() throws Exception {
+        DbConcurrencyLimiter limiter = new DbConcurrencyLimiter(1, Duration.ofMillis(50));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> limiter.call(() -> {
+                holding.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+            assertThrows(ServiceBusyException.class, () -> limiter.call(() -> "late"));
+            release.countDown();
+        }
+
+        assertEquals(1, limiter.availablePermits());
+        assertEquals("ok", limiter.call(() -> "ok"));
+    }
+
+    @Test
+    void call_withoutLimit_runsDirectly() {
+        DbConcurrencyLimiter limiter = new DbConcurrencyLimiter(0, Duration.ofMillis(50));
+        assertEquals(-1, limiter.availablePermits());
+        assertEquals("ok", limiter.call(() -> "ok"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.IdempotencyKeyReusedException;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.persistence.TransferRequestEntity;
+import com.mauricio.bank.persistence.TransferRequestStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bankidempotency;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "bank.async-transfers.poll-interval=100ms"
+})
+@ActiveProfiles("test")
+public class IdempotencyITTest {
+    @Autowired
+    BankService bankService;
+
+    @Autowired
+    AsyncTransferService asyncTransfers;
+
+    @Test
+    void retriedDeposit_returnsFirstResult_withoutMovingMoneyAgain() {
+        bankService.createAccount("300", "A", Money.of("100.00"));
+
+        assertEquals(Money.of("150.00"), bankService.deposit("300", Money.of("50.00"), "dep-300-1").balance());
+        bankService.deposit("300", Money.of("1.00"));
+        assertEquals(Money.of("150.00"), bankService.deposit("300", Money.of("50.00"), "dep-300-1").balance());
+
+        assertEquals(Money.of("151.00"), bankService.getAccount("300").balance());
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> bankService.deposit("300", Money.of("60.00"), "dep-300-1"));
+    }
+
+    @Test
+    void concurrentTransfersWithSameKey_applyOnce() throws Exception {
+        bankService.createAccount("301", "A", Money.of("100.00"));
+        bankService.createAccount("302", "B", Money.ZERO);
+
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            for (int t = 0; t < 4; t++) {
+                executor.submit(() -> bankService.transfer("301", "302", Money.of("10.00"), "tr-301-1"));
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        assertEquals(Money.of("90.00"), bankService.getAccount("301").balance());
+        assertEquals(Money.of("10.00"), bankService.getAccount("302").balance());
+    }
+
+    @Test
+    void asyncTransfers_areAppliedByWorker_andDeduplicated() throws Exception {
+        bankService.createAccount("303", "A", Money.of("30.00"));
+        bankService.createAccount("304", "B", Money.ZERO);
+
+        TransferRequestEntity ok = asyncTransfers.accept("303", "304", Money.of("20.00"), "async-303-1");
+        TransferRequestEntity replay = asyncTransfers.accept("303", "304", Money.of("20.00"), "async-303-1");
+        TransferRequestEntity short_ = asyncTransfers.accept("303", "304", Money.of("20.00"), null);
+        assertEquals(ok.getId(), replay.getId());
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> asyncTransfers.accept("303", "304", Money.of("5.00"), "async-303-1"));
+
+        assertEquals(TransferRequestStatus.COMPLETED, awaitDone(ok).getStatus());
+        TransferRequestEntity failed = awaitDone(short_);
+        assertEquals(TransferRequestStatus.FAILED, failed.getStatus());
+        assertNotNull(failed.getError());
+
+        assertEquals(Money.of("10.00"), bankService.getAccount("303").balance());
+        assertEquals(Money.of("20.00"), bankService.getAccount("304").balance());
+    }
+
+    @Test
+    void asyncTransfer_creditOverflow_failsAloneInsteadOfBlockingTheQueue() throws Exception {
+        bankService.createAccount("305", "A", Money.of("10.00"));
+        bankService.createAccount("306", "B", Money.ofMinor(Long.MAX_VALUE));
+        bankService.createAccount("307", "C", Money.ZERO);
+
+        TransferRequestEntity overflow = asyncTransfers.accept("305", "306", Money.of("1.00"), null);
+        TransferRequestEntity ok = asyncTransfers.accept("305", "307", Money.of("1.00"), null);
+
+        TransferRequestEntity failed = awaitDone(overflow);
+        assertEquals(TransferRequestStatus.FAILED, failed.getStatus());
+        assertNotNull(failed.getError());
+        assertEquals(TransferRequestStatus.COMPLETED, awaitDone(ok).getStatus());
+
+        assertEquals(Money.of("9.00"), bankService.getAccount("305").balance());
+        assertEquals(Money.ofMinor(Long.MAX_VALUE), bankService.getAccount("306").balance());
+    }
+
+    private TransferRequestEntity awaitDone(TransferRequestEntity request) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            TransferRequestEntity current = asyncTransfers.status(request.getId());
+            if (current.getStatus() != TransferRequestStatus.PENDING) return current;
+            Thread.sleep(100);
+        }
+        fail("Transfer request still pending: " + request.getId());
+        return null;
+    }
+}
@@ -0,0 +1,139 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.AccountNotFoundException;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransactionType;
+import com.mauricio.bank.persistence.ShardRoutingDataSource;
+import com.mauricio.bank.persistence.TransactionEntity;
+import com.mauricio.bank.persistence.TransferOutboxStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Dos bases H2 como shards; el relay se corre a mano
+@SpringBootTest(properties = {
+        "bank.shards.urls=jdbc:h2:mem:bankshard0;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE,"
+                + "jdbc:h2:mem:bankshard1;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "bank.shards.relay-interval=PT1H"
+})
+@ActiveProfiles("test")
+public class MultiShardITTest {
+
+    @Autowired
+    BankService bankService;
+
+    @Autowired
+    TransferOutboxRelay relay;
+
+    @Autowired
+    ShardRouter shards;
+
+    @Autowired
+    ShardRoutingDataSource routing;
+
+    @Test
+    void accounts_areSpreadOverShards_andStayOnTheirShard() {
+        List<String> onShard0 = accountsOn(0, "70", 2);
+        bankService.createAccount(onShard0.get(0), "A", Money.of("100.00"));
+        bankService.createAccount(onShard0.get(1), "B", Money.ZERO);
+
+        bankService.transfer(onShard0.get(0), onShard0.get(1), Money.of("30.00"));
+
+        assertEquals(Money.of("70.00"), bankService.getAccount(onShard0.get(0)).balance());
+        assertEquals(Money.of("30.00"), bankService.getAccount(onShard0.get(1)).balance());
+        assertEquals(1, countAccounts(0, onShard0.get(0)));
+        assertEquals(0, countAccounts(1, onShard0.get(0)));
+    }
+
+    @Test
+    void crossShardTransfer_debitsNow_andCreditsWhenRelayed() {
+        String from = accountsOn(0, "71", 1).get(0);
+        String to = accountsOn(1, "71", 1).get(0);
+        bankService.createAccount(from, "A", Money.of("100.00"));
+        bankService.createAccount(to, "B", Money.of("5.00"));
+
+        bankService.transfer(from, to, Money.of("40.00"));
+
+        assertEquals(Money.of("60.00"), bankService.getAccount(from).balance());
+        assertEquals(Money.of("5.00"), bankService.getAccount(to).balance());
+        assertEquals(TransferOutboxStatus.PENDING.name(), outboxStatus(0, from));
+
+        assertTrue(relay.relayPending() >= 1);
+
+        assertEquals(Money.of("45.00"), bankService.getAccount(to).balance());
+        assertEquals(TransferOutboxStatus.COMPLETED.name(), outboxStatus(0, from));
+        TransactionEntity credit = bankService.getTransactionHistory(to, null, 10).getContent().get(0);
+        assertEquals(TransactionType.TRANSFER_IN, credit.getType());
+
+        // Un segundo pase no vuelve a acreditar
+        relay.relayPending();
+        assertEquals(Money.of("45.00"), bankService.getAccount(to).balance());
+    }
+
+    @Test
+    void crossShardTransfer_toMissingAccount_isRejectedUpFront() {
+        String from = accountsOn(0, "72", 1).get(0);
+        String missing = accountsOn(1, "72", 1).get(0);
+        bankService.createAccount(from, "A", Money.of("10.00"));
+
+        assertThrows(AccountNotFoundException.class, () -> bankService.transfer(from, missing, Money.of("1.00")));
+        assertEquals(Money.of("10.00"), bankService.getAccount(from).balance());
+    }
+
+    @Test
+    void rejectedCredit_isReversedOnTheSource() {
+        String from = accountsOn(1, "73", 1).get(0);
+        String to = accountsOn(0, "73", 1).get(0);
+        bankService.createAccount(from, "A", Money.of("50.00"));
+        bankService.createAccount(to, "B", Money.ZERO);
+
+        bankService.transfer(from, to, Money.of("20.00"));
+        // El destino desaparece antes de que llegue el credito
+        new JdbcTemplate(routing.shards().get(0)).update("delete from accounts where account_number = ?", to);
+
+        relay.relayPending();
+
+        assertEquals(Money.of("50.00"), bankService.getAccount(from).balance());
+        assertEquals(TransferOutboxStatus.REVERSED.name(), outboxStatus(1, from));
+        TransactionEntity reversal = bankService.getTransactionHistory(from, null, 10).getContent().get(0);
+        assertEquals(TransactionType.TRANSFER_REVERSAL, reversal.getType());
+        assertEquals(Money.of("20.00"), reversal.getAmount());
+    }
+
+    @Test
+    void batchAcrossShards_isRejected() {
+        String a = accountsOn(0, "74", 1).get(0);
+        String b = accountsOn(1, "74", 1).get(0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> bankService.transferBatch(List.of(new TransferCommand(a, b, Money.of("1.00")))));
+    }
+
+    // --Helpers
+
+    private List<String> accountsOn(int shard, String prefix, int count) {
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; accounts.size() < count; i++) {
+            String candidate = prefix + String.format("%03d", i);
+            if (shards.shardOf(candidate) == shard) accounts.add(candidate);
+        }
+        return accounts;
+    }
+
+    private int countAccounts(int shard, String accountNumber) {
+        return new JdbcTemplate(routing.shards().get(shard))
+                .queryForObject("select count(*) from accounts where account_number = ?", Integer.class, accountNumber);
+    }
+
+    private String outboxStatus(int shard, String fromAccountNumber) {
+        return new JdbcTemplate(routing.shards().get(shard))
+                .queryForObject("select status from transfer_outbox where from_account_number = ?", String.class, fromAccountNumber);
+    }
+}
@@ -0,0 +1,105 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.AccountNotFoundException;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransactionType;
+import com.mauricio.bank.persistence.TransactionEntity;
+import com.mauricio.bank.persistence.TransactionRepository;
+import com.mauricio.bank.persistence.TransferOutboxRepository;
+import com.mauricio.bank.persistence.TransferOutboxStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// El relay no corre solo: las transferencias entre particiones se tienen que completar en linea
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bankpartitions;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "bank.execution.partitions=4",
+        "bank.shards.relay-interval=PT1H"
+})
+@ActiveProfiles("test")
+public class PartitionedBankServiceITTest {
+
+    @Autowired
+    BankService bankService;
+
+    @Autowired
+    AccountPartitions partitions;
+
+    @Autowired
+    TransactionRepository txRepo;
+
+    @Autowired
+    TransferOutboxRepository outboxRepo;
+
+    @Test
+    void concurrentWrites_acrossPartitions_keepTotalsAndCompleteInline() throws Exception {
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            String number = "80" + i;
+            bankService.createAccount(number, "Owner " + i, Money.of("100.00"));
+            accounts.add(number);
+        }
+        assertTrue(accounts.stream().map(partitions::partitionOf).distinct().count() > 1);
+
+        int threads = 6;
+        int rounds = 20;
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                executor.submit(() -> {
+                    for (int i = 0; i < rounds; i++) {
+                        String from = accounts.get((offset + i) % accounts.size());
+                        String to = accounts.get((offset + i + 1) % accounts.size());
+                        bankService.transfer(from, to, Money.of("1.00"));
+                        bankService.deposit(from, Money.of("0.50"));
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        }
+
+        long total = 0;
+        for (String number : accounts) {
+            total += bankService.getAccount(number).balance().minorUnits();
+        }
+        assertEquals(Money.of("660.00").minorUnits(), total);
+        assertTrue(outboxRepo.findPending(Pageable.unpaged()).isEmpty());
+        assertTrue(outboxRepo.findAll().stream().allMatch(m -> m.getStatus() == TransferOutboxStatus.COMPLETED));
+
+        // Cada cuenta escribe en su particion en orden: el historial es una cadena antes/despues
+        for (String number : accounts) {
+            List<TransactionEntity> history = txRepo.findByAccountNumber(number,
+                    Pageable.unpaged(Sort.by("occurredAt", "id"))).getContent();
+            for (int i = 1; i < history.size(); i++) {
+                assertEquals(history.get(i - 1).getBalanceAfter(), history.get(i).getBalanceBefore(), number + " #" + i);
+            }
+        }
+    }
+
+    @Test
+    void crossPartitionTransfer_toUnknownAccount_debitsNothing() {
+        bankService.createAccount("810", "A", Money.of("10.00"));
+        String unknown = "811";
+        for (int i = 2; partitions.samePartition("810", unknown); i++) {
+            unknown = "81" + i;
+        }
+        String to = unknown;
+
+        assertThrows(AccountNotFoundException.class, () -> bankService.transfer("810", to, Money.of("5.00")));
+        assertEquals(Money.of("10.00"), bankService.getAccount("810").balance());
+        assertEquals(List.of(TransactionType.ACCOUNT_CREATED),
+                txRepo.findByAccountNumber("810", Pageable.unpaged()).map(TransactionEntity::getType).getContent());
+    }
+}
@@ -0,0 +1,101 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.InsufficientFundsException;
+import com.mauricio.bank.Money;
+import com.mauricio.bank.persistence.AccountBucketRepository;
+import com.mauricio.bank.persistence.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:banksharded;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@ActiveProfiles("test")
+public class ShardedAccountITTest {
+    @Autowired
+    BankService bankService;
+    @Autowired
+    ShardedBalances shardedBalances;
+    @Autowired
+    AccountRepository accountRepo;
+    @Autowired
+    AccountBucketRepository bucketRepo;
+    @Autowired
+    ShardRouter shards;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentDeposits_thenWithdrawAcrossBuckets_keepsTotal() throws Exception {
+        bankService.createAccount("200", "Merchant", Money.of("10.00"));
+        assertEquals(Money.of("10.00"), bankService.enableSharding("200", 4).balance());
+
+        int threads = 8;
+        int depositsPerThread = 25;
+
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < depositsPerThread; i++) {
+                        bankService.deposit("200", Money.of("1.00"));
+                    }
+                });
+            }
+
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        }
+
+        assertEquals(Money.of("210.00"), bankService.getAccount("200").balance());
+
+        // Ningun bucket cubre 150 por si solo: obliga a rebalancear
+        assertEquals(Money.of("60.00"), bankService.withdraw("200", Money.of("150.00")).balance());
+        assertThrows(InsufficientFundsException.class, () -> bankService.withdraw("200", Money.of("60.01")));
+        assertEquals(Money.of("60.00"), bankService.getAccount("200").balance());
+    }
+
+    @Test
+    void transfer_betweenShardedAndRegularAccounts() {
+        bankService.createAccount("201", "Merchant", Money.of("100.00"));
+        bankService.createAccount("202", "Customer", Money.of("50.00"));
+        bankService.enableSharding("201", 2);
+
+        bankService.transfer("202", "201", Money.of("20.00"));
+        bankService.transfer("201", "202", Money.of("70.00"));
+
+        assertEquals(Money.of("50.00"), bankService.getAccount("201").balance());
+        assertEquals(Money.of("100.00"), bankService.getAccount("202").balance());
+        assertThrows(IllegalArgumentException.class, () -> bankService.enableSharding("201", 4));
+    }
+
+    @Test
+    void shardingEnabledElsewhere_reroutesDespiteTheCachedBucketCount() {
+        bankService.createAccount("203", "Merchant", Money.of("100.00"));
+        bankService.createAccount("204", "Customer", Money.of("50.00"));
+        assertEquals(0, shardedBalances.bucketCount("203"));
+        assertEquals(Money.of("100.00"), bankService.getAccount("203").balance());
+
+        // Otra instancia (con su propia cache) activa el sharding: esta sigue cacheando 0 buckets
+        ShardedBalances otherInstance = new ShardedBalances(accountRepo, bucketRepo, shards, Duration.ofSeconds(30));
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> otherInstance.enable("203", 2));
+
+        assertEquals(Money.of("60.00"), bankService.withdraw("203", Money.of("40.00")).balance());
+        assertEquals(Money.of("70.00"), bankService.deposit("203", Money.of("10.00")).balance());
+        bankService.transfer("204", "203", Money.of("5.00"));
+
+        assertEquals(2, shardedBalances.bucketCount("203"));
+        assertEquals(Money.of("75.00"), bankService.getAccount("203").balance());
+        assertEquals(Money.of("45.00"), bankService.getAccount("204").balance());
+        assertEquals(Money.ZERO, accountRepo.findById("203").orElseThrow().getBalance());
+    }
+}
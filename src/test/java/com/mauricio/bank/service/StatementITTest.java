@@ -0,0 +1,103 @@
+package com.mauricio.bank.service;
+
+import com.mauricio.bank.Money;
+import com.mauricio.bank.TransactionType;
+import com.mauricio.bank.UuidV7;
+import com.mauricio.bank.persistence.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:bankstatements;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+public class StatementITTest {
+
+    @Autowired
+    BankService bankService;
+
+    @Autowired
+    StatementService statements;
+
+    @Autowired
+    AccountRepository accountRepo;
+
+    @Autowired
+    TransactionRepository txRepo;
+
+    @Autowired
+    DailyRollupWriter rollups;
+
+    @Autowired
+    BalanceSnapshotRepository snapshotRepo;
+
+    @Test
+    void statement_aggregatesEveryWritePath() {
+        bankService.createAccount("900", "A", Money.of("100.00"));
+        bankService.createAccount("901", "B", Money.ZERO);
+        bankService.deposit("900", Money.of("50.00"));
+        bankService.withdraw("900", Money.of("20.00"));
+        bankService.transfer("900", "901", Money.of("10.00"));
+        bankService.transferBatch(List.of(new TransferCommand("900", "901", Money.of("5.00")),
+                                          new TransferCommand("900", "901", Money.of("5.00"))));
+        bankService.applyBalanceUpdates("900", List.of(new BalanceUpdate(false, Money.of("1.00")),
+                                                       new BalanceUpdate(true, Money.of("999.00"))));
+
+        Statement s = statements.monthly("900", YearMonth.now());
+
+        assertEquals(Money.ZERO, s.openingBalance());
+        assertEquals(bankService.getAccount("900").balance(), s.closingBalance());
+        assertEquals(Money.of("111.00"), s.closingBalance());
+        assertLine(s, TransactionType.ACCOUNT_CREATED, 1, "100.00");
+        assertLine(s, TransactionType.DEPOSIT, 2, "51.00");
+        assertLine(s, TransactionType.WITHDRAW, 1, "20.00");
+        assertLine(s, TransactionType.TRANSFER_OUT, 3, "20.00");
+        assertLine(s, TransactionType.TRANSFER_IN, 0, "0.00");
+
+        assertLine(statements.monthly("901", YearMonth.now()), TransactionType.TRANSFER_IN, 3, "20.00");
+    }
+
+    @Test
+    void openingBalance_comesFromSnapshotPlusRollups() {
+        YearMonth march = YearMonth.of(2024, 3);
+        accountRepo.save(new AccountEntity("910", "A", Money.of("65.00")));
+        journal("910", TransactionType.ACCOUNT_CREATED, "40.00", march.minusMonths(2).atDay(10).atTime(9, 0));
+        journal("910", TransactionType.DEPOSIT, "30.00", march.minusMonths(1).atDay(5).atTime(9, 0));
+        journal("910", TransactionType.WITHDRAW, "15.00", march.minusMonths(1).atDay(20).atTime(9, 0));
+        journal("910", TransactionType.DEPOSIT, "10.00", march.atDay(1).atTime(0, 0));
+
+        Statement withoutSnapshot = statements.monthly("910", march);
+        assertEquals(Money.of("55.00"), withoutSnapshot.openingBalance());
+        assertEquals(Money.of("65.00"), withoutSnapshot.closingBalance());
+
+        // Un snapshot a mitad de febrero: solo se suman los rollups posteriores
+        snapshotRepo.save(new BalanceSnapshotEntity("910", march.minusMonths(1).atDay(5), Money.of("70.00")));
+        Statement withSnapshot = statements.monthly("910", march);
+        assertEquals(Money.of("55.00"), withSnapshot.openingBalance());
+        assertLine(withSnapshot, TransactionType.DEPOSIT, 1, "10.00");
+
+        Statement april = statements.monthly("910", march.plusMonths(1));
+        assertEquals(Money.of("65.00"), april.openingBalance());
+        assertEquals(Money.of("65.00"), april.closingBalance());
+    }
+
+    private void journal(String accountNumber, TransactionType type, String amount, LocalDateTime at) {
+        Money value = Money.of(amount);
+        TransactionEntity entry = new TransactionEntity(UuidV7.next(), accountNumber, type, value,
+                                                        Money.ZERO, value, type.name(), at);
+        txRepo.save(entry);
+        rollups.addAll(List.of(entry), t -> 0);
+    }
+
+    private static void assertLine(Statement s, TransactionType type, long count, String total) {
+        Statement.Line line = s.lines().stream().filter(l -> l.type() == type).findFirst().orElseThrow();
+        assertEquals(count, line.count(), type.name());
+        assertEquals(Money.of(total), line.total(), type.name());
+    }
+}
@@ -0,0 +1,39 @@
+package com.mauricio.bank.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionPartitionManagerTest {
+    private static final YearMonth OCTOBER = YearMonth.of(2026, 10);
+
+    @Test
+    void parseUpperBound_readsTheToDate() {
+        assertEquals(LocalDate.of(2026, 11, 1),
+                TransactionPartitionManager.parseUpperBound("FOR VALUES FROM (MINVALUE) TO ('2026-11-01 00:00:00')"));
+        assertEquals(LocalDate.of(2026, 11, 1),
+                TransactionPartitionManager.parseUpperBound("FOR VALUES FROM ('2026-10-01 00:00:00') TO ('2026-11-01 00:00:00')"));
+        assertNull(TransactionPartitionManager.parseUpperBound("DEFAULT"));
+    }
+
+    @Test
+    void firstMonthToCreate_startsAfterALegacyPartitionThatCoversThisMonth() {
+        // transactions_legacy con filas de este mes: termina el 1 del mes siguiente
+        assertEquals(YearMonth.of(2026, 11),
+                TransactionPartitionManager.firstMonthToCreate(OCTOBER, List.of(LocalDate.of(2026, 11, 1))));
+        assertEquals(YearMonth.of(2027, 1),
+                TransactionPartitionManager.firstMonthToCreate(OCTOBER, Arrays.asList(null, LocalDate.of(2027, 1, 1))));
+    }
+
+    @Test
+    void firstMonthToCreate_isTheCurrentMonthWhenNothingReachesIt() {
+        assertEquals(OCTOBER, TransactionPartitionManager.firstMonthToCreate(OCTOBER, List.of()));
+        assertEquals(OCTOBER, TransactionPartitionManager.firstMonthToCreate(OCTOBER,
+                List.of(LocalDate.of(2026, 9, 1), LocalDate.of(2026, 10, 1))));
+    }
+}